@@ -0,0 +1,284 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.function.Consumer;
+
+/**
+ * AppendJournal is an append-only text log of change records.
+ * Each change is written as one line at the end of the journal, so the cost of a
+ * write depends only on the size of the record. The journal is replayed over a
+ * snapshot file on startup and emptied again when the snapshot is compacted.
+ *
+ * Compaction works in two steps: {@link #rotate()} moves the current journal aside
+ * so new records go to a fresh file, and {@link #discardRotated()} deletes the old
+ * records once they have been folded into a new snapshot.
+ *
+ * Every journal file starts with a header line giving its generation, a number
+ * that goes up by one each time the journal is rotated or cleared. A snapshot that
+ * contains the records of a journal starts with the same kind of header, written
+ * with {@link #snapshotHeader(long)}, giving the newest generation it contains. On
+ * replay, journal files whose generation the snapshot already contains are deleted
+ * instead of replayed, so records which are not idempotent (such as stock deltas)
+ * are never applied twice, whenever the program stopped and whatever the file times
+ * say. A snapshot without a header (such as one written by hand) contains no journal
+ * generation, so every journal file is replayed over it.
+ *
+ * @author Joreve P. De Jesus
+ */
+public class AppendJournal {
+    /** The first field of a journal or snapshot header line. */
+    public static final String HEADER = "#journal";
+
+    private static final String DELIMITER = "|||";
+    private static final long NO_GENERATION = -1;
+
+    private final Path journalPath;
+    private final Path rotatedPath;
+    private final Path snapshotPath;
+    private final PersistenceWriter writer;
+    private int recordCount;
+    private long generation;       // the generation of the current journal file
+    private boolean headerPending; // true until the current journal file has its header
+
+    /**
+     * Constructs an AppendJournal backed by the given file.
+     *
+     * @param filepath the path of the journal file
+     * @param snapshotFilepath the path of the snapshot the journal is replayed over
+     * @param writer the background writer that appends records
+     */
+    public AppendJournal(String filepath, String snapshotFilepath, PersistenceWriter writer) {
+        this.journalPath = Paths.get(filepath);
+        this.rotatedPath = Paths.get(filepath + ".old");
+        this.snapshotPath = Paths.get(snapshotFilepath);
+        this.writer = writer;
+        this.recordCount = countRecords();
+
+        long current = readGeneration(journalPath);
+        if (current != NO_GENERATION) {
+            this.generation = current;
+        } else {
+            this.generation = Math.max(readGeneration(snapshotPath), readGeneration(rotatedPath)) + 1;
+            this.headerPending = true;
+        }
+    }
+
+    /**
+     * Returns the header line for a snapshot that contains every journal record
+     * up to and including the given generation.
+     *
+     * @param generation the newest journal generation in the snapshot
+     * @return the header line (without a line separator)
+     */
+    public static String snapshotHeader(long generation) {
+        return HEADER + DELIMITER + generation;
+    }
+
+    /**
+     * Checks if the current record is a journal or snapshot header,
+     * which readers of the records should skip.
+     *
+     * @param record a reader positioned at a record
+     * @return true if the record is a header line
+     */
+    public static boolean isHeader(RecordReader record) {
+        return record.isNext(HEADER);
+    }
+
+    /**
+     * Queues one record to be appended to the end of the journal.
+     *
+     * @param record the record line (without a line separator)
+     * @param callback told when the record is durable (may be null)
+     */
+    public synchronized void append(String record, WriteCallback callback) {
+        String lines = record + System.lineSeparator();
+        if (headerPending) {
+            lines = HEADER + DELIMITER + generation + System.lineSeparator() + lines;
+            headerPending = false;
+        }
+        writer.append(journalPath.toString(), lines.getBytes(StandardCharsets.UTF_8), callback);
+        recordCount++;
+    }
+
+    /**
+     * Replays every record the snapshot does not already contain, in write order,
+     * starting with any rotated records left over from an unfinished compaction.
+     * Journal files the snapshot already contains are deleted.
+     *
+     * @param consumer receives a reader positioned at each record
+     */
+    public synchronized void replay(Consumer<RecordReader> consumer) {
+        writer.flush();
+        long inSnapshot = readGeneration(snapshotPath);
+
+        if (Files.exists(rotatedPath) && readGeneration(rotatedPath) <= inSnapshot) {
+            discardRotated();
+        } else {
+            replayFile(rotatedPath, consumer);
+        }
+
+        if (Files.exists(journalPath) && readGeneration(journalPath) <= inSnapshot) {
+            deleteCurrent();
+        } else {
+            replayFile(journalPath, consumer);
+        }
+    }
+
+    /**
+     * Replays only the records set aside by {@link #rotate()}.
+     * Used when folding them into a new snapshot.
+     *
+     * @param consumer receives a reader positioned at each record
+     */
+    public synchronized void replayRotated(Consumer<RecordReader> consumer) {
+        writer.flush();
+        replayFile(rotatedPath, consumer);
+    }
+
+    /**
+     * Moves the current journal aside so that a snapshot can be written from
+     * the in-memory state while new records keep going to a fresh journal.
+     *
+     * The snapshot that folds in the rotated records should start with
+     * {@link #snapshotHeader(long)} for the generation returned here.
+     *
+     * @return the generation of the rotated records, or -1 if the journal was not
+     *         rotated because a compaction is already pending
+     */
+    public synchronized long rotate() {
+        writer.flush();
+        if (Files.exists(rotatedPath)) {
+            return NO_GENERATION;
+        }
+
+        try {
+            if (Files.exists(journalPath)) {
+                Files.move(journalPath, rotatedPath, StandardCopyOption.ATOMIC_MOVE);
+            }
+            recordCount = 0;
+            return startNextGeneration();
+        } catch (IOException e) {
+            System.err.println("Error rotating journal " + journalPath + ": " + e.getMessage());
+            return NO_GENERATION;
+        }
+    }
+
+    /**
+     * Deletes the records set aside by {@link #rotate()} once they are in the snapshot.
+     */
+    public synchronized void discardRotated() {
+        try {
+            Files.deleteIfExists(rotatedPath);
+        } catch (IOException e) {
+            System.err.println("Error discarding journal " + rotatedPath + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the generation of the journal records are appended to now.
+     * A full snapshot written from the in-memory state while no records can be
+     * appended contains this generation and everything before it.
+     *
+     * @return the current generation
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Deletes all records, including rotated ones.
+     * Used after a full snapshot has been written from the in-memory state,
+     * with a header for {@link #getGeneration()}.
+     */
+    public synchronized void clear() {
+        writer.flush();
+        try {
+            Files.deleteIfExists(journalPath);
+            Files.deleteIfExists(rotatedPath);
+            recordCount = 0;
+            startNextGeneration();
+        } catch (IOException e) {
+            System.err.println("Error clearing journal " + journalPath + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the number of records written since the last rotation.
+     *
+     * @return the record count of the current journal
+     */
+    public synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    private void replayFile(Path path, Consumer<RecordReader> consumer) {
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        try (RecordReader records = RecordReader.open(path)) {
+            while (records.nextRecord()) {
+                if (!records.isEmptyRecord() && !isHeader(records)) {
+                    consumer.accept(records);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error replaying journal " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Moves on to a new generation; its header is written with the first record.
+     *
+     * @return the generation that was current before
+     */
+    private long startNextGeneration() {
+        long previous = generation;
+        generation++;
+        headerPending = true;
+        return previous;
+    }
+
+    /**
+     * Deletes the current journal file, whose records are all in the snapshot.
+     */
+    private void deleteCurrent() {
+        try {
+            Files.deleteIfExists(journalPath);
+            recordCount = 0;
+            generation = Math.max(generation, readGeneration(snapshotPath) + 1);
+            headerPending = true;
+        } catch (IOException e) {
+            System.err.println("Error discarding journal " + journalPath + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the generation from the header line of a journal or snapshot file.
+     * A journal file written before headers were added counts as generation 0.
+     *
+     * @return the generation, or -1 if the file does not exist or is a snapshot without a header
+     */
+    private long readGeneration(Path path) {
+        if (!Files.exists(path)) {
+            return NO_GENERATION;
+        }
+
+        try (RecordReader records = RecordReader.open(path)) {
+            if (records.nextRecord() && isHeader(records) && records.getFieldCount() >= 2) {
+                records.skipField();
+                return Long.parseLong(records.nextString());
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading journal header of " + path + ": " + e.getMessage());
+        }
+        return path.equals(snapshotPath) ? NO_GENERATION : 0;
+    }
+
+    private int countRecords() {
+        int[] count = {0};
+        replayFile(journalPath, record -> count[0]++);
+        return count[0];
+    }
+}
@@ -1,19 +1,40 @@
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Cart class represents a shopping cart that holds items
  * selected by a customer for purchase.
+ *
+ * Lines are looked up by product ID in a map, and the subtotal is kept as a
+ * running total that is updated on every add, remove and quantity change, so
+ * neither depends on the number of lines. Each line knows its position in the
+ * item list, so removing one moves the last line into its place instead of
+ * shifting the rest. {@link CartListener}s are told about every change.
+ *
+ * The subtotal counts each line at the price its product had when the line last
+ * changed. Call {@link #refreshPrices(Inventory)} to pick up price changes made since.
  * 
  * @author Dana Ysabelle A. Pelagio
  */
 public class Cart {
-    private ArrayList<CartItem> items;
+    private final ArrayList<CartItem> items;
+    private final List<CartItem> itemsView;
+    private final Map<Integer, CartItem> lines;
+    private final List<CartListener> listeners;
+    private long subtotal; // in centavos
 
     /**
      * Constructs an empty Cart.
      */
     public Cart() {
         this.items = new ArrayList<>();
+        this.itemsView = Collections.unmodifiableList(items);
+        this.lines = new HashMap<>();
+        this.listeners = new CopyOnWriteArrayList<>();
     }
 
     /**
@@ -28,14 +49,45 @@ public class Cart {
             return;
         }
 
-        for (CartItem item : items) {
-            if (item.getProduct().getProductID() == product.getProductID()) {
-                item.setQuantity(item.getQuantity() + quantity);
-                return;
-            }
+        CartItem item = lines.get(product.getProductID());
+        if (item != null) {
+            setQuantity(product, item.getQuantity() + quantity);
+            return;
+        }
+
+        item = new CartItem(product, quantity);
+        item.attach(this);
+        item.setIndex(items.size());
+        items.add(item);
+        lines.put(product.getProductID(), item);
+        recount(item);
+        fireLineChanged(product, 0, quantity);
+    }
+
+    /**
+     * Sets the quantity of a product already in the cart.
+     *
+     * @param product the product
+     * @param quantity the new quantity; a quantity of 0 or less removes the line
+     */
+    public void setQuantity(Product product, int quantity) {
+        if (product == null) {
+            return;
+        }
+        if (quantity <= 0) {
+            removeItem(product);
+            return;
+        }
+
+        CartItem item = lines.get(product.getProductID());
+        if (item == null || item.getQuantity() == quantity) {
+            return;
         }
 
-        items.add(new CartItem(product, quantity));
+        int previousQuantity = item.getQuantity();
+        item.updateQuantity(quantity);
+        recount(item);
+        fireLineChanged(item.getProduct(), previousQuantity, quantity);
     }
 
     /**
@@ -48,20 +100,70 @@ public class Cart {
             return;
         }
 
-        items.removeIf(item -> item.getProduct().getProductID() == product.getProductID());
+        CartItem item = lines.remove(product.getProductID());
+        if (item == null) {
+            return;
+        }
+
+        CartItem last = items.remove(items.size() - 1);
+        if (last != item) {
+            items.set(item.getIndex(), last);
+            last.setIndex(item.getIndex());
+        }
+        item.attach(null);
+        subtotal -= item.getCountedTotal();
+        fireLineChanged(item.getProduct(), item.getQuantity(), 0);
+    }
+
+    /**
+     * Returns the line for a product.
+     *
+     * @param productID the product ID
+     * @return the cart line, or null if the product is not in the cart
+     */
+    public CartItem getItem(int productID) {
+        return lines.get(productID);
+    }
+
+    /**
+     * Returns the quantity of a product in the cart.
+     *
+     * @param productID the product ID
+     * @return the quantity, or 0 if the product is not in the cart
+     */
+    public int getQuantity(int productID) {
+        CartItem item = lines.get(productID);
+        return item == null ? 0 : item.getQuantity();
     }
 
     /**
-     * Computes the subtotal of all items in the cart.
+     * Returns the subtotal of all items in the cart. The subtotal is kept up to
+     * date as the cart changes, so this does not go through the lines.
      *
      * @return the subtotal amount (without tax or discounts)
      */
-    public double computeSubtotal() {
-        double subtotal = 0.0;
+    public Money computeSubtotal() {
+        return Money.ofCentavos(subtotal);
+    }
+
+    /**
+     * Re-reads the price of every line, for when product prices may have changed
+     * since the lines were added. Each line is moved to the inventory's current
+     * object for its product, since a reload or edit replaces changed products.
+     * Listeners are told about each line whose total changed.
+     *
+     * @param inventory the inventory to look the products up in
+     */
+    public void refreshPrices(Inventory inventory) {
         for (CartItem item : items) {
-            subtotal += item.computeLineTotal();
+            Product current = inventory.getProduct(item.getProduct().getProductID());
+            if (current != null) {
+                item.setProduct(current);
+            }
+            if (recount(item)) {
+                fireLineChanged(item.getProduct(), item.getQuantity(), item.getQuantity());
+            }
         }
-        return subtotal;
     }
 
     /**
@@ -77,29 +179,44 @@ public class Cart {
         for (int i = 0; i < items.size(); i++) {
             CartItem item = items.get(i);
             Product product = item.getProduct();
-            System.out.printf("%d. %s x%d - P%.2f\n",
+            System.out.printf("%d. %s x%d - P%s\n",
                     i + 1,
                     product.getName(),
                     item.getQuantity(),
                     item.computeLineTotal());
         }
-        System.out.printf("\nSubtotal: P%.2f\n", computeSubtotal());
+        System.out.printf("\nSubtotal: P%s\n", computeSubtotal());
         System.out.println("======================\n");
     }
 
     /**
-     * Gets all items in the cart.
-     * @return ArrayList of CartItems
+     * Gets all items in the cart, in the order they were added except that a
+     * removed line's place is taken by the line that was last.
+     * The list cannot be modified; use the Cart's methods to change it.
+     *
+     * @return the cart items
      */
-    public ArrayList<CartItem> getItems() {
-        return items;
+    public List<CartItem> getItems() {
+        return itemsView;
     }
 
     /**
      * Clears all items from the cart.
      */
     public void clear() {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        for (CartItem item : items) {
+            item.attach(null);
+        }
         items.clear();
+        lines.clear();
+        subtotal = 0;
+        for (CartListener listener : listeners) {
+            listener.onCleared(this);
+        }
     }
 
     /**
@@ -110,4 +227,44 @@ public class Cart {
     public boolean isEmpty() {
         return items.isEmpty();
     }
+
+    /**
+     * Registers a listener for changes to the cart's lines.
+     *
+     * @param listener the listener to add
+     */
+    public void addCartListener(CartListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeCartListener(CartListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Brings the subtotal up to date with a line's current total.
+     *
+     * @return true if the line total changed
+     */
+    private boolean recount(CartItem item) {
+        long lineTotal = item.computeLineTotal().getCentavos();
+        long previous = item.getCountedTotal();
+        if (lineTotal == previous) {
+            return false;
+        }
+        subtotal += lineTotal - previous;
+        item.setCountedTotal(lineTotal);
+        return true;
+    }
+
+    private void fireLineChanged(Product product, int previousQuantity, int quantity) {
+        for (CartListener listener : listeners) {
+            listener.onLineChanged(this, product, previousQuantity, quantity);
+        }
+    }
 }
\ No newline at end of file
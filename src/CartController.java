@@ -1,4 +1,4 @@
-import java.util.ArrayList;
+import java.util.List;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 
@@ -10,27 +10,46 @@ import javafx.scene.control.ButtonType;
  */
 public class CartController {
     private Cart cart;
+    private Inventory inventory;
     private MainApplication mainApp;
     private CartView view;
+    private CartListener cartListener;
 
-    public CartController(Cart cart, MainApplication mainApp) {
+    public CartController(Cart cart, Inventory inventory, MainApplication mainApp) {
         this.cart = cart;
+        this.inventory = inventory;
         this.mainApp = mainApp;
     }
     
     public void setView(CartView view) {
         this.view = view;
+        // Prices may have changed since the items were added
+        cart.refreshPrices(inventory);
+        if (cartListener == null) {
+            cartListener = new CartListener() {
+                @Override
+                public void onLineChanged(Cart cart, Product product, int previousQuantity, int quantity) {
+                    view.refreshCartDisplay();
+                }
+
+                @Override
+                public void onCleared(Cart cart) {
+                    view.refreshCartDisplay();
+                }
+            };
+            cart.addCartListener(cartListener);
+        }
     }
 
     public boolean isCartEmpty() {
         return cart.isEmpty();
     }
 
-    public ArrayList<CartItem> getCartItems() {
+    public List<CartItem> getCartItems() {
         return cart.getItems();
     }
 
-    public double computeSubtotal() {
+    public Money computeSubtotal() {
         return cart.computeSubtotal();
     }
 
@@ -43,16 +62,15 @@ public class CartController {
             return;
         }
 
-        if (newQuantity > item.getProduct().getStock()) {
+        if (!inventory.adjustReservation(cart, item.getProduct(), newQuantity)) {
             showAlert("Insufficient Stock",
-                    "Only " + item.getProduct().getStock() + " units available.",
+                    "Only " + (inventory.getAvailableStock(item.getProduct()) + item.getQuantity()) + " units available.",
                     Alert.AlertType.WARNING);
             view.refreshCartDisplay();
             return;
         }
 
-        item.setQuantity(newQuantity);
-        view.refreshCartDisplay();
+        cart.setQuantity(item.getProduct(), newQuantity);
     }
 
     /**
@@ -67,7 +85,7 @@ public class CartController {
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
                 cart.removeItem(item.getProduct());
-                view.refreshCartDisplay();
+                inventory.releaseReservation(cart, item.getProduct());
             }
         });
     }
@@ -88,7 +106,7 @@ public class CartController {
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
                 cart.clear();
-                view.refreshCartDisplay();
+                inventory.releaseReservations(cart);
                 showAlert("Cart Cleared", "All items removed from cart.", Alert.AlertType.INFORMATION);
             }
         });
@@ -103,6 +121,7 @@ public class CartController {
             return;
         }
 
+        stopListening();
         mainApp.showCheckoutView();
     }
     
@@ -110,9 +129,17 @@ public class CartController {
      * Handles going back to shopping.
      */
     public void handleBackToShopping() {
+        stopListening();
         mainApp.showCustomerView();
     }
 
+    private void stopListening() {
+        if (cartListener != null) {
+            cart.removeCartListener(cartListener);
+            cartListener = null;
+        }
+    }
+
     private void showAlert(String title, String message, Alert.AlertType type) {
         Alert alert = new Alert(type);
         alert.setTitle(title);
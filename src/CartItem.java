@@ -7,6 +7,9 @@
 public class CartItem {
     private Product product;
     private int quantity;
+    private Cart cart;          // the cart this line belongs to, or null
+    private long countedTotal;  // the line total the cart's subtotal includes, in centavos
+    private int index;          // position in the cart's item list while in a cart
 
     /**
      * Constructs a CartItem with the specified product and quantity.
@@ -23,8 +26,8 @@ public class CartItem {
      *
      * @return the total price for this line item
      */
-    public double computeLineTotal() {
-        return product.getPrice() * quantity;
+    public Money computeLineTotal() {
+        return product.getUnitPrice().times(quantity);
     }
 
     public Product getProduct() {
@@ -35,9 +38,48 @@ public class CartItem {
         return quantity;
     }
 
+    /**
+     * Sets the quantity. When the item is in a cart, the cart's subtotal is
+     * updated and its listeners are told.
+     *
+     * @param quantity the new quantity; ignored unless positive
+     */
     public void setQuantity(int quantity) {
-        if (quantity > 0) {
+        if (quantity <= 0) {
+            return;
+        }
+        if (cart != null) {
+            cart.setQuantity(product, quantity);
+        } else {
             this.quantity = quantity;
         }
     }
+
+    void setProduct(Product product) {
+        this.product = product;
+    }
+
+    void attach(Cart cart) {
+        this.cart = cart;
+    }
+
+    void updateQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    long getCountedTotal() {
+        return countedTotal;
+    }
+
+    void setCountedTotal(long countedTotal) {
+        this.countedTotal = countedTotal;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+/**
+ * CartListener is told when the lines of a cart change, so that pricing and
+ * views can update without re-reading the whole cart on every click.
+ *
+ * @author Dana Ysabelle A. Pelagio
+ */
+public interface CartListener {
+    /**
+     * Called when a product is added to the cart, removed from it, its
+     * quantity changes, or its price changed since the cart last counted it.
+     *
+     * @param cart the cart that changed
+     * @param product the product whose line changed
+     * @param previousQuantity the quantity before the change, 0 if the line is new
+     * @param quantity the quantity now, 0 if the line was removed
+     */
+    void onLineChanged(Cart cart, Product product, int previousQuantity, int quantity);
+
+    /**
+     * Called when every line is removed from the cart at once.
+     *
+     * @param cart the cart that was cleared
+     */
+    void onCleared(Cart cart);
+}
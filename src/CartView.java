@@ -109,7 +109,7 @@ public class CartView extends BorderPane {
         }
 
         itemCountLabel.setText("Items: " + controller.getCartItems().size());
-        subtotalLabel.setText(String.format("Subtotal: ₱%.2f", controller.computeSubtotal()));
+        subtotalLabel.setText("Subtotal: ₱" + controller.computeSubtotal());
     }
 
     private HBox createCartItemBox(CartItem item) {
@@ -137,7 +137,7 @@ public class CartView extends BorderPane {
         qtyBox.setAlignment(Pos.CENTER_LEFT);
 
         // Line total
-        Label lineTotalLabel = new Label(String.format("₱%.2f", item.computeLineTotal()));
+        Label lineTotalLabel = new Label("₱" + item.computeLineTotal());
         lineTotalLabel.setFont(Font.font("Arial", FontWeight.BOLD, 14));
         lineTotalLabel.setPrefWidth(100);
         lineTotalLabel.setAlignment(Pos.CENTER_RIGHT);
@@ -0,0 +1,117 @@
+/**
+ * Catalog is a row-oriented copy of the product catalog for bulk work such as
+ * low-stock, expiry, valuation and category scans over very large catalogs.
+ * Each product occupies one row; rows are numbered from 0 to {@link #size()} - 1
+ * and may be renumbered when a product is removed, so they should not be kept
+ * across changes. Product objects are only built on request through {@link #getProduct(int)}.
+ *
+ * The {@link Inventory} keeps one in step with its products and stock and runs
+ * its inventory-wide scans over it.
+ *
+ * @author Joreve P. De Jesus
+ */
+interface Catalog {
+    /** Expiration day stored for products that do not expire. */
+    long NO_EXPIRY = Long.MIN_VALUE;
+
+    /**
+     * Returns the number of products in the catalog.
+     *
+     * @return the row count
+     */
+    int size();
+
+    /**
+     * Finds the row of a product.
+     *
+     * @param productID the ID of the product
+     * @return the row, or -1 if the product is not in the catalog
+     */
+    int indexOf(int productID);
+
+    /**
+     * Inserts a new product or overwrites the row of an existing one.
+     *
+     * @param product the product to store
+     */
+    void put(Product product);
+
+    /**
+     * Sets the stock of a product.
+     *
+     * @param productID the ID of the product
+     * @param stock the stock on hand
+     * @return true if the product is in the catalog
+     */
+    boolean setStock(int productID, int stock);
+
+    /**
+     * Removes a product from the catalog.
+     *
+     * @param productID the ID of the product
+     * @return true if the product was in the catalog
+     */
+    boolean remove(int productID);
+
+    /**
+     * Removes every product.
+     */
+    void clear();
+
+    int getProductID(int row);
+
+    Money getPrice(int row);
+
+    int getStock(int row);
+
+    int getCategoryId(int row);
+
+    /**
+     * Returns the expiration date of a row as an epoch day.
+     *
+     * @param row the row
+     * @return the epoch day, or {@link #NO_EXPIRY} if the product does not expire
+     */
+    long getExpirationDay(int row);
+
+    /**
+     * Builds a Product from one row. The Product is a copy: changing it does not
+     * change the catalog.
+     *
+     * @param row the row
+     * @return a Product with the row's values
+     */
+    Product getProduct(int row);
+
+    /**
+     * Finds the rows whose stock is below a threshold.
+     *
+     * @param threshold stock below this number counts as low
+     * @return the matching rows, in row order
+     */
+    int[] findLowStock(int threshold);
+
+    /**
+     * Finds the rows of products expiring between two days, inclusive.
+     *
+     * @param fromDay the first epoch day
+     * @param toDay the last epoch day
+     * @return the matching rows, in row order
+     */
+    int[] findExpiring(long fromDay, long toDay);
+
+    /**
+     * Finds the rows of products in a category.
+     *
+     * @param category the category
+     * @return the matching rows, in row order
+     */
+    int[] findByCategory(Category category);
+
+    /**
+     * Returns the value of the stock on hand, the sum of price times stock over every row.
+     *
+     * @return the stock value
+     */
+    Money getStockValue();
+}
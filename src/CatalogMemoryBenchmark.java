@@ -0,0 +1,226 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * CatalogMemoryBenchmark compares what a large catalog costs the garbage collector
+ * in each representation: the Product objects DataManager loads, a
+ * {@link ColumnarCatalog}, an {@link OffHeapCatalog}, and a whole {@link Inventory}
+ * with each of the two catalogs behind it.
+ *
+ * Each representation is measured in its own JVM, started with the same heap
+ * options as this one, so one does not inherit the heap sizing or the unfreed
+ * direct buffers of another. It builds the catalog, then prints the heap and
+ * direct memory it keeps after a full collection, the time of one stock-value
+ * scan, the collections and their total time while registers churn through
+ * short-lived objects, and the time of one full collection with the catalog
+ * alive. The churn keeps the last CHURN_WINDOW objects reachable, like open
+ * carts, so some of them survive into the old generation and force collections
+ * that trace the catalog.
+ *
+ * The Inventory rows show that the off-heap catalog does not shrink the inventory:
+ * carts, reservations and the views share its Product objects, so they stay on
+ * the heap whichever catalog is chosen.
+ * Run it with {@code java -Xms2g -Xmx2g CatalogMemoryBenchmark [products]}; the
+ * default is 1,000,000 products.
+ *
+ * @author Joreve P. De Jesus
+ */
+public class CatalogMemoryBenchmark {
+    private static final int DEFAULT_PRODUCTS = 1_000_000;
+    private static final int BRANDS = 200;
+    private static final int MAIN_CATEGORIES = 10;
+    private static final int SUB_CATEGORIES = 10;
+    private static final int CHURN_ALLOCATIONS = 20_000_000;
+    private static final int CHURN_WINDOW = 200_000;
+    private static final int SCAN_ROUNDS = 5;
+    private static final String[] REPRESENTATIONS =
+            {"objects", "columnar", "offheap", "inventory-columnar", "inventory-offheap"};
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+    private static long sink; // keeps the scanned values alive
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PRODUCTS;
+        if (args.length > 1) {
+            measure(args[1], count);
+            if (sink == 42) {
+                System.out.println();
+            }
+            return;
+        }
+
+        System.out.printf("%,d products, %,d churn allocations%n", count, CHURN_ALLOCATIONS);
+        System.out.printf("%-20s %9s %9s %9s %10s %9s %9s%n",
+                "", "heap MB", "direct MB", "scan ms", "churn GCs", "churn ms", "full ms");
+        for (String representation : REPRESENTATIONS) {
+            List<String> command = new ArrayList<>();
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(CatalogMemoryBenchmark.class.getName());
+            command.add(String.valueOf(count));
+            command.add(representation);
+            if (new ProcessBuilder(command).inheritIO().start().waitFor() != 0) {
+                System.err.println("Measuring " + representation + " failed.");
+            }
+        }
+    }
+
+    /**
+     * Builds one representation and prints what keeping it costs.
+     */
+    private static void measure(String representation, int count) {
+        switch (representation) {
+            case "objects":
+                report(representation, () -> {
+                    List<Product> products = generate(count);
+                    return () -> {
+                        long total = 0;
+                        for (Product product : products) {
+                            total += product.getUnitPrice().getCentavos() * product.getStock();
+                        }
+                        return total;
+                    };
+                });
+                break;
+            case "columnar":
+                report(representation, () -> scanner(ColumnarCatalog.of(generate(count))));
+                break;
+            case "offheap":
+                report(representation, () -> scanner(OffHeapCatalog.of(generate(count))));
+                break;
+            case "inventory-columnar":
+                report(representation, () -> scanner(inventory(new ColumnarCatalog(count), count)));
+                break;
+            case "inventory-offheap":
+                report(representation, () -> scanner(inventory(new OffHeapCatalog(count), count)));
+                break;
+            default:
+                System.err.println("Unknown representation: " + representation);
+        }
+    }
+
+    /**
+     * Prints the costs of one representation. The builder returns the stock-value
+     * scan, which holds the only reference to the catalog.
+     */
+    private static void report(String label, Supplier<Supplier<Long>> builder) {
+        usedHeap(); // the first reading also counts what the management beans allocate to start
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+
+        Supplier<Long> scan = builder.get();
+        long heap = usedHeap() - heapBefore;
+        long direct = usedDirect() - directBefore;
+
+        long bestScan = Long.MAX_VALUE;
+        for (int round = 0; round < SCAN_ROUNDS; round++) {
+            long start = System.nanoTime();
+            sink += scan.get();
+            bestScan = Math.min(bestScan, System.nanoTime() - start);
+        }
+
+        long collectionsBefore = collections();
+        long collectionMillisBefore = collectionMillis();
+        churn();
+        long churnCollections = collections() - collectionsBefore;
+        long churnMillis = collectionMillis() - collectionMillisBefore;
+
+        long start = System.nanoTime();
+        System.gc();
+        long fullNanos = System.nanoTime() - start;
+
+        System.out.printf("%-20s %9.1f %9.1f %9.2f %10d %9d %9.1f%n", label,
+                heap / 1e6, direct / 1e6, bestScan / 1e6, churnCollections, churnMillis, fullNanos / 1e6);
+        sink += scan.get(); // the catalog stays alive until here
+    }
+
+    private static Supplier<Long> scanner(Catalog catalog) {
+        return () -> catalog.getStockValue().getCentavos();
+    }
+
+    private static Supplier<Long> scanner(Inventory inventory) {
+        return () -> inventory.getStockValue().getCentavos();
+    }
+
+    private static Inventory inventory(Catalog catalog, int count) {
+        Inventory inventory = new Inventory(catalog);
+        inventory.replaceProducts(generate(count));
+        return inventory;
+    }
+
+    /**
+     * Builds products the way they come out of the data files: every name, brand
+     * and variant is its own String, and categories are shared.
+     */
+    private static List<Product> generate(int count) {
+        Random random = new Random(17);
+        LocalDate today = LocalDate.now();
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Category category = Category.of("Main " + i % MAIN_CATEGORIES,
+                                            "Sub " + i / MAIN_CATEGORIES % SUB_CATEGORIES);
+            products.add(new Product(i + 1, "Product " + i, 5 + random.nextInt(50_000) / 100.0,
+                                     random.nextInt(200), category,
+                                     "Brand " + random.nextInt(BRANDS),
+                                     i % 4 == 0 ? null : "Pack of " + (1 + i % 12),
+                                     i % 3 == 0 ? today.plusDays(random.nextInt(365)) : null));
+        }
+        return products;
+    }
+
+    /**
+     * Allocates short-lived products like registers building carts, keeping the
+     * most recent ones reachable.
+     */
+    private static void churn() {
+        Category category = Category.of("Main 0", "Sub 0");
+        Product[] window = new Product[CHURN_WINDOW];
+        for (int i = 0; i < CHURN_ALLOCATIONS; i++) {
+            window[i % CHURN_WINDOW] = new Product(i, "Item " + i, 1, 1, category);
+        }
+        sink += window[0].getProductID();
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        System.gc();
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    private static long usedDirect() {
+        long used = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                used += pool.getMemoryUsed();
+            }
+        }
+        return used;
+    }
+
+    private static long collections() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(collector.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    private static long collectionMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(collector.getCollectionTime(), 0);
+        }
+        return millis;
+    }
+}
@@ -1,37 +1,104 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Represents a category for products, composed of a main category (e.g., Food, Beverages)
  * and a more specific sub-category (e.g., Vegetable, Juice).
- * 
+ *
+ * Categories are canonical: {@link #of(String, String)} hands out one shared instance
+ * per main/sub pair, numbered with a small id in the order the pairs are first seen.
+ * Products and shelves of the same category therefore share one object, and a
+ * category can be used directly as a map key instead of a concatenated string.
+ *
  * @author Joreve P. De Jesus
  */
-public class Category {
-    private String mainCategory;
-    private String subCategory;
+public final class Category {
+    private static final Map<String, Map<String, Category>> REGISTRY = new ConcurrentHashMap<>();
+    private static final List<Category> BY_ID = new ArrayList<>();
+
+    private final int id;
+    private final String mainCategory;
+    private final String subCategory;
+
+    private Category(int id, String mainCategory, String subCategory) {
+        this.id = id;
+        this.mainCategory = mainCategory;
+        this.subCategory = subCategory;
+    }
 
     /**
-     * Constructs a new Category with the specified main and sub-categories.
+     * Returns the canonical Category for the specified main and sub-categories,
+     * registering it if this pair has not been seen before.
      *
      * @param mainCategory The category name.
      * @param subCategory The specific type within the main category.
+     * @return the shared Category instance
      */
-    public Category(String mainCategory, String subCategory) {
-        this.mainCategory = mainCategory;
-        this.subCategory = subCategory;
+    public static Category of(String mainCategory, String subCategory) {
+        Map<String, Category> types = REGISTRY.get(mainCategory);
+        if (types != null) {
+            Category category = types.get(subCategory);
+            if (category != null) {
+                return category;
+            }
+        }
+        return register(mainCategory, subCategory);
+    }
+
+    /**
+     * Returns the Category with the given id.
+     *
+     * @param id the id handed out by {@link #of(String, String)}
+     * @return the Category, or null if no category has that id
+     */
+    public static synchronized Category byId(int id) {
+        return id >= 0 && id < BY_ID.size() ? BY_ID.get(id) : null;
+    }
+
+    private static synchronized Category register(String mainCategory, String subCategory) {
+        Map<String, Category> types = REGISTRY.computeIfAbsent(mainCategory, k -> new ConcurrentHashMap<>());
+        Category category = types.get(subCategory);
+        if (category == null) {
+            category = new Category(BY_ID.size(), mainCategory, subCategory);
+            BY_ID.add(category);
+            types.put(subCategory, category);
+        }
+        return category;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return mainCategory;
     }
 
-    public String getName() { 
-        return mainCategory; 
+    public String getType() {
+        return subCategory;
     }
 
-    public String getType() { 
-        return subCategory; 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Category)) {
+            return false;
+        }
+        Category other = (Category) o;
+        return mainCategory.equals(other.mainCategory) && subCategory.equals(other.subCategory);
     }
 
-    public String setName(String mainCategory) { 
-        return this.mainCategory = mainCategory; 
+    @Override
+    public int hashCode() {
+        return id;
     }
 
-    public String setType(String subCategory) { 
-        return this.subCategory = subCategory; 
+    @Override
+    public String toString() {
+        return mainCategory + "-" + subCategory;
     }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * CheckoutBenchmark measures how long a checkout takes as the catalog grows.
+ * Each size gets a fresh store whose inventory holds that many products; carts
+ * of a few random products are then checked out through {@link CheckoutService}
+ * with nothing saved, so the time is spent pricing the cart, finding each
+ * product by ID and taking the stock.
+ *
+ * With the inventory's ID index the time per checkout should stay about the same
+ * from the smallest catalog to the largest; what growth remains comes from the
+ * products no longer fitting in the CPU caches. Run it with
+ * {@code java CheckoutBenchmark [largest catalog size]}; the default is 1,000,000
+ * products, which needs a heap of about 1 GB.
+ *
+ * @author Joreve P. De Jesus
+ */
+public class CheckoutBenchmark {
+    private static final int DEFAULT_LARGEST = 1_000_000;
+    private static final int LINES_PER_CART = 5;
+    private static final int WARMUP_CHECKOUTS = 50_000;
+    private static final int CHECKOUTS = 200_000;
+
+    public static void main(String[] args) {
+        int largest = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LARGEST;
+        Category category = Category.of("Food", "Snacks");
+        CheckoutService.Options options = new CheckoutService.Options(false, false);
+
+        System.out.printf("%d lines per cart, %,d checkouts per size%n", LINES_PER_CART, CHECKOUTS);
+        for (int size = 1_000; size <= largest; size *= 10) {
+            List<Product> products = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                products.add(new Product(i + 1, "Product " + i, 10 + i % 90, Integer.MAX_VALUE / 2, category));
+            }
+            ConvenienceStore store = new ConvenienceStore("Benchmark", "Here");
+            store.getInventory().replaceProducts(products);
+            CheckoutService service = new CheckoutService(store, null);
+
+            Random random = new Random(size);
+            runCheckouts(service, products, options, random, WARMUP_CHECKOUTS);
+            long start = System.nanoTime();
+            runCheckouts(service, products, options, random, CHECKOUTS);
+            long nanos = System.nanoTime() - start;
+
+            System.out.printf("%,10d products: %7.2f us/checkout %,10.0f checkouts/s%n",
+                    size, nanos / 1000.0 / CHECKOUTS, CHECKOUTS / (nanos / 1e9));
+        }
+    }
+
+    private static void runCheckouts(CheckoutService service, List<Product> products,
+                                     CheckoutService.Options options, Random random, int count) {
+        Money payment = Money.ofPesos(100_000);
+        for (int i = 0; i < count; i++) {
+            Customer customer = new Customer("Benchmark", "benchmark", "benchmark");
+            for (int line = 0; line < LINES_PER_CART; line++) {
+                customer.addToCart(products.get(random.nextInt(products.size())), 1);
+            }
+            if (!service.checkout(customer, options, payment, null).isSuccess()) {
+                throw new IllegalStateException("Checkout failed");
+            }
+        }
+    }
+}
@@ -1,44 +1,59 @@
-import java.util.ArrayList;
+import java.util.List;
 
+import javafx.application.Platform;
 import javafx.scene.control.Alert;
 
 /**
  * CheckoutController handles the payment process.
- * Manages pricing calculations, discounts, membership cards, and transaction completion.
- * ALL business logic moved here from CheckoutView.
+ * Reads the options and payment from CheckoutView, hands them to a
+ * {@link CheckoutService}, and shows the outcome.
  *
  * @author Dana Ysabelle A. Pelagio and Joreve P. De Jesus
  */
 public class CheckoutController {
     private Customer customer;
     private Cart cart;
-    private ConvenienceStore store;
-    private DataManager dataManager;
+    private Inventory inventory;
+    private CheckoutService checkoutService;
     private MainApplication mainApp;
     private CheckoutView view;
+    private CartListener cartListener;
 
     // Current pricing state
-    private double currentSubtotal;
-    private double currentDiscount;
-    private double currentVAT;
-    private double currentTotal;
+    private PricedCart currentPricing;
 
     public CheckoutController(Customer customer, Cart cart, ConvenienceStore store,
                              DataManager dataManager, MainApplication mainApp) {
         this.customer = customer;
         this.cart = cart;
-        this.store = store;
-        this.dataManager = dataManager;
+        this.inventory = store.getInventory();
+        this.checkoutService = new CheckoutService(store, dataManager);
         this.mainApp = mainApp;
     }
     
     public void setView(CheckoutView view) {
         this.view = view;
+        // Prices may have changed since the items were added
+        cart.refreshPrices(inventory);
+        if (cartListener == null) {
+            cartListener = new CartListener() {
+                @Override
+                public void onLineChanged(Cart cart, Product product, int previousQuantity, int quantity) {
+                    recalculatePricing();
+                }
+
+                @Override
+                public void onCleared(Cart cart) {
+                    recalculatePricing();
+                }
+            };
+            cart.addCartListener(cartListener);
+        }
         // Initial calculation when view is set
         recalculatePricing();
     }
 
-    public ArrayList<CartItem> getCartItems() {
+    public List<CartItem> getCartItems() {
         return cart.getItems();
     }
 
@@ -69,38 +84,13 @@ public class CheckoutController {
     }
 
     /**
-     * Recalculates pricing with current discounts and settings.
-     * This is where ALL pricing logic lives.
+     * Prices the cart with the store's pricing rules and the options selected in the view.
      */
     public void recalculatePricing() {
-        currentSubtotal = cart.computeSubtotal();
-        currentDiscount = 0.0;
-
-        double afterDiscount = currentSubtotal;
-
-        // Apply senior discount first (if selected)
-        if (view.isSeniorDiscountSelected()) {
-            double seniorDiscounted = DiscountPolicy.applySeniorDiscount(afterDiscount);
-            currentDiscount += (afterDiscount - seniorDiscounted);
-            afterDiscount = seniorDiscounted;
-        }
-
-        // Apply membership points discount (if selected and available)
-        if (view.isUseMembershipPointsSelected() && customer.hasMembershipCard()) {
-            MembershipCard card = customer.getMembershipCard();
-            double pointsDiscount = Math.min(card.getDiscount(), afterDiscount);
-            currentDiscount += pointsDiscount;
-            afterDiscount -= pointsDiscount;
-        }
-
-        // Calculate VAT
-        currentVAT = DiscountPolicy.calculateVAT(afterDiscount);
+        currentPricing = checkoutService.price(customer, getOptions());
 
-        // Calculate final total
-        currentTotal = afterDiscount + currentVAT;
-
-        // Update view display
-        view.displayPricing(currentSubtotal, currentDiscount, currentVAT, currentTotal);
+        view.displayPricing(currentPricing.getSubtotal(), currentPricing.getTotalDiscount(),
+                            currentPricing.getVAT(), currentPricing.getTotal());
     }
 
     /**
@@ -108,11 +98,10 @@ public class CheckoutController {
      */
     public void handleAmountChanged(String amountText) {
         try {
-            double amount = Double.parseDouble(amountText);
-            double change = amount - currentTotal;
-            view.displayChange(change);
-        } catch (NumberFormatException e) {
-            view.displayChange(-1); // Indicates insufficient/invalid
+            Money amount = Money.parse(amountText);
+            view.displayChange(amount.minus(currentPricing.getTotal()));
+        } catch (NumberFormatException | ArithmeticException e) {
+            view.displayChange(null); // Indicates insufficient/invalid
         }
     }
 
@@ -127,63 +116,61 @@ public class CheckoutController {
             return;
         }
 
-        double amountReceived;
+        Money amountReceived;
         try {
-            amountReceived = Double.parseDouble(amountText);
-        } catch (NumberFormatException e) {
+            amountReceived = Money.parse(amountText);
+        } catch (NumberFormatException | ArithmeticException e) {
             showAlert("Invalid Payment", "Please enter a valid number.", Alert.AlertType.ERROR);
             return;
         }
 
-        if (amountReceived < currentTotal) {
-            showAlert("Insufficient Payment",
-                    String.format("Payment is insufficient. Need ₱%.2f more.",
-                            currentTotal - amountReceived),
-                    Alert.AlertType.WARNING);
-            return;
-        }
-
-        // Create payment object
-        Payment payment = new Payment(amountReceived, currentTotal);
-
-        // Update membership card if used
-        if (customer.hasMembershipCard()) {
-            MembershipCard card = customer.getMembershipCard();
-
-            // Redeem points if used
-            if (view.isUseMembershipPointsSelected()) {
-                int pointsToRedeem = Math.min(card.getPoints(), (int)currentDiscount);
-                card.redeemPoints(pointsToRedeem);
+        // Saving happens in the background; only a failed write interrupts the cashier
+        WriteCallback reportFailure = durable -> {
+            if (!durable) {
+                Platform.runLater(() -> showAlert("Save Failed",
+                        "The transaction could not be saved to disk.", Alert.AlertType.ERROR));
             }
-
-            // Award new points based on total spent
-            card.addPoints(currentTotal);
-        }
-
-        // Create transaction
-        Transaction transaction = customer.checkOut(store);
-        transaction.setPayment(payment);
-
-        // Save everything
-        if (customer.hasMembershipCard()) {
-            dataManager.updateCustomer(customer);
+        };
+        CheckoutService.Result result = checkoutService.checkout(customer, currentPricing, amountReceived, reportFailure);
+
+        if (!result.isSuccess()) {
+            switch (result.getError()) {
+                case EMPTY_CART:
+                    showAlert("Empty Cart", "Please add items to your cart first.", Alert.AlertType.WARNING);
+                    break;
+                case PRICING_OUTDATED:
+                    recalculatePricing();
+                    showAlert("Total Updated",
+                            "Prices or points changed since the total was shown.\nPlease check the new total and try again.",
+                            Alert.AlertType.WARNING);
+                    break;
+                case INVALID_PAYMENT:
+                    showAlert("Invalid Payment", "Please enter payment amount.", Alert.AlertType.WARNING);
+                    break;
+                case INSUFFICIENT_PAYMENT:
+                    showAlert("Insufficient Payment",
+                            "Payment is insufficient. Need ₱" + result.getShortfall() + " more.",
+                            Alert.AlertType.WARNING);
+                    break;
+                case OUT_OF_STOCK:
+                    stopListening();
+                    showAlert("Out of Stock",
+                            "Some items in your cart are no longer available.\nPlease review your cart.",
+                            Alert.AlertType.WARNING);
+                    mainApp.showCartView();
+                    break;
+            }
+            return;
         }
-        dataManager.saveProducts(store.getInventory().getProducts());
-        dataManager.saveTransaction(transaction);
-
-        // Generate and save receipt
-        Receipt receipt = transaction.generateReceipt();
-        receipt.setDataManager(dataManager);
-        receipt.saveToFile();
+        stopListening();
 
         // Show receipt window
-        ReceiptView receiptView = new ReceiptView(receipt);
+        ReceiptView receiptView = new ReceiptView(result.getReceipt());
         receiptView.show();
 
         // Success message
         showAlert("Payment Successful",
-                String.format("Change: ₱%.2f\nReceipt saved automatically.\nThank you for shopping!",
-                        payment.computeChange()),
+                "Change: ₱" + result.getChange() + "\nReceipt saved automatically.\nThank you for shopping!",
                 Alert.AlertType.INFORMATION);
 
         // Return to shopping view
@@ -194,9 +181,21 @@ public class CheckoutController {
      * Handles going back to cart.
      */
     public void handleBack() {
+        stopListening();
         mainApp.showCartView();
     }
 
+    private CheckoutService.Options getOptions() {
+        return new CheckoutService.Options(view.isSeniorDiscountSelected(), view.isUseMembershipPointsSelected());
+    }
+
+    private void stopListening() {
+        if (cartListener != null) {
+            cart.removeCartListener(cartListener);
+            cartListener = null;
+        }
+    }
+
     private void showAlert(String title, String message, Alert.AlertType type) {
         Alert alert = new Alert(type);
         alert.setTitle(title);
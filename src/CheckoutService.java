@@ -0,0 +1,265 @@
+import java.util.List;
+
+/**
+ * CheckoutService runs a checkout from start to finish without any user
+ * interface: it prices the customer's cart, checks the payment, takes the stock,
+ * updates the membership card, and saves the transaction and receipt. It reports
+ * what happened in a {@link Result} instead of showing dialogs, so checkouts can
+ * be run by the JavaFX controllers, by a load generator or by any other front end.
+ *
+ * A CheckoutService holds no state of its own and can be shared by any number
+ * of registers, each checking out its own customer.
+ *
+ * @author Dana Ysabelle A. Pelagio and Joreve P. De Jesus
+ */
+public class CheckoutService {
+    /**
+     * Why a checkout did not go through.
+     */
+    public enum Error {
+        /** The cart has no items. */
+        EMPTY_CART,
+        /** The cart, a price or the customer's points changed since the cart was priced; price it again. */
+        PRICING_OUTDATED,
+        /** No amount was received. */
+        INVALID_PAYMENT,
+        /** The amount received is less than the total. */
+        INSUFFICIENT_PAYMENT,
+        /** Some item is no longer in stock; the cart is kept so it can be adjusted. */
+        OUT_OF_STOCK
+    }
+
+    private final ConvenienceStore store;
+    private final DataManager dataManager;
+
+    /**
+     * Constructs a CheckoutService.
+     *
+     * @param store the store whose inventory and pricing rules are used
+     * @param dataManager where transactions, customers and receipts are saved, or
+     *        null to save nothing (for example when measuring checkout speed)
+     */
+    public CheckoutService(ConvenienceStore store, DataManager dataManager) {
+        this.store = store;
+        this.dataManager = dataManager;
+    }
+
+    /**
+     * Prices a customer's cart with the store's pricing rules, at the inventory's
+     * current prices.
+     *
+     * @param customer the customer
+     * @param options the discounts the customer asked for
+     * @return the priced cart
+     */
+    public PricedCart price(Customer customer, Options options) {
+        customer.getCart().refreshPrices(store.getInventory());
+        return store.getPricingEngine().price(customer.getCart().getItems(),
+                customer.hasMembershipCard() ? customer.getMembershipCard() : null,
+                options.isSenior(), options.isUsePoints());
+    }
+
+    /**
+     * Prices the customer's cart and checks it out.
+     *
+     * @param customer the customer whose cart is checked out
+     * @param options the discounts the customer asked for
+     * @param amountReceived the cash received
+     * @param callback told as the transaction and the customer are saved (may be null)
+     * @return the outcome of the checkout
+     */
+    public Result checkout(Customer customer, Options options, Money amountReceived, WriteCallback callback) {
+        return checkout(customer, price(customer, options), amountReceived, callback);
+    }
+
+    /**
+     * Checks out the customer's cart at a price already shown to the customer.
+     * The pricing must still match the cart: the same products and quantities at
+     * the inventory's current prices, and no more points than the card holds.
+     * Otherwise nothing is charged and the result is {@link Error#PRICING_OUTDATED}.
+     *
+     * @param customer the customer whose cart is checked out
+     * @param pricing the cart as priced by {@link #price(Customer, Options)}
+     * @param amountReceived the cash received
+     * @param callback told on the writer thread once for the transaction and, for a
+     *        member, once for the customer record (may be null)
+     * @return the outcome of the checkout
+     */
+    public Result checkout(Customer customer, PricedCart pricing, Money amountReceived, WriteCallback callback) {
+        if (customer.getCart().isEmpty()) {
+            return new Result(Error.EMPTY_CART, pricing, amountReceived, null, null);
+        }
+        if (!isCurrent(customer, pricing)) {
+            return new Result(Error.PRICING_OUTDATED, pricing, amountReceived, null, null);
+        }
+        if (amountReceived == null) {
+            return new Result(Error.INVALID_PAYMENT, pricing, null, null, null);
+        }
+        if (amountReceived.isLessThan(pricing.getTotal())) {
+            return new Result(Error.INSUFFICIENT_PAYMENT, pricing, amountReceived, null, null);
+        }
+
+        Transaction transaction = customer.checkOut(store, pricing);
+        if (transaction == null) {
+            return new Result(Error.OUT_OF_STOCK, pricing, amountReceived, null, null);
+        }
+        transaction.setPayment(new Payment(amountReceived, pricing.getTotal()));
+
+        if (customer.hasMembershipCard()) {
+            MembershipCard card = customer.getMembershipCard();
+            card.redeemPoints(pricing.getPointsUsed());
+            card.addPoints(pricing.getTotal());
+        }
+
+        Receipt receipt = transaction.generateReceipt();
+        if (dataManager != null) {
+            if (customer.hasMembershipCard()) {
+                dataManager.updateCustomer(customer, callback);
+            }
+            dataManager.saveTransaction(transaction, callback);
+
+            receipt.setDataManager(dataManager);
+            receipt.saveToFile();
+        }
+
+        return new Result(null, pricing, amountReceived, transaction, receipt);
+    }
+
+    /**
+     * Checks that a priced cart still describes the customer's cart, line by line
+     * and in total, and that the points it uses are still on the card.
+     */
+    private boolean isCurrent(Customer customer, PricedCart pricing) {
+        Cart cart = customer.getCart();
+        List<CartItem> items = cart.getItems();
+        List<PricedCart.Line> lines = pricing.getLines();
+        if (lines.size() != items.size() || !pricing.getSubtotal().equals(cart.computeSubtotal())) {
+            return false;
+        }
+
+        Inventory inventory = store.getInventory();
+        for (int i = 0; i < lines.size(); i++) {
+            PricedCart.Line line = lines.get(i);
+            CartItem item = items.get(i);
+            int productID = item.getProduct().getProductID();
+            if (line.getProduct().getProductID() != productID || line.getQuantity() != item.getQuantity()) {
+                return false;
+            }
+            Product stocked = inventory.getProduct(productID);
+            if (stocked != null && !line.getUnitPrice().equals(stocked.getUnitPrice())) {
+                return false; // a product that is gone is reported as out of stock instead
+            }
+        }
+
+        int points = customer.hasMembershipCard() ? customer.getMembershipCard().getPoints() : 0;
+        return pricing.getPointsUsed() <= points;
+    }
+
+    /**
+     * The discounts a customer asks for at checkout.
+     */
+    public static final class Options {
+        private final boolean senior;
+        private final boolean usePoints;
+
+        /**
+         * Constructs Options.
+         *
+         * @param senior true if the senior citizen discount is claimed
+         * @param usePoints true if the customer pays with membership points
+         */
+        public Options(boolean senior, boolean usePoints) {
+            this.senior = senior;
+            this.usePoints = usePoints;
+        }
+
+        public boolean isSenior() {
+            return senior;
+        }
+
+        public boolean isUsePoints() {
+            return usePoints;
+        }
+    }
+
+    /**
+     * The outcome of a checkout: the transaction if it went through, or the reason it did not.
+     */
+    public static final class Result {
+        private final Error error;
+        private final PricedCart pricing;
+        private final Money amountReceived;
+        private final Transaction transaction;
+        private final Receipt receipt;
+
+        private Result(Error error, PricedCart pricing, Money amountReceived,
+                       Transaction transaction, Receipt receipt) {
+            this.error = error;
+            this.pricing = pricing;
+            this.amountReceived = amountReceived;
+            this.transaction = transaction;
+            this.receipt = receipt;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        /**
+         * Returns why the checkout did not go through.
+         *
+         * @return the error, or null if the checkout succeeded
+         */
+        public Error getError() {
+            return error;
+        }
+
+        /**
+         * Returns the pricing the checkout was attempted at.
+         *
+         * @return the priced cart
+         */
+        public PricedCart getPricing() {
+            return pricing;
+        }
+
+        /**
+         * Returns the completed transaction, with its payment and receipt.
+         *
+         * @return the transaction, or null if the checkout did not go through
+         */
+        public Transaction getTransaction() {
+            return transaction;
+        }
+
+        /**
+         * Returns the receipt of the completed transaction.
+         *
+         * @return the receipt, or null if the checkout did not go through
+         */
+        public Receipt getReceipt() {
+            return receipt;
+        }
+
+        /**
+         * Returns the change to give.
+         *
+         * @return the change, or null if the checkout did not go through
+         */
+        public Money getChange() {
+            return transaction == null ? null : transaction.getPayment().computeChange();
+        }
+
+        /**
+         * Returns how much more must be paid.
+         *
+         * @return the amount still owed, zero if the payment covered the total
+         */
+        public Money getShortfall() {
+            if (amountReceived == null) {
+                return pricing.getTotal();
+            }
+            return pricing.getTotal().minus(amountReceived).max(Money.ZERO);
+        }
+    }
+}
@@ -186,7 +186,7 @@ public class CheckoutView extends BorderPane {
         Label qtyLabel = new Label("x" + item.getQuantity());
         qtyLabel.setPrefWidth(50);
 
-        Label priceLabel = new Label(String.format("₱%.2f", item.computeLineTotal()));
+        Label priceLabel = new Label("₱" + item.computeLineTotal());
         priceLabel.setAlignment(Pos.CENTER_RIGHT);
         priceLabel.setPrefWidth(100);
 
@@ -225,23 +225,25 @@ public class CheckoutView extends BorderPane {
      * Displays the pricing information.
      * Called by controller after calculations.
      */
-    public void displayPricing(double subtotal, double discount, double vat, double total) {
-        subtotalLabel.setText(String.format("Subtotal: ₱%.2f", subtotal));
-        discountLabel.setText(String.format("Discount: -₱%.2f", discount));
-        vatLabel.setText(String.format("VAT (12%%): ₱%.2f", vat));
-        totalLabel.setText(String.format("TOTAL: ₱%.2f", total));
+    public void displayPricing(Money subtotal, Money discount, Money vat, Money total) {
+        subtotalLabel.setText("Subtotal: ₱" + subtotal);
+        discountLabel.setText("Discount: -₱" + discount);
+        vatLabel.setText("VAT (12%): ₱" + vat);
+        totalLabel.setText("TOTAL: ₱" + total);
     }
 
     /**
      * Displays the change amount.
      * Called by controller when amount changes.
+     *
+     * @param change the change, or null if the payment is insufficient or invalid
      */
-    public void displayChange(double change) {
-        if (change < 0) {
+    public void displayChange(Money change) {
+        if (change == null || change.isNegative()) {
             changeLabel.setText("Change: Insufficient Payment");
             changeLabel.setStyle("-fx-text-fill: red; -fx-font-weight: bold;");
         } else {
-            changeLabel.setText(String.format("Change: ₱%.2f", change));
+            changeLabel.setText("Change: ₱" + change);
             changeLabel.setStyle("-fx-text-fill: green; -fx-font-weight: bold;");
         }
     }
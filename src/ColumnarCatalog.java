@@ -0,0 +1,314 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * ColumnarCatalog stores the catalog as parallel arrays, one per field, instead of
+ * one Product object per item. The fields that bulk scans read (ID, price, stock,
+ * category ID and expiration day) are plain int and long arrays, so a scan over
+ * the whole catalog walks contiguous memory without following a reference per
+ * product. Prices are kept as centavos like {@link Money}. Names, brands and
+ * variants are kept in their own arrays and are only touched when a Product is
+ * built for display.
+ *
+ * Rows are kept dense: removing a product moves the last row into its place.
+ * Product IDs are mapped to rows by an open-addressing table of row numbers, probed
+ * linearly and compacted on removal like {@link IntProductIndex}.
+ *
+ * This class is not synchronized.
+ *
+ * @author Joreve P. De Jesus
+ */
+class ColumnarCatalog implements Catalog {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INITIAL_TABLE_SIZE = 128; // must be a power of two
+
+    private int[] productIDs;
+    private long[] prices; // centavos
+    private int[] stocks;
+    private int[] categoryIDs;
+    private long[] expirationDays;
+    private String[] names;
+    private String[] brands;
+    private String[] variants;
+    private int size;
+
+    private int[] table; // row + 1 for each used slot, 0 for an empty slot
+    private int mask;
+
+    /**
+     * Constructs an empty ColumnarCatalog.
+     */
+    public ColumnarCatalog() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty ColumnarCatalog with room for the given number of products.
+     *
+     * @param capacity the number of products to allocate rows for
+     */
+    public ColumnarCatalog(int capacity) {
+        capacity = Math.max(capacity, 1);
+        productIDs = new int[capacity];
+        prices = new long[capacity];
+        stocks = new int[capacity];
+        categoryIDs = new int[capacity];
+        expirationDays = new long[capacity];
+        names = new String[capacity];
+        brands = new String[capacity];
+        variants = new String[capacity];
+
+        int tableSize = INITIAL_TABLE_SIZE;
+        while (tableSize < capacity * 2) {
+            tableSize *= 2;
+        }
+        allocateTable(tableSize);
+    }
+
+    /**
+     * Builds a ColumnarCatalog holding the given products.
+     *
+     * @param products the products to copy into columns
+     * @return the new catalog
+     */
+    public static ColumnarCatalog of(Collection<Product> products) {
+        ColumnarCatalog catalog = new ColumnarCatalog(products.size());
+        for (Product product : products) {
+            catalog.put(product);
+        }
+        return catalog;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int indexOf(int productID) {
+        return table[findSlot(productID)] - 1;
+    }
+
+    @Override
+    public void put(Product product) {
+        int slot = findSlot(product.getProductID());
+        int row = table[slot] - 1;
+
+        if (row < 0) {
+            ensureCapacity(size + 1);
+            row = size++;
+            table[slot] = row + 1;
+        }
+
+        productIDs[row] = product.getProductID();
+        prices[row] = product.getUnitPrice().getCentavos();
+        stocks[row] = product.getStock();
+        categoryIDs[row] = product.getCategory().getId();
+        expirationDays[row] = product.getExpirationDate() != null
+                ? product.getExpirationDate().toEpochDay() : NO_EXPIRY;
+        names[row] = product.getName();
+        brands[row] = product.getBrand();
+        variants[row] = product.getVariant();
+
+        if (size * 2 > table.length) {
+            resizeTable(table.length * 2);
+        }
+    }
+
+    @Override
+    public boolean setStock(int productID, int stock) {
+        int row = indexOf(productID);
+        if (row < 0) {
+            return false;
+        }
+        stocks[row] = stock;
+        return true;
+    }
+
+    @Override
+    public boolean remove(int productID) {
+        int slot = findSlot(productID);
+        int row = table[slot] - 1;
+        if (row < 0) {
+            return false;
+        }
+        removeSlot(slot);
+
+        // Keep the rows dense by moving the last row into the hole
+        int last = size - 1;
+        if (row != last) {
+            table[findSlot(productIDs[last])] = row + 1;
+            productIDs[row] = productIDs[last];
+            prices[row] = prices[last];
+            stocks[row] = stocks[last];
+            categoryIDs[row] = categoryIDs[last];
+            expirationDays[row] = expirationDays[last];
+            names[row] = names[last];
+            brands[row] = brands[last];
+            variants[row] = variants[last];
+        }
+        names[last] = null;
+        brands[last] = null;
+        variants[last] = null;
+        size--;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(brands, 0, size, null);
+        Arrays.fill(variants, 0, size, null);
+        Arrays.fill(table, 0);
+        size = 0;
+    }
+
+    @Override
+    public int getProductID(int row) {
+        return productIDs[row];
+    }
+
+    @Override
+    public Money getPrice(int row) {
+        return Money.ofCentavos(prices[row]);
+    }
+
+    @Override
+    public int getStock(int row) {
+        return stocks[row];
+    }
+
+    @Override
+    public int getCategoryId(int row) {
+        return categoryIDs[row];
+    }
+
+    @Override
+    public long getExpirationDay(int row) {
+        return expirationDays[row];
+    }
+
+    @Override
+    public Product getProduct(int row) {
+        long expiry = expirationDays[row];
+        Product product = new Product(productIDs[row], names[row], 0, stocks[row],
+                                      Category.byId(categoryIDs[row]), brands[row], variants[row],
+                                      expiry != NO_EXPIRY ? LocalDate.ofEpochDay(expiry) : null);
+        product.setUnitPrice(Money.ofCentavos(prices[row]));
+        return product;
+    }
+
+    @Override
+    public int[] findLowStock(int threshold) {
+        int[] rows = new int[16];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (stocks[row] < threshold) {
+                rows = append(rows, count++, row);
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    @Override
+    public int[] findExpiring(long fromDay, long toDay) {
+        int[] rows = new int[16];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            long day = expirationDays[row];
+            if (day >= fromDay && day <= toDay && day != NO_EXPIRY) {
+                rows = append(rows, count++, row);
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    @Override
+    public int[] findByCategory(Category category) {
+        int categoryID = category.getId();
+        int[] rows = new int[16];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (categoryIDs[row] == categoryID) {
+                rows = append(rows, count++, row);
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    @Override
+    public Money getStockValue() {
+        long total = 0;
+        for (int row = 0; row < size; row++) {
+            total += prices[row] * stocks[row];
+        }
+        return Money.ofCentavos(total);
+    }
+
+    private static int[] append(int[] rows, int count, int row) {
+        if (count == rows.length) {
+            rows = Arrays.copyOf(rows, rows.length * 2);
+        }
+        rows[count] = row;
+        return rows;
+    }
+
+    private void ensureCapacity(int rows) {
+        if (rows <= productIDs.length) {
+            return;
+        }
+
+        int capacity = Math.max(productIDs.length * 2, rows);
+        productIDs = Arrays.copyOf(productIDs, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        stocks = Arrays.copyOf(stocks, capacity);
+        categoryIDs = Arrays.copyOf(categoryIDs, capacity);
+        expirationDays = Arrays.copyOf(expirationDays, capacity);
+        names = Arrays.copyOf(names, capacity);
+        brands = Arrays.copyOf(brands, capacity);
+        variants = Arrays.copyOf(variants, capacity);
+    }
+
+    private int findSlot(int productID) {
+        int slot = hash(productID);
+        while (table[slot] != 0 && productIDs[table[slot] - 1] != productID) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties a slot, shifting back entries whose probe run passes through it.
+     */
+    private void removeSlot(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (table[next] != 0) {
+            int home = hash(productIDs[table[next] - 1]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                table[gap] = table[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[gap] = 0;
+    }
+
+    private int hash(int productID) {
+        int h = productID * 0x9E3779B9; // spreads sequential IDs across the table
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void resizeTable(int tableSize) {
+        allocateTable(tableSize);
+        for (int row = 0; row < size; row++) {
+            table[findSlot(productIDs[row])] = row + 1;
+        }
+    }
+
+    private void allocateTable(int tableSize) {
+        table = new int[tableSize];
+        mask = tableSize - 1;
+    }
+}
@@ -10,6 +10,7 @@ public class ConvenienceStore {
     private String name;
     private String location;
     private Inventory inventory;
+    private PricingEngine pricingEngine;
     private ArrayList<Transaction> salesHistory;
 
     /**
@@ -22,6 +23,7 @@ public class ConvenienceStore {
         this.name = name;
         this.location = location;
         this.inventory = new Inventory();
+        this.pricingEngine = PricingEngine.standard();
         this.salesHistory = new ArrayList<>();
     }
 
@@ -80,4 +82,17 @@ public class ConvenienceStore {
     public void setInventory(Inventory inventory) {
         this.inventory = inventory;
     }
+
+    public PricingEngine getPricingEngine() {
+        return pricingEngine;
+    }
+
+    /**
+     * Replaces the pricing rules used at checkout. Carts priced from now on use the new engine.
+     *
+     * @param pricingEngine the compiled pricing rules
+     */
+    public void setPricingEngine(PricingEngine pricingEngine) {
+        this.pricingEngine = pricingEngine;
+    }
 }
\ No newline at end of file
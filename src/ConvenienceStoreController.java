@@ -92,62 +92,29 @@ public class ConvenienceStoreController {
                 return;
             }
             
-            double amountReceived = Double.parseDouble(amountText);
-            double subtotal = customer.getCart().computeSubtotal();
-            double afterDiscount = subtotal;
+            Money amountReceived = Money.parse(amountText);
+            CheckoutService.Result result = new CheckoutService(store, dataManager).checkout(customer,
+                    new CheckoutService.Options(checkoutView.isSeniorDiscount(), checkoutView.isUseMembershipPoints()),
+                    amountReceived, null);
             
-            if (checkoutView.isSeniorDiscount()) {
-                afterDiscount = DiscountPolicy.applySeniorDiscount(afterDiscount);
-            }
-            
-            if (checkoutView.isUseMembershipPoints() && customer.hasMembershipCard()) {
-                afterDiscount = DiscountPolicy.applyMembershipDiscount(customer, afterDiscount);
-            }
-            
-            double vat = DiscountPolicy.calculateVAT(afterDiscount);
-            double total = afterDiscount + vat;
-            
-            if (amountReceived < total) {
+            if (result.getError() == CheckoutService.Error.INSUFFICIENT_PAYMENT) {
                 showAlert("Insufficient Payment", 
-                         String.format("Need ₱%.2f more", total - amountReceived),
+                         "Need ₱" + result.getShortfall() + " more",
                          Alert.AlertType.WARNING);
                 return;
             }
-            
-            Payment payment = new Payment(amountReceived, total);
-            Transaction transaction = customer.checkOut(store);
-            transaction.setPayment(payment);
-            
-            if (customer.hasMembershipCard()) {
-                MembershipCard card = customer.getMembershipCard();
-                if (checkoutView.isUseMembershipPoints()) {
-                    int pointsToRedeem = Math.min(card.getPoints(), (int)subtotal);
-                    card.redeemPoints(pointsToRedeem);
-                }
-                card.addPoints(total);
-                
-                // Update customer in file
-                dataManager.updateCustomer(customer);
+            if (!result.isSuccess()) {
+                showAlert("Out of Stock", "Some items in your cart are no longer available.", Alert.AlertType.WARNING);
+                return;
             }
             
-            dataManager.saveProducts(store.getInventory().getProducts());
-            dataManager.saveTransaction(transaction);
-            
-            // Generate and save receipt automatically
-            Receipt receipt = transaction.generateReceipt();
-            receipt.setDataManager(dataManager);
-            receipt.saveToFile(); // Auto-save receipt
-            
-            ReceiptView receiptView = new ReceiptView(receipt);
+            ReceiptView receiptView = new ReceiptView(result.getReceipt());
             receiptView.show();
             
             showAlert("Transaction Complete",
-                     String.format("Change: ₱%.2f\nReceipt saved automatically.\nThank you for shopping!", 
-                                 payment.computeChange()),
+                     "Change: ₱" + result.getChange() + "\nReceipt saved automatically.\nThank you for shopping!",
                      Alert.AlertType.INFORMATION);
             
-            // Reload inventory to reflect updated stock
-            reloadInventory();
             showShoppingView();
             storeView.refresh();
             
@@ -156,28 +123,6 @@ public class ConvenienceStoreController {
         }
     }
     
-    /**
-     * Reloads inventory from data manager to get latest stock levels.
-     */
-    private void reloadInventory() {
-        store.getInventory().getProducts().clear();
-        for (Shelf shelf : store.getInventory().getShelves()) {
-            shelf.getProducts().clear();
-        }
-        
-        for (Product product : dataManager.loadProducts()) {
-            store.getInventory().addProduct(product);
-            
-            for (Shelf shelf : store.getInventory().getShelves()) {
-                if (shelf.getCategory().getName().equals(product.getCategory().getName()) &&
-                    shelf.getCategory().getType().equals(product.getCategory().getType())) {
-                    shelf.addProduct(product);
-                    break;
-                }
-            }
-        }
-    }
-    
     public void handleLogout() {
         Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
         confirm.setTitle("Logout");
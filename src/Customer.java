@@ -77,7 +77,7 @@ public class Customer extends User {
      * Views the running total of all items in the cart.
      * @return the subtotal of all items in the cart
      */
-    public double viewRunningTotal() {
+    public Money viewRunningTotal() {
         return cart.computeSubtotal();
     }
 
@@ -86,19 +86,21 @@ public class Customer extends User {
      * Creates and returns a transaction for the purchase.
      *
      * @param store the convenience store where checkout is being processed
-     * @return the transaction created from this checkout
+     * @param pricing the cart as priced at checkout; the transaction keeps it as is
+     * @return the transaction created from this checkout, or null if some item
+     *         is no longer in stock (the cart is kept so it can be adjusted)
      */
-    public Transaction checkOut(ConvenienceStore store) {
-        double subtotal = this.cart.computeSubtotal();
+    public Transaction checkOut(ConvenienceStore store, PricedCart pricing) {
+        if (!store.getInventory().autoReduceStock(this.cart)) {
+            return null;
+        }
 
         Transaction transaction = new Transaction(
                 "TXN-" + System.currentTimeMillis(), // Generate unique transaction ID
                 this,                                 // The customer (this)
-                this.cart.getItems(),                // Copy of cart items
-                subtotal                              // The subtotal (uses new constructor)
+                pricing                               // The priced lines and totals
         );
 
-        store.getInventory().autoReduceStock(this.cart);
         store.saveToSalesHistory(transaction);
         this.cart = new Cart();
 
@@ -0,0 +1,122 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DataDirectoryWatcher watches the data directory with a {@link WatchService} and
+ * runs a callback when any of a given set of files is created or modified, so that
+ * edits made by other tools are picked up without a restart. Events that arrive
+ * close together (such as a write followed by a rename) are gathered into one call.
+ *
+ * The callback runs on the watcher's background thread.
+ *
+ * @author Joreve P. De Jesus
+ */
+public class DataDirectoryWatcher {
+    private static final long SETTLE_MILLIS = 250; // quiet time before the callback runs
+
+    private final Path directory;
+    private final Set<String> fileNames;
+    private final Runnable onChange;
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Constructs a DataDirectoryWatcher. Call {@link #start()} to begin watching.
+     *
+     * @param directory the directory to watch
+     * @param fileNames the names of the files in it that trigger the callback
+     * @param onChange run after a watched file changes
+     */
+    public DataDirectoryWatcher(String directory, Set<String> fileNames, Runnable onChange) {
+        this.directory = Paths.get(directory);
+        this.fileNames = new HashSet<>(fileNames);
+        this.onChange = onChange;
+    }
+
+    /**
+     * Starts watching on a background thread.
+     *
+     * @return true if watching started, false if the directory cannot be watched
+     */
+    public synchronized boolean start() {
+        if (thread != null) {
+            return true;
+        }
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                               StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            System.err.println("Error watching " + directory + ": " + e.getMessage());
+            return false;
+        }
+
+        thread = new Thread(this::run, "data-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Stops watching. A callback that is already running is allowed to finish.
+     */
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Error closing watch service: " + e.getMessage());
+        }
+        thread.interrupt();
+        thread = null;
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                boolean changed = drain(watchService.take());
+
+                // Wait for the burst of events to settle before reacting
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(key);
+                }
+
+                if (changed) {
+                    try {
+                        onChange.run();
+                    } catch (RuntimeException e) {
+                        System.err.println("Error handling data directory change: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    /**
+     * Reads the events of one key and resets it.
+     *
+     * @return true if a watched file was among them
+     */
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true; // events were lost; assume a watched file changed
+            } else if (fileNames.contains(event.context().toString())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
@@ -1,8 +1,15 @@
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * DataManager handles all data persistence operations.
@@ -18,13 +25,80 @@ public class DataManager {
     private static final String EMPLOYEES_FILE = DATA_DIR + "/employees.txt";
     private static final String PRODUCTS_FILE = DATA_DIR + "/products.txt";
     private static final String TRANSACTIONS_FILE = DATA_DIR + "/transactions.txt";
+    private static final String TRANSACTION_LOG_FILE = DATA_DIR + "/transactions.log";
+    private static final String TRANSACTIONS_INDEX_FILE = DATA_DIR + "/transactions.idx";
+    private static final String THRESHOLDS_FILE = DATA_DIR + "/thresholds.txt";
+    private static final String PRICING_FILE = DATA_DIR + "/pricing.txt";
+    private static final String CUSTOMERS_JOURNAL = DATA_DIR + "/customers.journal";
+    private static final String PRODUCTS_JOURNAL = DATA_DIR + "/products.journal";
+    private static final String PRODUCTS_STORE_FILE = DATA_DIR + "/products.bin";
+    private static final String CATALOG_ENGINE_PROPERTY = "catalog.engine"; // "text" (default) or "mapped"
+    private static final String STARTUP_SNAPSHOT_FILE = DATA_DIR + "/startup.snap";
+    private static final String RECEIPT_COMPRESSION_PROPERTY = "receipts.compress"; // "true" to deflate receipts
+    private static final String DATA_WATCH_PROPERTY = "data.watch"; // "true" to pick up external product edits
     private static final String DELIMITER = "|||";
+    private static final int CUSTOMER_COMPACT_THRESHOLD = 1000; // journal records before a new snapshot
+    private static final int PRODUCT_CHECKPOINT_THRESHOLD = 5000; // journal records before a new snapshot
+    private static final String STOCK_RECORD = "STOCK";
+    private static final String PUT_RECORD = "PUT";
+    private static final String DELETE_RECORD = "DEL";
+    private static final String PRODUCT_THRESHOLD_RECORD = "PRODUCT";
+    private static final String CATEGORY_THRESHOLD_RECORD = "CATEGORY";
+    
+    private UserDirectory userDirectory;
+    private PersistenceWriter persistenceWriter;
+    private AppendJournal customerJournal;
+    private AppendJournal productJournal;
+    private TransactionLog transactionLog;
+    private SalesHistory salesHistory;
+    private ReceiptArchive receiptArchive;
+    private StartupSnapshot startupSnapshot; // null once handed to the application
+    private final Object productSnapshotLock = new Object();
+    private MappedProductStore productStore; // null unless the mapped catalog engine is selected
+    private ExecutorService compactionExecutor;
+    private DataDirectoryWatcher productWatcher; // null unless watching is enabled
     
     /**
-     * Constructs a DataManager and initializes directories and files.
+     * Constructs a DataManager, initializes directories and files,
+     * and loads the user directory.
      */
     public DataManager() {
+        this.userDirectory = new UserDirectory();
+        this.compactionExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "data-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
         initializeDataDirectory();
+        this.persistenceWriter = new PersistenceWriter();
+        this.customerJournal = new AppendJournal(CUSTOMERS_JOURNAL, CUSTOMERS_FILE, persistenceWriter);
+        this.productJournal = new AppendJournal(PRODUCTS_JOURNAL, PRODUCTS_FILE, persistenceWriter);
+        this.transactionLog = new TransactionLog(TRANSACTION_LOG_FILE, persistenceWriter);
+        this.salesHistory = new SalesHistory(TRANSACTIONS_FILE, TRANSACTIONS_INDEX_FILE);
+        this.receiptArchive = new ReceiptArchive(RECEIPTS_DIR, persistenceWriter,
+                Boolean.getBoolean(RECEIPT_COMPRESSION_PROPERTY));
+        
+        // A snapshot from the last clean shutdown replaces parsing the text files
+        this.startupSnapshot = createStartupSnapshot();
+        if (startupSnapshot.load()) {
+            for (Customer customer : startupSnapshot.getCustomers()) {
+                userDirectory.putCustomer(customer);
+            }
+            for (Employee employee : startupSnapshot.getEmployees()) {
+                userDirectory.putEmployee(employee);
+            }
+        } else {
+            startupSnapshot = null;
+            loadUserDirectory();
+        }
+        
+        if ("mapped".equals(System.getProperty(CATALOG_ENGINE_PROPERTY))) {
+            openProductStore();
+        }
+        
+        if (customerJournal.getRecordCount() > 0) {
+            scheduleCustomerCompaction();
+        }
     }
     
     /**
@@ -56,29 +130,39 @@ public class DataManager {
     }
     
     /**
-     * Registers a new customer by saving to file.
+     * Registers a new customer by appending a record to the customer journal.
+     * Waits until the record is on disk; the customer can log in only after that.
      * TXT Format: username|||password|||name|||cardNumber|||points
+     *
+     * @return true if the record was written, false if it could not be
      */
     public boolean registerCustomer(Customer customer) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(CUSTOMERS_FILE, true))) {
-            String cardNumber = "";
-            String points = "0";
-            
-            if (customer.hasMembershipCard()) {
-                cardNumber = customer.getMembershipCard().getCardNumber();
-                points = String.valueOf(customer.getMembershipCard().getPoints());
+        CountDownLatch written = new CountDownLatch(1);
+        AtomicBoolean durable = new AtomicBoolean();
+        
+        // Held until the record is durable, so a compaction cannot rotate it
+        // away before the customer is in the directory
+        synchronized (customerJournal) {
+            customerJournal.append(formatCustomerLine(customer), result -> {
+                durable.set(result);
+                written.countDown();
+            });
+            try {
+                written.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!durable.get()) {
+                System.err.println("Error registering customer: " + customer.getUsername());
+                return false;
             }
             
-            writer.println(customer.getUsername() + DELIMITER + 
-                          customer.getPassword() + DELIMITER + 
-                          customer.getName() + DELIMITER + 
-                          cardNumber + DELIMITER + 
-                          points);
-            return true;
-        } catch (IOException e) {
-            System.err.println("Error registering customer: " + e.getMessage());
-            return false;
+            userDirectory.putCustomer(customer);
+            if (customerJournal.getRecordCount() >= CUSTOMER_COMPACT_THRESHOLD) {
+                scheduleCustomerCompaction();
+            }
         }
+        return true;
     }
     
     /**
@@ -86,11 +170,12 @@ public class DataManager {
      * TXT Format: username|||password|||name|||employeeID
      */
     public boolean registerEmployee(Employee employee) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(EMPLOYEES_FILE, true))) {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(EMPLOYEES_FILE, StandardCharsets.UTF_8, true))) {
             writer.println(employee.getUsername() + DELIMITER + 
                           employee.getPassword() + DELIMITER + 
                           employee.getName() + DELIMITER + 
                           employee.getEmployeeID());
+            userDirectory.putEmployee(employee);
             return true;
         } catch (IOException e) {
             System.err.println("Error registering employee: " + e.getMessage());
@@ -100,178 +185,237 @@ public class DataManager {
     
     /**
      * Authenticates a customer and returns Customer object.
-     * TXT Format: username|||password|||name|||cardNumber|||points
+     * Looks up the in-memory user directory instead of reading the file.
      */
     public Customer authenticateCustomer(String username, String password) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(CUSTOMERS_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("\\|\\|\\|");
-                if (parts.length >= 3) {
-                    if (parts[0].equals(username) && parts[1].equals(password)) {
-                        // Create Customer with full credentials
-                        Customer customer = new Customer(parts[2], parts[0], parts[1]);
-                        
-                        // Set membership card if exists
-                        if (parts.length >= 5 && !parts[3].isEmpty()) {
-                            MembershipCard card = new MembershipCard(parts[3]);
-                            card.setPoints(Integer.parseInt(parts[4]));
-                            customer.setMembershipCard(card);
-                        }
-                        
-                        return customer;
-                    }
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error authenticating customer: " + e.getMessage());
-        }
-        return null;
+        return userDirectory.findCustomer(username, password);
     }
     
     /**
      * Authenticates an employee and returns Employee object.
-     * TXT Format: username|||password|||name|||employeeID
+     * Looks up the in-memory user directory instead of reading the file.
      */
     public Employee authenticateEmployee(String username, String password) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(EMPLOYEES_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("\\|\\|\\|");
-                if (parts.length >= 4) {
-                    if (parts[0].equals(username) && parts[1].equals(password)) {
-                        // Create Employee with full credentials
-                        return new Employee(parts[2], parts[0], parts[1], parts[3]);
-                    }
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error authenticating employee: " + e.getMessage());
-        }
-        return null;
+        return userDirectory.findEmployee(username, password);
     }
     
     /**
-     * Checks if username exists in either customers or employees file.
+     * Checks if username exists in either customers or employees.
      */
     public boolean usernameExists(String username) {
-        return checkUsernameInFile(CUSTOMERS_FILE, username) || 
-               checkUsernameInFile(EMPLOYEES_FILE, username);
+        return userDirectory.contains(username);
     }
     
-    private boolean checkUsernameInFile(String filepath, String username) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filepath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("\\|\\|\\|");
-                if (parts.length >= 1 && parts[0].equals(username)) {
-                    return true;
+    /**
+     * Updates customer data using Customer object.
+     * Appends the new record to the customer journal instead of rewriting the file.
+     */
+    public void updateCustomer(Customer customer) {
+        updateCustomer(customer, null);
+    }
+    
+    /**
+     * Updates customer data in the background and in the user directory.
+     * The callback is told once the record is on disk (or could not be written).
+     * Schedules a background compaction once the journal grows past the threshold.
+     */
+    public void updateCustomer(Customer customer, WriteCallback callback) {
+        synchronized (customerJournal) {
+            customerJournal.append(formatCustomerLine(customer), durable -> {
+                if (!durable) {
+                    System.err.println("Error updating customer: " + customer.getUsername());
+                }
+                if (callback != null) {
+                    callback.onComplete(durable);
                 }
+            });
+            userDirectory.putCustomer(customer);
+            
+            if (customerJournal.getRecordCount() >= CUSTOMER_COMPACT_THRESHOLD) {
+                scheduleCustomerCompaction();
             }
-        } catch (IOException e) {
-            System.err.println("Error checking username: " + e.getMessage());
         }
-        return false;
     }
     
     /**
-     * Updates customer data in file using Customer object.
+     * Formats a customer line.
      */
-    public void updateCustomer(Customer customer) {
-        try {
-            List<String> lines = Files.readAllLines(Paths.get(CUSTOMERS_FILE));
-            List<String> updatedLines = new ArrayList<>();
+    private String formatCustomerLine(Customer customer) {
+        String cardNumber = "";
+        String points = "0";
+        
+        if (customer.hasMembershipCard()) {
+            MembershipCard card = customer.getMembershipCard();
+            cardNumber = card.getCardNumber();
+            points = String.valueOf(card.getPoints());
+        }
+        
+        return customer.getUsername() + DELIMITER + 
+               customer.getPassword() + DELIMITER + 
+               customer.getName() + DELIMITER + 
+               cardNumber + DELIMITER + 
+               points;
+    }
+    
+    /**
+     * Parses a customer record into the user directory.
+     */
+    private void parseCustomerRecord(RecordReader fields) {
+        int fieldCount = fields.getFieldCount();
+        if (fieldCount >= 3) {
+            String username = fields.nextString();
+            String password = fields.nextString();
+            String name = fields.nextString();
+            String cardNumber = "";
+            int points = 0;
             
-            for (String line : lines) {
-                String[] parts = line.split("\\|\\|\\|");
-                if (parts.length >= 3 && parts[0].equals(customer.getUsername())) {
-                    String cardNumber = "";
-                    String points = "0";
-                    
-                    if (customer.hasMembershipCard()) {
-                        MembershipCard card = customer.getMembershipCard();
-                        cardNumber = card.getCardNumber();
-                        points = String.valueOf(card.getPoints());
-                    }
-                    
-                    updatedLines.add(customer.getUsername() + DELIMITER + 
-                                   customer.getPassword() + DELIMITER + 
-                                   customer.getName() + DELIMITER + 
-                                   cardNumber + DELIMITER + 
-                                   points);
-                } else {
-                    updatedLines.add(line);
-                }
+            if (fieldCount >= 5 && !fields.isNextEmpty()) {
+                cardNumber = fields.nextString();
+                points = fields.nextInt();
             }
             
-            Files.write(Paths.get(CUSTOMERS_FILE), updatedLines);
-        } catch (IOException e) {
-            System.err.println("Error updating customer: " + e.getMessage());
+            userDirectory.putCustomer(username, password, name, cardNumber, points);
         }
     }
     
     /**
-     * Loads all customers from file as Customer objects.
+     * Queues a rewrite of the customer snapshot on the background thread.
      */
-    public List<Customer> loadAllCustomers() {
-        List<Customer> customers = new ArrayList<>();
+    private void scheduleCustomerCompaction() {
+        compactionExecutor.execute(this::compactCustomers);
+    }
+    
+    /**
+     * Writes the current user directory as a new customers.txt snapshot and
+     * drops the journal records it already contains.
+     */
+    private void compactCustomers() {
+        List<String> lines = new ArrayList<>();
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(CUSTOMERS_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("\\|\\|\\|");
-                if (parts.length >= 3) {
-                    Customer customer = new Customer(parts[2], parts[0], parts[1]);
-                    
-                    if (parts.length >= 5 && !parts[3].isEmpty()) {
-                        MembershipCard card = new MembershipCard(parts[3]);
-                        card.setPoints(Integer.parseInt(parts[4]));
-                        customer.setMembershipCard(card);
-                    }
-                    
-                    customers.add(customer);
-                }
+        synchronized (customerJournal) {
+            long generation = customerJournal.rotate();
+            if (generation < 0) {
+                return;
+            }
+            lines.add(AppendJournal.snapshotHeader(generation));
+            for (Customer customer : userDirectory.getAllCustomers()) {
+                lines.add(formatCustomerLine(customer));
             }
-        } catch (IOException e) {
-            System.err.println("Error loading customers: " + e.getMessage());
         }
         
-        return customers;
+        try {
+            Path temp = Paths.get(CUSTOMERS_FILE + ".tmp");
+            Files.write(temp, lines);
+            Files.move(temp, Paths.get(CUSTOMERS_FILE),
+                      StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            customerJournal.discardRotated();
+        } catch (IOException e) {
+            System.err.println("Error compacting customers: " + e.getMessage());
+        }
     }
     
     /**
-     * Loads all employees from file as Employee objects.
+     * Loads all customers as Customer objects.
+     */
+    public List<Customer> loadAllCustomers() {
+        return userDirectory.getAllCustomers();
+    }
+    
+    /**
+     * Loads all employees as Employee objects.
      */
     public List<Employee> loadAllEmployees() {
-        List<Employee> employees = new ArrayList<>();
+        return userDirectory.getAllEmployees();
+    }
+    
+    /**
+     * Reads the customer and employee files once into the user directory,
+     * replaying the customer journal over the customer snapshot.
+     * Later lookups and registrations go through the directory only.
+     */
+    private void loadUserDirectory() {
+        userDirectory.clear();
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(EMPLOYEES_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("\\|\\|\\|");
-                if (parts.length >= 4) {
-                    employees.add(new Employee(parts[2], parts[0], parts[1], parts[3]));
+        try (RecordReader records = RecordReader.open(CUSTOMERS_FILE)) {
+            while (records.nextRecord()) {
+                parseCustomerRecord(records);
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading customers: " + e.getMessage());
+        }
+        
+        // Changes made since the last snapshot
+        customerJournal.replay(this::parseCustomerRecord);
+        
+        try (RecordReader records = RecordReader.open(EMPLOYEES_FILE)) {
+            while (records.nextRecord()) {
+                if (records.getFieldCount() >= 4) {
+                    String username = records.nextString();
+                    String password = records.nextString();
+                    String name = records.nextString();
+                    userDirectory.putEmployee(new Employee(name, username, password, records.nextString()));
                 }
             }
         } catch (IOException e) {
             System.err.println("Error loading employees: " + e.getMessage());
         }
-        
-        return employees;
     }
     
     /**
-     * Loads all products from file.
+     * Loads all products from the snapshot file and replays the product journal over it.
      */
     public List<Product> loadProducts() {
-        List<Product> products = new ArrayList<>();
+        if (productStore != null) {
+            return productStore.loadAll();
+        }
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(PRODUCTS_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                Product product = parseProductLine(line);
+        synchronized (productSnapshotLock) {
+            Map<Integer, Product> products = readProductSnapshot();
+            
+            // Changes made since the last checkpoint
+            productJournal.replay(record -> applyProductRecord(products, record));
+            
+            return new ArrayList<>(products.values());
+        }
+    }
+    
+    /**
+     * Watches the product files for edits made by other tools, when started with
+     * -Ddata.watch=true. Changes are reported after they settle; the callback
+     * should reload the products with {@link #loadProducts()}.
+     * Only the text catalog is watched; the mapped catalog is shared in memory.
+     *
+     * @param onChange run on a background thread after the product files change
+     * @return true if the files are being watched
+     */
+    public boolean watchProducts(Runnable onChange) {
+        if (!Boolean.getBoolean(DATA_WATCH_PROPERTY) || productStore != null || productWatcher != null) {
+            return false;
+        }
+        
+        Set<String> fileNames = new HashSet<>();
+        fileNames.add(Paths.get(PRODUCTS_FILE).getFileName().toString());
+        fileNames.add(Paths.get(PRODUCTS_JOURNAL).getFileName().toString());
+        
+        DataDirectoryWatcher watcher = new DataDirectoryWatcher(DATA_DIR, fileNames, onChange);
+        if (!watcher.start()) {
+            return false;
+        }
+        productWatcher = watcher;
+        return true;
+    }
+    
+    /**
+     * Reads the product snapshot file into a map keyed by product ID, in file order.
+     */
+    private Map<Integer, Product> readProductSnapshot() {
+        Map<Integer, Product> products = new LinkedHashMap<>();
+        
+        try (RecordReader records = RecordReader.open(PRODUCTS_FILE)) {
+            while (records.nextRecord()) {
+                Product product = parseProduct(records);
                 if (product != null) {
-                    products.add(product);
+                    products.put(product.getProductID(), product);
                 }
             }
         } catch (IOException e) {
@@ -282,31 +426,44 @@ public class DataManager {
     }
     
     /**
-     * Parses a product line.
+     * Applies one product journal record to a map of products.
+     * Journal Format: STOCK|||productID|||delta, PUT|||productLine, or DEL|||productID
      */
-    private Product parseProductLine(String line) {
+    private void applyProductRecord(Map<Integer, Product> products, RecordReader fields) {
         try {
-            String[] parts = line.split("\\|\\|\\|");
-            if (parts.length < 7) return null;
-            
-            int productID = Integer.parseInt(parts[0]);
-            String name = parts[1];
-            double price = Double.parseDouble(parts[2]);
-            int stock = Integer.parseInt(parts[3]);
-            String mainCategory = parts[4];
-            String subCategory = parts[5];
-            
-            Category category = new Category(mainCategory, subCategory);
-            String brand = parts.length > 6 && !parts[6].isEmpty() ? parts[6] : null;
-            String variant = parts.length > 7 && !parts[7].isEmpty() ? parts[7] : null;
-            LocalDate expirationDate = null;
-            
-            if (parts.length > 8 && !parts[8].isEmpty()) {
-                expirationDate = LocalDate.parse(parts[8]);
+            if (fields.isNext(STOCK_RECORD)) {
+                fields.skipField();
+                Product product = products.get(fields.nextInt());
+                int delta = fields.nextInt();
+                
+                if (product != null) {
+                    if (delta > 0) {
+                        product.restock(delta);
+                    } else if (delta < 0) {
+                        product.reduceStock(-delta);
+                    }
+                }
+            } else if (fields.isNext(PUT_RECORD)) {
+                fields.skipField();
+                Product product = parseProduct(fields);
+                if (product != null) {
+                    products.put(product.getProductID(), product);
+                }
+            } else if (fields.isNext(DELETE_RECORD)) {
+                fields.skipField();
+                products.remove(fields.nextInt());
             }
-            
-            return new Product(productID, name, price, stock, category, brand, variant, expirationDate);
-            
+        } catch (Exception e) {
+            System.err.println("Error applying product record: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Parses a product record, reading the fields that remain in the reader.
+     */
+    private Product parseProduct(RecordReader fields) {
+        try {
+            return readProduct(fields);
         } catch (Exception e) {
             System.err.println("Error parsing product: " + e.getMessage());
             return null;
@@ -314,22 +471,80 @@ public class DataManager {
     }
     
     /**
-     * Saves all products to file.
+     * Reads a product record from the fields that remain in the reader.
+     * Format: productID|||name|||price|||stock|||mainCategory|||subCategory|||brand|||variant|||expirationDate
+     *
+     * @return the product, or null if the record has fewer than 7 fields
+     * @throws RuntimeException if a number or date field is malformed
+     */
+    static Product readProduct(RecordReader fields) {
+        int fieldCount = fields.getRemainingFieldCount();
+        if (fieldCount < 7) return null;
+        
+        int productID = fields.nextInt();
+        String name = fields.nextString();
+        double price = fields.nextDouble();
+        int stock = fields.nextInt();
+        String mainCategory = fields.nextString();
+        String subCategory = fields.nextString();
+        
+        Category category = Category.of(mainCategory, subCategory);
+        String brand = fields.nextOptionalString();
+        String variant = fields.nextOptionalString();
+        LocalDate expirationDate = fields.nextDate();
+        
+        return new Product(productID, name, price, stock, category, brand, variant, expirationDate);
+    }
+    
+    /**
+     * Saves all products to file as a full snapshot and clears the product journal.
      */
     public void saveProducts(List<Product> products) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(PRODUCTS_FILE))) {
+        if (productStore != null) {
+            productStore.replaceAll(products);
+            return;
+        }
+        
+        synchronized (productSnapshotLock) {
+            synchronized (productJournal) {
+                if (writeProductSnapshot(products, productJournal.getGeneration())) {
+                    productJournal.clear();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Writes a product snapshot to a temporary file and moves it over products.txt.
+     * The snapshot is marked as containing every journal record up to the given generation.
+     */
+    private boolean writeProductSnapshot(Collection<Product> products, long journalGeneration) {
+        Path temp = Paths.get(PRODUCTS_FILE + ".tmp");
+        
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(temp))) {
+            writer.println(AppendJournal.snapshotHeader(journalGeneration));
             for (Product product : products) {
                 writer.println(formatProductLine(product));
             }
         } catch (IOException e) {
             System.err.println("Error saving products: " + e.getMessage());
+            return false;
+        }
+        
+        try {
+            Files.move(temp, Paths.get(PRODUCTS_FILE),
+                      StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error saving products: " + e.getMessage());
+            return false;
         }
     }
     
     /**
      * Formats a product line.
      */
-    private String formatProductLine(Product product) {
+    static String formatProductLine(Product product) {
         return product.getProductID() + DELIMITER +
                product.getName() + DELIMITER +
                product.getPrice() + DELIMITER +
@@ -341,60 +556,385 @@ public class DataManager {
                (product.getExpirationDate() != null ? product.getExpirationDate().toString() : "");
     }
     
+    /**
+     * Writes products to a file for use by other tools, one product at a time.
+     * A path ending in ".bin" gets the binary catalog format; anything else gets
+     * the same delimited text format as products.txt.
+     *
+     * @param products the products to export
+     * @param filepath the file to write
+     * @return true if every product was written
+     */
+    public boolean exportProducts(List<Product> products, String filepath) {
+        if (filepath.endsWith(".bin")) {
+            MappedProductStore store = new MappedProductStore(filepath);
+            if (!store.open()) {
+                return false;
+            }
+            store.replaceAll(products);
+            store.close();
+            return true;
+        }
+        
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(filepath))) {
+            for (Product product : products) {
+                writer.write(formatProductLine(product));
+                writer.newLine();
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error exporting products: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Records a change in a product's stock level.
+     * Called by Inventory after every successful restock or sale.
+     *
+     * @param productID the ID of the product
+     * @param delta the change in stock (negative for sales)
+     */
+    public void recordStockChange(int productID, int delta) {
+        if (productStore != null) {
+            productStore.adjustStock(productID, delta);
+            return;
+        }
+        appendProductRecord(STOCK_RECORD + DELIMITER + productID + DELIMITER + delta);
+    }
+    
     /**
      * Adds a product.
      */
     public void addProduct(Product product) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(PRODUCTS_FILE, true))) {
-            writer.println(formatProductLine(product));
-        } catch (IOException e) {
-            System.err.println("Error adding product: " + e.getMessage());
+        if (productStore != null) {
+            productStore.put(product);
+            return;
         }
+        appendProductRecord(PUT_RECORD + DELIMITER + formatProductLine(product));
     }
     
     /**
      * Updates a product.
      */
     public void updateProduct(Product updatedProduct) {
-        List<Product> products = loadProducts();
-        for (int i = 0; i < products.size(); i++) {
-            if (products.get(i).getProductID() == updatedProduct.getProductID()) {
-                products.set(i, updatedProduct);
-                break;
-            }
+        if (productStore != null) {
+            productStore.put(updatedProduct);
+            return;
         }
-        saveProducts(products);
+        appendProductRecord(PUT_RECORD + DELIMITER + formatProductLine(updatedProduct));
     }
     
     /**
      * Removes a product.
      */
     public void removeProduct(int productID) {
-        List<Product> products = loadProducts();
-        products.removeIf(p -> p.getProductID() == productID);
-        saveProducts(products);
+        if (productStore != null) {
+            productStore.remove(productID);
+            return;
+        }
+        appendProductRecord(DELETE_RECORD + DELIMITER + productID);
     }
     
     /**
-     * Checks if product exists.
+     * Appends a record to the product journal and schedules a checkpoint
+     * once the journal grows past the threshold.
      */
-    public boolean productExists(int productID) {
-        return loadProducts().stream().anyMatch(p -> p.getProductID() == productID);
+    private void appendProductRecord(String record) {
+        synchronized (productJournal) {
+            productJournal.append(record, durable -> {
+                if (!durable) {
+                    System.err.println("Error recording product change: " + record);
+                }
+            });
+            
+            if (productJournal.getRecordCount() >= PRODUCT_CHECKPOINT_THRESHOLD) {
+                compactionExecutor.execute(this::checkpointProducts);
+            }
+        }
     }
     
     /**
-     * Saves a transaction to sales history.
+     * Folds the journaled product changes into a new products.txt snapshot.
+     * Runs on the background thread; sales keep appending to a fresh journal meanwhile.
      */
-    public void saveTransaction(Transaction transaction) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(TRANSACTIONS_FILE, true))) {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            writer.println(transaction.getTransactionID() + DELIMITER +
-                          transaction.getCustomer().getName() + DELIMITER +
-                          transaction.getTotalCost() + DELIMITER +
-                          transaction.getTimeStamp().format(formatter));
+    private void checkpointProducts() {
+        long generation;
+        synchronized (productJournal) {
+            generation = productJournal.rotate();
+            if (generation < 0) {
+                return;
+            }
+        }
+        
+        synchronized (productSnapshotLock) {
+            Map<Integer, Product> products = readProductSnapshot();
+            productJournal.replayRotated(record -> applyProductRecord(products, record));
+            
+            if (writeProductSnapshot(products.values(), generation)) {
+                productJournal.discardRotated();
+            }
+        }
+    }
+    
+    /**
+     * Opens the memory-mapped binary catalog used by the "mapped" catalog engine.
+     * The first time it is opened, the catalog is imported from the text files.
+     * Falls back to the text files if the binary catalog cannot be opened.
+     */
+    private void openProductStore() {
+        MappedProductStore store = new MappedProductStore(PRODUCTS_STORE_FILE);
+        if (!store.open()) {
+            System.err.println("Falling back to text product catalog.");
+            return;
+        }
+        
+        if (store.isEmpty()) {
+            store.replaceAll(loadProducts());
+        }
+        productStore = store;
+    }
+    
+    /**
+     * Applies the saved low-stock thresholds to an inventory.
+     * Later records override earlier ones for the same product or category.
+     * TXT Format: PRODUCT|||productID|||threshold or CATEGORY|||main|||sub|||threshold
+     */
+    public void loadStockThresholds(Inventory inventory) {
+        if (!Files.exists(Paths.get(THRESHOLDS_FILE))) {
+            return;
+        }
+        
+        try (RecordReader fields = RecordReader.open(THRESHOLDS_FILE)) {
+            while (fields.nextRecord()) {
+                try {
+                    if (fields.isNext(PRODUCT_THRESHOLD_RECORD) && fields.getFieldCount() >= 3) {
+                        fields.skipField();
+                        int productID = fields.nextInt();
+                        inventory.setLowStockThreshold(productID, fields.nextInt());
+                    } else if (fields.isNext(CATEGORY_THRESHOLD_RECORD) && fields.getFieldCount() >= 4) {
+                        fields.skipField();
+                        Category category = Category.of(fields.nextString(), fields.nextString());
+                        inventory.setCategoryLowStockThreshold(category, fields.nextInt());
+                    }
+                } catch (NumberFormatException e) {
+                    System.err.println("Skipping invalid threshold record.");
+                }
+            }
         } catch (IOException e) {
-            System.err.println("Error saving transaction: " + e.getMessage());
+            System.err.println("Error loading stock thresholds: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Loads the pricing rules, in the order they apply.
+     * Returns the default rules if there is no pricing file.
+     * Lines starting with # are comments; invalid rules are skipped with a message.
+     * TXT Format: type|||name|||condition|||scope|||target|||subCategory|||value|||secondValue
+     * The target is the main category of a CATEGORY rule or the product ID of a PRODUCT rule.
+     * Percentages and peso amounts are written as decimals ("12", "12.5", "99.75").
+     */
+    public List<PricingRule> loadPricingRules() {
+        if (!Files.exists(Paths.get(PRICING_FILE))) {
+            return PricingEngine.getDefaultRules();
+        }
+        
+        List<PricingRule> rules = new ArrayList<>();
+        try (RecordReader fields = RecordReader.open(PRICING_FILE)) {
+            int lineNumber = 0;
+            while (fields.nextRecord()) {
+                lineNumber++;
+                if (fields.isEmptyRecord()) {
+                    continue;
+                }
+                
+                String type = fields.nextString();
+                if (type.startsWith("#")) {
+                    continue;
+                }
+                
+                try {
+                    rules.add(parsePricingRule(PricingRule.Type.valueOf(type.trim()), fields));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Skipping pricing rule on line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading pricing rules: " + e.getMessage());
+            return PricingEngine.getDefaultRules();
+        }
+        return rules;
+    }
+    
+    /**
+     * Parses the fields of a pricing rule that follow its type.
+     */
+    private PricingRule parsePricingRule(PricingRule.Type type, RecordReader fields) {
+        String name = fields.nextString();
+        PricingRule.Condition condition = PricingRule.Condition.valueOf(fields.nextString().trim());
+        PricingRule.Scope scope = PricingRule.Scope.valueOf(fields.nextString().trim());
+        String target = fields.nextOptionalString();
+        String subCategory = fields.nextOptionalString();
+        String value = fields.nextOptionalString();
+        String secondValue = fields.nextOptionalString();
+        
+        int productID = 0;
+        String mainCategory = null;
+        if (scope == PricingRule.Scope.PRODUCT) {
+            productID = Integer.parseInt(target);
+        } else if (scope == PricingRule.Scope.CATEGORY) {
+            mainCategory = target;
+        }
+        
+        boolean needsValue = type != PricingRule.Type.VAT_EXEMPT;
+        boolean needsSecondValue = type == PricingRule.Type.BUNDLE || type == PricingRule.Type.BUY_X_GET_Y;
+        if ((needsValue && value == null) || (needsSecondValue && secondValue == null)) {
+            throw new IllegalArgumentException("missing value");
+        }
+        
+        long first = 0;
+        long second = 0;
+        switch (type) {
+            case PERCENT:
+            case VAT:
+                first = PricingRule.parsePercent(value);
+                break;
+            case FIXED:
+            case MEMBER_PRICE:
+                first = Money.parse(value).getCentavos();
+                break;
+            case BUNDLE:
+                first = Integer.parseInt(value);
+                second = Money.parse(secondValue).getCentavos();
+                break;
+            case BUY_X_GET_Y:
+                first = Integer.parseInt(value);
+                second = Integer.parseInt(secondValue);
+                break;
+            default:
+                break;
+        }
+        
+        return new PricingRule(type, name, condition, scope, mainCategory,
+                               scope == PricingRule.Scope.CATEGORY ? subCategory : null,
+                               productID, first, second);
+    }
+    
+    /**
+     * Saves the low-stock threshold of one product (negative clears it).
+     */
+    public void saveProductThreshold(int productID, int threshold) {
+        appendThresholdRecord(PRODUCT_THRESHOLD_RECORD + DELIMITER + productID + DELIMITER + threshold);
+    }
+    
+    /**
+     * Saves the low-stock threshold of a category (negative clears it).
+     */
+    public void saveCategoryThreshold(Category category, int threshold) {
+        appendThresholdRecord(CATEGORY_THRESHOLD_RECORD + DELIMITER + category.getName() + DELIMITER +
+                              category.getType() + DELIMITER + threshold);
+    }
+    
+    private void appendThresholdRecord(String record) {
+        persistenceWriter.append(THRESHOLDS_FILE, (record + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
+                durable -> {
+                    if (!durable) {
+                        System.err.println("Error saving stock threshold: " + record);
+                    }
+                });
+    }
+    
+    /**
+     * Flushes the memory-mapped catalog to disk, if it is in use.
+     */
+    public void flushProductStore() {
+        if (productStore != null) {
+            productStore.force();
+        }
+    }
+    
+    /**
+     * Writes out everything still queued and stops the background writer.
+     * Called once when the application exits.
+     */
+    public void close() {
+        if (productWatcher != null) {
+            productWatcher.stop();
         }
+        compactionExecutor.shutdown();
+        try {
+            if (!compactionExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                System.err.println("Data compaction still running at shutdown.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        persistenceWriter.shutdown();
+        flushProductStore();
+    }
+    
+    /**
+     * Returns the startup snapshot loaded by the constructor, once.
+     * The application builds its inventory from it instead of calling loadProducts().
+     *
+     * @return the loaded snapshot, or null if the text files were loaded instead
+     */
+    public StartupSnapshot takeStartupSnapshot() {
+        StartupSnapshot snapshot = startupSnapshot;
+        startupSnapshot = null;
+        return snapshot;
+    }
+    
+    /**
+     * Writes a startup snapshot of the inventory and user directory.
+     * Call after close(), so every data file is final when it is fingerprinted.
+     */
+    public void saveStartupSnapshot(Inventory inventory) {
+        createStartupSnapshot().write(inventory, userDirectory);
+    }
+    
+    private StartupSnapshot createStartupSnapshot() {
+        String catalogEngine = System.getProperty(CATALOG_ENGINE_PROPERTY, "text");
+        return new StartupSnapshot(STARTUP_SNAPSHOT_FILE, Arrays.asList(
+                CUSTOMERS_FILE, CUSTOMERS_JOURNAL, CUSTOMERS_JOURNAL + ".old", EMPLOYEES_FILE,
+                PRODUCTS_FILE, PRODUCTS_JOURNAL, PRODUCTS_JOURNAL + ".old", PRODUCTS_STORE_FILE),
+                catalogEngine);
+    }
+    
+    /**
+     * Saves a transaction to sales history.
+     */
+    public void saveTransaction(Transaction transaction) {
+        saveTransaction(transaction, null);
+    }
+    
+    /**
+     * Saves a transaction to sales history in the background.
+     * The summary line goes to transactions.txt and the full line items, discounts
+     * and payment go to the binary transaction log.
+     * The callback is told once the log record is on disk (or could not be written).
+     */
+    public void saveTransaction(Transaction transaction, WriteCallback callback) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        String line = transaction.getTransactionID() + DELIMITER +
+                      transaction.getCustomer().getName() + DELIMITER +
+                      transaction.getTotalCost() + DELIMITER +
+                      transaction.getTimeStamp().format(formatter);
+        
+        persistenceWriter.append(TRANSACTIONS_FILE, (line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
+                durable -> {
+                    if (!durable) {
+                        System.err.println("Error saving transaction: " + transaction.getTransactionID());
+                    }
+                });
+        transactionLog.append(transaction, durable -> {
+            if (!durable) {
+                System.err.println("Error logging transaction: " + transaction.getTransactionID());
+            }
+            if (callback != null) {
+                callback.onComplete(durable);
+            }
+        });
     }
     
     /**
@@ -402,7 +942,8 @@ public class DataManager {
      */
     public List<String> loadTransactions() {
         List<String> transactions = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(TRANSACTIONS_FILE))) {
+        persistenceWriter.flush();
+        try (BufferedReader reader = new BufferedReader(new FileReader(TRANSACTIONS_FILE, StandardCharsets.UTF_8))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 transactions.add(line);
@@ -414,15 +955,82 @@ public class DataManager {
     }
     
     /**
-     * Saves receipt to file in receipts folder.
+     * Returns a cursor positioned after the newest transaction in sales history.
+     */
+    public long getNewestSalesCursor() {
+        persistenceWriter.flush();
+        return salesHistory.newestCursor();
+    }
+    
+    /**
+     * Loads one page of sales history, newest first, ending just before the cursor.
+     * Only the requested lines are read, however long the history is.
+     * TXT Format of each line: transactionID|||customerName|||total|||yyyy-MM-dd HH:mm:ss
+     */
+    public SalesHistory.Page loadSalesPage(long cursor, int pageSize) {
+        persistenceWriter.flush();
+        return salesHistory.readPage(cursor, pageSize);
+    }
+    
+    /**
+     * Loads every transaction from the binary log with its line items, discounts and payment.
+     */
+    public List<TransactionRecord> loadTransactionRecords() {
+        return transactionLog.loadAll();
+    }
+    
+    /**
+     * Scans the binary transaction log, oldest first, without building a list.
+     */
+    public void scanTransactionRecords(Consumer<TransactionRecord> consumer) {
+        transactionLog.scan(consumer);
+    }
+    
+    /**
+     * Saves receipt to the receipt archive in the receipts folder.
      */
     public void saveReceipt(String transactionID, String receiptContent) {
-        String filename = RECEIPTS_DIR + "/receipt_" + transactionID + ".txt";
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
-            writer.print(receiptContent);
-            System.out.println("Receipt saved to: " + filename);
+        saveReceipt(transactionID, receiptContent, null);
+    }
+    
+    /**
+     * Saves receipt to the receipt archive in the background.
+     * Receipts are appended to shared segment files rather than one file per sale.
+     * The callback is told once the receipt is on disk (or could not be written).
+     */
+    public void saveReceipt(String transactionID, String receiptContent, WriteCallback callback) {
+        receiptArchive.append(transactionID, receiptContent, durable -> {
+            if (durable) {
+                System.out.println("Receipt saved to: " + RECEIPTS_DIR + "/" + receiptArchive.getSegmentName(transactionID));
+            } else {
+                System.err.println("Error saving receipt: " + transactionID);
+            }
+            if (callback != null) {
+                callback.onComplete(durable);
+            }
+        });
+    }
+    
+    /**
+     * Loads a saved receipt for reprinting.
+     * Receipts saved before the archive existed are read from their own files.
+     *
+     * @return the receipt text, or null if no receipt was saved for the transaction
+     */
+    public String loadReceipt(String transactionID) {
+        if (receiptArchive.contains(transactionID)) {
+            return receiptArchive.read(transactionID);
+        }
+        
+        Path legacyFile = Paths.get(RECEIPTS_DIR, "receipt_" + transactionID + ".txt");
+        if (!Files.exists(legacyFile)) {
+            return null;
+        }
+        try {
+            return new String(Files.readAllBytes(legacyFile), StandardCharsets.UTF_8);
         } catch (IOException e) {
-            System.err.println("Error saving receipt: " + e.getMessage());
+            System.err.println("Error loading receipt: " + e.getMessage());
+            return null;
         }
     }
 }
\ No newline at end of file
@@ -1,3 +1,5 @@
+import java.util.function.Consumer;
+
 /**
  * Represents an employee of the convenience store, inheriting basic user functionality.
  * Employees have specific actions like adding products and restocking.
@@ -50,7 +52,7 @@ public class Employee extends User {
      * @param quantity The amount to add to the product's current stock.
      */
     public void restockItem(Inventory inventory, Product product, int quantity) {
-        product.restock(quantity);
+        inventory.restock(product.getProductID(), quantity);
         System.out.println("Restocked " + product.getName() + " by " + quantity + " units.");
     }
 
@@ -60,30 +62,14 @@ public class Employee extends User {
      *
      * @param inventory The store's inventory.
      * @param updatedProduct The Product object containing the updated information.
+     * @param saver saves the updated product while sales wait
      */
-    public void updateProductInfo(Inventory inventory, Product updatedProduct) {
-        // Remove old product from inventory and all shelves
-        inventory.removeProduct(updatedProduct.getProductID());
-        
-        // Add updated product to inventory
-        inventory.addProduct(updatedProduct);
-        
-        // Find or create appropriate shelf for the updated product
-        boolean shelfFound = false;
-        for (Shelf shelf : inventory.getShelves()) {
-            if (shelf.getCategory().getName().equals(updatedProduct.getCategory().getName()) &&
-                shelf.getCategory().getType().equals(updatedProduct.getCategory().getType())) {
-                shelf.addProduct(updatedProduct);
-                shelfFound = true;
-                break;
-            }
-        }
-        
-        // If no matching shelf exists, create a new one
-        if (!shelfFound) {
-            Shelf newShelf = new Shelf(updatedProduct.getCategory());
-            newShelf.addProduct(updatedProduct);
-            inventory.addShelf(newShelf);
+    public void updateProductInfo(Inventory inventory, Product updatedProduct, Consumer<Product> saver) {
+        // Swap in the updated product and move it to the shelf for its category,
+        // creating one if needed
+        boolean newCategory = inventory.getShelf(updatedProduct.getCategory()) == null;
+        inventory.updateProduct(updatedProduct, saver);
+        if (newCategory) {
             System.out.println("Created new shelf for category: " + 
                              updatedProduct.getCategory().getName() + " - " + 
                              updatedProduct.getCategory().getType());
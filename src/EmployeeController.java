@@ -1,7 +1,10 @@
+import javafx.application.Platform;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
+import java.io.File;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * EmployeeController manages inventory operations.
@@ -15,6 +18,7 @@ public class EmployeeController {
     private DataManager dataManager;
     private MainApplication mainApp;
     private EmployeeView view;
+    private LowStockListener lowStockListener;
     
     public EmployeeController(ConvenienceStore store, Employee employee,
                              DataManager dataManager, MainApplication mainApp) {
@@ -26,6 +30,22 @@ public class EmployeeController {
     
     public void setView(EmployeeView view) {
         this.view = view;
+        
+        // Keep the low stock alerts current while sales happen on other registers
+        if (lowStockListener == null) {
+            lowStockListener = new LowStockListener() {
+                @Override
+                public void onLowStock(Product product) {
+                    Platform.runLater(() -> view.refreshLowStockAlerts());
+                }
+                
+                @Override
+                public void onStockRecovered(Product product) {
+                    Platform.runLater(() -> view.refreshLowStockAlerts());
+                }
+            };
+            store.getInventory().addLowStockListener(lowStockListener);
+        }
     }
 
     public String getEmployeeName() {
@@ -40,11 +60,27 @@ public class EmployeeController {
         return store.getInventory().flagLowStock();
     }
 
+    public boolean isLowStock(Product product) {
+        return store.getInventory().isLowStock(product.getProductID());
+    }
+
+    public int getLowStockThreshold(Product product) {
+        return store.getInventory().getLowStockThreshold(product);
+    }
+
+    public Money getStockValue() {
+        return store.getInventory().getStockValue();
+    }
+
     public ArrayList<Product> flagExpiringProducts(int daysThreshold) {
         return store.getInventory().flagExpiringProducts(daysThreshold);
     }
 
-    public ArrayList<Shelf> getShelves() {
+    public ArrayList<Product> flagExpiredProducts() {
+        return store.getInventory().flagExpiredProducts();
+    }
+
+    public List<Shelf> getShelves() {
         return store.getInventory().getShelves();
     }
     
@@ -58,17 +94,29 @@ public class EmployeeController {
         }
         
         employee.restockItem(store.getInventory(), product, quantity);
-        dataManager.saveProducts(store.getInventory().getProducts());
         view.refreshInventory();
         showAlert("Success", "Product restocked successfully!", Alert.AlertType.INFORMATION);
     }
     
+    /**
+     * Handles changing the stock level below which a product is flagged as low.
+     */
+    public void handleSetLowStockThreshold(Product product, int threshold) {
+        if (threshold < 0) {
+            showAlert("Invalid Threshold", "Please enter zero or a positive number.", Alert.AlertType.WARNING);
+            return;
+        }
+        
+        store.getInventory().setLowStockThreshold(product.getProductID(), threshold);
+        dataManager.saveProductThreshold(product.getProductID(), threshold);
+        view.refreshInventory();
+    }
+    
     /**
      * Handles editing product information.
      */
     public void handleEditProduct(Product updatedProduct) {
-        employee.updateProductInfo(store.getInventory(), updatedProduct);
-        dataManager.saveProducts(store.getInventory().getProducts());
+        employee.updateProductInfo(store.getInventory(), updatedProduct, dataManager::updateProduct);
         view.refreshInventory();
         showAlert("Success", "Product updated successfully!", Alert.AlertType.INFORMATION);
     }
@@ -85,7 +133,7 @@ public class EmployeeController {
         confirm.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
                 store.getInventory().removeProduct(product.getProductID());
-                dataManager.saveProducts(store.getInventory().getProducts());
+                dataManager.removeProduct(product.getProductID());
                 view.refreshInventory();
                 showAlert("Success", "Product removed successfully!", Alert.AlertType.INFORMATION);
             }
@@ -120,35 +168,68 @@ public class EmployeeController {
         }
         
         // Create product
-        Category category = new Category(mainCategory, subCategory);
+        Category category = Category.of(mainCategory, subCategory);
         Product product = new Product(id, name, price, stock, category, brand, variant, expDate);
         
         // Add to inventory
         employee.addProduct(store.getInventory(), product);
-        dataManager.saveProducts(store.getInventory().getProducts());
+        dataManager.addProduct(product);
         
-        // Add to appropriate shelf
-        boolean shelfFound = false;
-        for (Shelf shelf : store.getInventory().getShelves()) {
-            if (shelf.getCategory().getName().equals(category.getName()) &&
-                shelf.getCategory().getType().equals(category.getType())) {
-                shelf.addProduct(product);
-                shelfFound = true;
-                break;
-            }
-        }
-        
-        // Create new shelf if category doesn't exist
-        if (!shelfFound) {
-            Shelf newShelf = new Shelf(category);
-            newShelf.addProduct(product);
-            store.getInventory().addShelf(newShelf);
-        }
+        // Add to appropriate shelf, creating it if the category is new
+        store.getInventory().shelveProduct(product);
         
         view.refreshInventory();
         view.showAddProductSuccess();
     }
     
+    /**
+     * Handles importing a product file, such as a supplier price list.
+     * The file is read and applied on a background thread; valid products are
+     * added or updated and the catalog is saved once at the end.
+     */
+    public void handleImportProducts(File file) {
+        Thread importThread = new Thread(() -> {
+            ProductImporter.Result result = ProductImporter.read(file.getPath());
+            if (result == null) {
+                Platform.runLater(() -> showAlert("Import Failed",
+                        "Could not read " + file.getName() + ".", Alert.AlertType.ERROR));
+                return;
+            }
+            
+            int changes = store.getInventory().upsertProducts(result.getProducts(), dataManager::saveProducts);
+            
+            StringBuilder message = new StringBuilder();
+            message.append("Products read: ").append(result.getProducts().size()).append("\n");
+            message.append("Products added or changed: ").append(changes).append("\n");
+            message.append("Duplicate IDs (last one kept): ").append(result.getDuplicateCount()).append("\n");
+            message.append("Rejected lines: ").append(result.getRejectedCount());
+            for (String error : result.getErrors().subList(0, Math.min(5, result.getErrors().size()))) {
+                message.append("\n").append(error);
+            }
+            
+            Platform.runLater(() -> {
+                view.refreshInventory();
+                showAlert("Import Complete", message.toString(), result.getRejectedCount() == 0
+                        ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING);
+            });
+        }, "catalog-import");
+        importThread.setDaemon(true);
+        importThread.start();
+    }
+    
+    /**
+     * Handles exporting every product to a file.
+     */
+    public void handleExportProducts(File file) {
+        List<Product> products = store.getInventory().getProducts();
+        if (dataManager.exportProducts(products, file.getPath())) {
+            showAlert("Export Complete", products.size() + " products exported to " + file.getName() + ".",
+                      Alert.AlertType.INFORMATION);
+        } else {
+            showAlert("Export Failed", "Could not write " + file.getName() + ".", Alert.AlertType.ERROR);
+        }
+    }
+    
     /**
      * Handles employee logout.
      */
@@ -160,6 +241,7 @@ public class EmployeeController {
         
         confirm.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
+                store.getInventory().removeLowStockListener(lowStockListener);
                 mainApp.logout();
             }
         });
@@ -4,6 +4,8 @@ import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import javafx.stage.FileChooser;
+import java.io.File;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
@@ -15,6 +17,8 @@ import java.util.*;
  * @author Joreve P. De Jesus
  */
 public class EmployeeView extends BorderPane {
+    private static final int SALES_PAGE_SIZE = 50;
+    
     // private ConvenienceStore store;
     // private Employee employee;
     private EmployeeController controller;
@@ -22,7 +26,10 @@ public class EmployeeView extends BorderPane {
     private TabPane mainCategoryTabs;
     private TitledPane lowStockPane;
     private TitledPane expiryAlertPane;
+    private Label stockValueLabel;
     private TextArea salesArea; // Store reference for refresh
+    private Button loadOlderButton;
+    private long salesCursor; // position of the oldest transaction shown
     private int currentMainTabIndex = 0;
     private Map<String, Integer> subTabIndices = new HashMap<>();
     
@@ -86,6 +93,10 @@ public class EmployeeView extends BorderPane {
         Label titleLabel = new Label("Inventory Management");
         titleLabel.setFont(Font.font("Arial", FontWeight.BOLD, 18));
         
+        stockValueLabel = new Label();
+        stockValueLabel.setFont(Font.font("Arial", 14));
+        refreshStockValue();
+        
         // Collapsible alert boxes
         Accordion alertAccordion = new Accordion();
         lowStockPane = createLowStockAlert();
@@ -110,7 +121,7 @@ public class EmployeeView extends BorderPane {
             currentMainTabIndex = newVal.intValue();
         });
         
-        inventoryBox.getChildren().addAll(titleLabel, alertAccordion, mainCategoryTabs);
+        inventoryBox.getChildren().addAll(titleLabel, stockValueLabel, alertAccordion, mainCategoryTabs);
         return inventoryBox;
     }
     
@@ -153,8 +164,16 @@ public class EmployeeView extends BorderPane {
         expiryFlow.setVgap(5);
         
         ArrayList<Product> expiringProducts = controller.flagExpiringProducts(15);
+        ArrayList<Product> expiredProducts = controller.flagExpiredProducts();
+        
+        for (Product p : expiredProducts) {
+            Label itemLabel = new Label(p.getName() + ": EXPIRED");
+            itemLabel.setStyle("-fx-background-color: #6c757d; -fx-text-fill: white; " +
+                             "-fx-padding: 5 10; -fx-background-radius: 3;");
+            expiryFlow.getChildren().add(itemLabel);
+        }
         
-        if (expiringProducts.isEmpty()) {
+        if (expiringProducts.isEmpty() && expiredProducts.isEmpty()) {
             Label noAlerts = new Label("No products expiring soon");
             noAlerts.setStyle("-fx-text-fill: #666;");
             expiryFlow.getChildren().add(noAlerts);
@@ -170,7 +189,7 @@ public class EmployeeView extends BorderPane {
         
         contentBox.getChildren().add(expiryFlow);
         
-        TitledPane pane = new TitledPane("📅 Expiration Alerts (" + expiringProducts.size() + ")", contentBox);
+        TitledPane pane = new TitledPane("📅 Expiration Alerts (" + (expiringProducts.size() + expiredProducts.size()) + ")", contentBox);
         pane.setStyle("-fx-background-color: #f8d7da;");
         return pane;
     }
@@ -252,7 +271,7 @@ public class EmployeeView extends BorderPane {
         Label stockLabel = new Label("Stock: " + product.getStock());
         stockBox.getChildren().add(stockLabel);
         
-        if (product.getStock() < 5) {
+        if (controller.isLowStock(product)) {
             Label lowStockFlag = new Label("LOW STOCK");
             lowStockFlag.setStyle("-fx-text-fill: red; -fx-font-weight: bold; -fx-font-size: 10px;");
             stockBox.getChildren().add(lowStockFlag);
@@ -296,14 +315,33 @@ public class EmployeeView extends BorderPane {
             }
         });
         
+        Button alertLevelButton = new Button("Alert Level (" + controller.getLowStockThreshold(product) + ")");
+        alertLevelButton.setPrefWidth(205);
+        alertLevelButton.setOnAction(e -> showAlertLevelDialog(product));
+        
         HBox buttonBox = new HBox(5, restockButton, editButton);
         buttonBox.setAlignment(Pos.CENTER);
         
-        card.getChildren().addAll(nameLabel, detailsBox, sep, buttonBox, removeButton);
+        card.getChildren().addAll(nameLabel, detailsBox, sep, buttonBox, alertLevelButton, removeButton);
         
         return card;
     }
     
+    private void showAlertLevelDialog(Product product) {
+        TextInputDialog dialog = new TextInputDialog(String.valueOf(controller.getLowStockThreshold(product)));
+        dialog.setTitle("Low Stock Alert Level");
+        dialog.setHeaderText("Alert level: " + product.getName());
+        dialog.setContentText("Flag as low stock below:");
+        
+        dialog.showAndWait().ifPresent(value -> {
+            try {
+                controller.handleSetLowStockThreshold(product, Integer.parseInt(value.trim()));
+            } catch (NumberFormatException e) {
+                controller.handleSetLowStockThreshold(product, -1);
+            }
+        });
+    }
+    
     private void showRestockDialog(Product product) {
         Dialog<Integer> dialog = new Dialog<>();
         dialog.setTitle("Restock Product");
@@ -362,11 +400,9 @@ public class EmployeeView extends BorderPane {
         TextField variantField = new TextField(product.getVariant() != null ? product.getVariant() : "");
         DatePicker expDatePicker = new DatePicker(product.getExpirationDate());
         
-        ComboBox<String> categoryCombo = new ComboBox<>();
-        List<String> allCategories = getAllCategories();
-        categoryCombo.getItems().addAll(allCategories);
-        String currentCategory = product.getCategory().getName() + "-" + product.getCategory().getType();
-        categoryCombo.setValue(currentCategory);
+        ComboBox<Category> categoryCombo = new ComboBox<>();
+        categoryCombo.getItems().addAll(getAllCategories());
+        categoryCombo.setValue(product.getCategory());
         
         int row = 0;
         grid.add(new Label("Product ID: " + product.getProductID()), 0, row, 2, 1);
@@ -399,8 +435,7 @@ public class EmployeeView extends BorderPane {
                     String name = nameField.getText();
                     double price = Double.parseDouble(priceField.getText());
                     
-                    String[] catParts = categoryCombo.getValue().split("-");
-                    Category category = new Category(catParts[0], catParts[1]);
+                    Category category = categoryCombo.getValue();
                     
                     String brand = brandField.getText().isEmpty() ? null : brandField.getText();
                     String variant = variantField.getText().isEmpty() ? null : variantField.getText();
@@ -450,9 +485,8 @@ public class EmployeeView extends BorderPane {
         TextField variantField = new TextField();
         DatePicker expDatePicker = new DatePicker();
         
-        ComboBox<String> categoryCombo = new ComboBox<>();
-        List<String> allCategories = getAllCategories();
-        categoryCombo.getItems().addAll(allCategories);
+        ComboBox<Category> categoryCombo = new ComboBox<>();
+        categoryCombo.getItems().addAll(getAllCategories());
         categoryCombo.setPrefWidth(200);
         
         formGrid.add(new Label("Product ID:"), 0, 0);
@@ -489,12 +523,12 @@ public class EmployeeView extends BorderPane {
                 double price = Double.parseDouble(priceField.getText());
                 int stock = Integer.parseInt(stockField.getText());
                 
-                String[] catParts = categoryCombo.getValue().split("-");
+                Category category = categoryCombo.getValue();
                 String brand = brandField.getText().isEmpty() ? null : brandField.getText();
                 String variant = variantField.getText().isEmpty() ? null : variantField.getText();
                 LocalDate expDate = expDatePicker.getValue();
                 
-                controller.handleAddProduct(id, name, price, stock, catParts[0], catParts[1], 
+                controller.handleAddProduct(id, name, price, stock, category.getName(), category.getType(), 
                                           brand, variant, expDate);
                 
                 // Clear fields after successful add
@@ -516,7 +550,35 @@ public class EmployeeView extends BorderPane {
             }
         });
         
-        addBox.getChildren().addAll(titleLabel, formGrid, addButton, statusLabel);
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("Product Lists", "*.txt"),
+            new FileChooser.ExtensionFilter("Binary Catalogs", "*.bin"));
+        
+        Button importButton = new Button("Import Products...");
+        importButton.setOnAction(e -> {
+            if (controller == null) return;
+            fileChooser.setTitle("Import Products");
+            File file = fileChooser.showOpenDialog(getScene().getWindow());
+            if (file != null) {
+                controller.handleImportProducts(file);
+            }
+        });
+        
+        Button exportButton = new Button("Export Products...");
+        exportButton.setOnAction(e -> {
+            if (controller == null) return;
+            fileChooser.setTitle("Export Products");
+            File file = fileChooser.showSaveDialog(getScene().getWindow());
+            if (file != null) {
+                controller.handleExportProducts(file);
+            }
+        });
+        
+        HBox bulkButtons = new HBox(10, importButton, exportButton);
+        bulkButtons.setAlignment(Pos.CENTER);
+        
+        addBox.getChildren().addAll(titleLabel, formGrid, addButton, statusLabel, bulkButtons);
         return addBox;
     }
     
@@ -542,7 +604,16 @@ public class EmployeeView extends BorderPane {
             }
         });
         
-        salesBox.getChildren().addAll(titleLabel, salesArea, refreshButton);
+        loadOlderButton = new Button("Load Older");
+        loadOlderButton.setDisable(true);
+        loadOlderButton.setOnAction(e -> {
+            if (controller != null) {
+                appendSalesPage(salesArea);
+            }
+        });
+        
+        HBox salesButtons = new HBox(10, refreshButton, loadOlderButton);
+        salesBox.getChildren().addAll(titleLabel, salesArea, salesButtons);
         return salesBox;
     }
     
@@ -553,40 +624,66 @@ public class EmployeeView extends BorderPane {
         }
         
         StringBuilder sb = new StringBuilder();
-        sb.append("SALES HISTORY\n");
+        sb.append("SALES HISTORY (newest first)\n");
         sb.append("=".repeat(80)).append("\n\n");
         
-        List<String> transactions = controller.getDataManager().loadTransactions();
-        
-        if (transactions.isEmpty()) {
+        salesCursor = controller.getDataManager().getNewestSalesCursor();
+        if (salesCursor == 0) {
             sb.append("No transactions yet.\n");
-        } else {
-            for (String transaction : transactions) {
-                String[] parts = transaction.split("\\|\\|\\|");
-                if (parts.length >= 4) {
-                    sb.append(String.format("Transaction ID: %s\n", parts[0]));
-                    sb.append(String.format("Customer: %s\n", parts[1]));
-                    sb.append(String.format("Total: ₱%.2f\n", Double.parseDouble(parts[2])));
-                    sb.append(String.format("Date: %s\n", parts[3]));
-                    sb.append("-".repeat(80)).append("\n");
-                }
-            }
         }
         
         salesArea.setText(sb.toString());
+        appendSalesPage(salesArea);
+    }
+    
+    /**
+     * Appends the next page of older transactions to the sales display.
+     */
+    private void appendSalesPage(TextArea salesArea) {
+        SalesHistory.Page page = controller.getDataManager().loadSalesPage(salesCursor, SALES_PAGE_SIZE);
+        
+        StringBuilder sb = new StringBuilder();
+        RecordReader fields = new RecordReader();
+        for (String transaction : page.getTransactions()) {
+            fields.reset(transaction);
+            if (fields.getFieldCount() >= 4) {
+                sb.append(String.format("Transaction ID: %s\n", fields.nextString()));
+                sb.append(String.format("Customer: %s\n", fields.nextString()));
+                sb.append(String.format("Total: ₱%.2f\n", fields.nextDouble()));
+                sb.append(String.format("Date: %s\n", fields.nextString()));
+                sb.append("-".repeat(80)).append("\n");
+            }
+        }
+        
+        salesArea.appendText(sb.toString());
+        salesCursor = page.getNextCursor();
+        loadOlderButton.setDisable(!page.hasOlder());
     }
     
-    private List<String> getAllCategories() {
-        Set<String> categories = new LinkedHashSet<>();
+    private List<Category> getAllCategories() {
+        Set<Category> categories = new LinkedHashSet<>();
         
         for (Shelf shelf : controller.getShelves()) {
-            String category = shelf.getCategory().getName() + "-" + shelf.getCategory().getType();
-            categories.add(category);
+            categories.add(shelf.getCategory());
         }
         
         return new ArrayList<>(categories);
     }
     
+    /**
+     * Rebuilds the low stock alert pane from the current low-stock set.
+     * Called by controller whenever a product enters or leaves the set.
+     */
+    public void refreshLowStockAlerts() {
+        TitledPane updated = createLowStockAlert();
+        lowStockPane.setText(updated.getText());
+        lowStockPane.setContent(updated.getContent());
+    }
+    
+    private void refreshStockValue() {
+        stockValueLabel.setText("Stock value: ₱" + controller.getStockValue());
+    }
+    
     /**
      * Refreshes the entire inventory display.
      * Called by controller after inventory changes.
@@ -624,11 +721,12 @@ public class EmployeeView extends BorderPane {
         }
         
         // Refresh alerts with updated counts
-        lowStockPane.setText("⚠️ Low Stock Alerts (" + controller.flagLowStock().size() + ")");
-        lowStockPane.setContent(createLowStockAlert().getContent());
+        refreshLowStockAlerts();
+        refreshStockValue();
         
-        expiryAlertPane.setText("📅 Expiration Alerts (" + controller.flagExpiringProducts(15).size() + ")");
-        expiryAlertPane.setContent(createExpiryAlert().getContent());
+        TitledPane updatedExpiry = createExpiryAlert();
+        expiryAlertPane.setText(updatedExpiry.getText());
+        expiryAlertPane.setContent(updatedExpiry.getContent());
     }
     
     /**
@@ -0,0 +1,178 @@
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExpirationIndex keeps perishable products in day buckets ordered by expiration date,
+ * so "expiring within N days" is a range lookup over at most N + 1 buckets instead of
+ * a date calculation for every product in the catalog.
+ *
+ * Products whose date has passed are moved out of the date-ordered buckets by
+ * {@link #rollover()}, which a daily timer runs just after midnight. Range lookups
+ * never return a past date, even if the timer has not run yet.
+ *
+ * @author Joreve P. De Jesus
+ */
+public class ExpirationIndex {
+    private final NavigableMap<Long, Map<Integer, Product>> buckets; // epoch day -> products
+    private final Map<Integer, Long> dayByProduct;
+    private final Map<Integer, Product> expired;
+    private ScheduledExecutorService rolloverTimer;
+
+    /**
+     * Constructs an empty ExpirationIndex.
+     */
+    public ExpirationIndex() {
+        this.buckets = new TreeMap<>();
+        this.dayByProduct = new HashMap<>();
+        this.expired = new LinkedHashMap<>();
+    }
+
+    /**
+     * Adds a product, or moves it if its expiration date changed.
+     * Products without an expiration date are ignored.
+     *
+     * @param product the product to index
+     */
+    public synchronized void add(Product product) {
+        remove(product.getProductID());
+        if (!product.isPerishable() || product.getExpirationDate() == null) {
+            return;
+        }
+
+        long day = product.getExpirationDate().toEpochDay();
+        dayByProduct.put(product.getProductID(), day);
+        if (day < LocalDate.now().toEpochDay()) {
+            expired.put(product.getProductID(), product);
+        } else {
+            buckets.computeIfAbsent(day, d -> new LinkedHashMap<>()).put(product.getProductID(), product);
+        }
+    }
+
+    /**
+     * Removes a product from the index.
+     *
+     * @param productID the ID of the product
+     */
+    public synchronized void remove(int productID) {
+        Long day = dayByProduct.remove(productID);
+        if (day == null) {
+            return;
+        }
+
+        expired.remove(productID);
+        Map<Integer, Product> bucket = buckets.get(day);
+        if (bucket != null) {
+            bucket.remove(productID);
+            if (bucket.isEmpty()) {
+                buckets.remove(day);
+            }
+        }
+    }
+
+    /**
+     * Removes every product.
+     */
+    public synchronized void clear() {
+        buckets.clear();
+        dayByProduct.clear();
+        expired.clear();
+    }
+
+    /**
+     * Returns the products that expire between today and the given number of days from now.
+     *
+     * @param daysThreshold how many days ahead to look (0 means today only)
+     * @return the products in expiration order
+     */
+    public synchronized ArrayList<Product> findExpiringWithin(int daysThreshold) {
+        long today = LocalDate.now().toEpochDay();
+        ArrayList<Product> expiring = new ArrayList<>();
+
+        for (Map<Integer, Product> bucket : buckets.subMap(today, true, today + daysThreshold, true).values()) {
+            expiring.addAll(bucket.values());
+        }
+        return expiring;
+    }
+
+    /**
+     * Returns the products whose expiration date has passed.
+     *
+     * @return the expired products, in the order they were found expired
+     */
+    public synchronized ArrayList<Product> getExpired() {
+        rollover();
+        return new ArrayList<>(expired.values());
+    }
+
+    /**
+     * Moves every product dated before today out of the date-ordered buckets.
+     *
+     * @return the number of products that expired
+     */
+    public synchronized int rollover() {
+        NavigableMap<Long, Map<Integer, Product>> past = buckets.headMap(LocalDate.now().toEpochDay(), false);
+        int count = 0;
+
+        for (Map<Integer, Product> bucket : past.values()) {
+            expired.putAll(bucket);
+            count += bucket.size();
+        }
+        past.clear();
+        return count;
+    }
+
+    /**
+     * Starts a background timer that runs {@link #rollover()} shortly after every midnight.
+     */
+    public synchronized void startRolloverTimer() {
+        if (rolloverTimer != null) {
+            return;
+        }
+        rolloverTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "expiry-rollover");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleNextRollover();
+    }
+
+    /**
+     * Stops the background rollover timer.
+     */
+    public synchronized void stopRolloverTimer() {
+        if (rolloverTimer != null) {
+            rolloverTimer.shutdownNow();
+            rolloverTimer = null;
+        }
+    }
+
+    /**
+     * Schedules one rollover just after the next midnight. Each run schedules the next,
+     * so the timer follows the wall clock across daylight saving changes.
+     */
+    private synchronized void scheduleNextRollover() {
+        if (rolloverTimer == null) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime nextRun = now.toLocalDate().plusDays(1).atStartOfDay().plusSeconds(1);
+        rolloverTimer.schedule(() -> {
+            int count = rollover();
+            if (count > 0) {
+                System.out.println(count + " product(s) expired today.");
+            }
+            scheduleNextRollover();
+        }, Duration.between(now, nextRun).toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
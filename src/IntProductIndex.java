@@ -0,0 +1,284 @@
+/**
+ * IntProductIndex maps product IDs to products in a hash trie. Each level of the
+ * trie takes five bits of the hashed ID and keeps only the slots in use, so a
+ * lookup reads at most seven small arrays and there is no Integer boxing and no
+ * per-entry node object as in a HashMap. The hash is a bijection on int, so two
+ * IDs never collide all the way down and no collision lists are needed.
+ *
+ * Copies share structure. {@link #copy()} takes constant time; after it, a put
+ * or remove on either index copies only the nodes on the path to that ID and
+ * leaves the rest shared. Nodes an index created since its last copy are not
+ * shared with anything and are changed in place, so filling a new index does
+ * not copy at all.
+ *
+ * Each entry can also record the product's position in a {@link ProductList},
+ * so a product can be found in the list's order without a search.
+ *
+ * @author Joreve P. De Jesus
+ */
+class IntProductIndex {
+    private static final int BITS = 5;
+    private static final int LEVEL_MASK = (1 << BITS) - 1;
+
+    private Node root;
+    private int size;
+    private Object owner; // nodes carrying this token belong to this index alone
+
+    /**
+     * Constructs an empty IntProductIndex.
+     */
+    public IntProductIndex() {
+        clear();
+    }
+
+    private IntProductIndex(Node root, int size) {
+        this.root = root;
+        this.size = size;
+        this.owner = new Object();
+    }
+
+    /**
+     * Adds or replaces the product stored under its ID. A replaced product keeps
+     * the position recorded for the ID.
+     *
+     * @param product the product to index
+     */
+    public void put(Product product) {
+        put(product, getPosition(product.getProductID()));
+    }
+
+    /**
+     * Adds or replaces the product stored under its ID, recording its position.
+     *
+     * @param product the product to index
+     * @param position the product's position in a product list, or -1 for none
+     */
+    void put(Product product, int position) {
+        Entry entry = new Entry(product, position);
+        root = insert(editable(root), entry, hash(entry.id), 0);
+    }
+
+    /**
+     * Finds a product by ID.
+     *
+     * @param productID the ID to look up
+     * @return the product, or null if none is indexed under the ID
+     */
+    public Product get(int productID) {
+        Entry entry = find(productID);
+        return entry != null ? entry.product : null;
+    }
+
+    /**
+     * Returns the position recorded for a product.
+     *
+     * @param productID the ID to look up
+     * @return the position, or -1 if the ID is not indexed or has no position
+     */
+    int getPosition(int productID) {
+        Entry entry = find(productID);
+        return entry != null ? entry.position : -1;
+    }
+
+    /**
+     * Checks if a product is indexed under the ID.
+     *
+     * @param productID the ID to check
+     * @return true if a product with the ID exists
+     */
+    public boolean contains(int productID) {
+        return find(productID) != null;
+    }
+
+    /**
+     * Removes the product indexed under the ID.
+     *
+     * @param productID the ID to remove
+     * @return the removed product, or null if none was indexed
+     */
+    public Product remove(int productID) {
+        Entry removed = find(productID);
+        if (removed == null) {
+            return null;
+        }
+
+        Node updated = delete(editable(root), productID, hash(productID), 0);
+        root = updated != null ? updated : new Node(owner, 0, new Object[0]);
+        size--;
+        return removed.product;
+    }
+
+    /**
+     * Returns a copy of this index. The two share every node until one of them
+     * changes, and a change to one is never seen by the other.
+     *
+     * @return a new index holding the same products
+     */
+    public IntProductIndex copy() {
+        owner = new Object(); // the nodes made so far are now shared with the copy
+        return new IntProductIndex(root, size);
+    }
+
+    /**
+     * Removes every product.
+     */
+    public void clear() {
+        owner = new Object();
+        root = new Node(owner, 0, new Object[0]);
+        size = 0;
+    }
+
+    /**
+     * Returns the number of indexed products.
+     *
+     * @return the product count
+     */
+    public int size() {
+        return size;
+    }
+
+    private Entry find(int productID) {
+        int hash = hash(productID);
+        Node node = root;
+        for (int shift = 0; ; shift += BITS) {
+            int bit = 1 << ((hash >>> shift) & LEVEL_MASK);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = node.slots[node.index(bit)];
+            if (slot instanceof Node) {
+                node = (Node) slot;
+            } else {
+                Entry entry = (Entry) slot;
+                return entry.id == productID ? entry : null;
+            }
+        }
+    }
+
+    /**
+     * Puts an entry below a node this index may change, returning the node.
+     * Counts the entry if its ID was not indexed.
+     */
+    private Node insert(Node node, Entry entry, int hash, int shift) {
+        int bit = 1 << ((hash >>> shift) & LEVEL_MASK);
+        int index = node.index(bit);
+
+        if ((node.bitmap & bit) == 0) {
+            node.insertSlot(index, bit, entry);
+            size++;
+        } else if (node.slots[index] instanceof Node) {
+            node.slots[index] = insert(editable((Node) node.slots[index]), entry, hash, shift + BITS);
+        } else {
+            Entry other = (Entry) node.slots[index];
+            if (other.id == entry.id) {
+                node.slots[index] = entry;
+            } else {
+                node.slots[index] = split(other, hash(other.id), entry, hash, shift + BITS);
+                size++;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Builds the smallest subtree that holds two entries whose hashes agree below shift.
+     */
+    private Node split(Entry a, int hashA, Entry b, int hashB, int shift) {
+        int fragmentA = (hashA >>> shift) & LEVEL_MASK;
+        int fragmentB = (hashB >>> shift) & LEVEL_MASK;
+        if (fragmentA == fragmentB) {
+            return new Node(owner, 1 << fragmentA,
+                    new Object[] {split(a, hashA, b, hashB, shift + BITS)});
+        }
+        Object[] slots = fragmentA < fragmentB ? new Object[] {a, b} : new Object[] {b, a};
+        return new Node(owner, (1 << fragmentA) | (1 << fragmentB), slots);
+    }
+
+    /**
+     * Removes an indexed ID below a node this index may change. Returns the node,
+     * the single entry left in it, or null if it became empty.
+     */
+    private Object deleteSlot(Node node, int productID, int hash, int shift) {
+        Node updated = delete(node, productID, hash, shift);
+        if (updated == null) {
+            return null;
+        }
+        if (updated.slots.length == 1 && updated.slots[0] instanceof Entry) {
+            return updated.slots[0]; // pull a lone entry up so paths stay short
+        }
+        return updated;
+    }
+
+    private Node delete(Node node, int productID, int hash, int shift) {
+        int bit = 1 << ((hash >>> shift) & LEVEL_MASK);
+        int index = node.index(bit);
+
+        if (node.slots[index] instanceof Node) {
+            Object child = deleteSlot(editable((Node) node.slots[index]), productID, hash, shift + BITS);
+            if (child != null) {
+                node.slots[index] = child;
+                return node;
+            }
+        }
+        node.removeSlot(index, bit);
+        return node.bitmap != 0 ? node : null;
+    }
+
+    private Node editable(Node node) {
+        return node.owner == owner ? node : new Node(owner, node.bitmap, node.slots.clone());
+    }
+
+    private static int hash(int productID) {
+        int h = productID * 0x9E3779B9; // spreads sequential IDs across the trie
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * A trie node: a bitmap of the slots in use and, in slot order, an
+     * {@link Entry} or a child node for each.
+     */
+    private static final class Node {
+        final Object owner;
+        int bitmap;
+        Object[] slots;
+
+        Node(Object owner, int bitmap, Object[] slots) {
+            this.owner = owner;
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        void insertSlot(int index, int bit, Object value) {
+            Object[] grown = new Object[slots.length + 1];
+            System.arraycopy(slots, 0, grown, 0, index);
+            grown[index] = value;
+            System.arraycopy(slots, index, grown, index + 1, slots.length - index);
+            slots = grown;
+            bitmap |= bit;
+        }
+
+        void removeSlot(int index, int bit) {
+            Object[] shrunk = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, shrunk, 0, index);
+            System.arraycopy(slots, index + 1, shrunk, index, shrunk.length - index);
+            slots = shrunk;
+            bitmap &= ~bit;
+        }
+    }
+
+    private static final class Entry {
+        final int id;
+        final Product product;
+        final int position;
+
+        Entry(Product product, int position) {
+            this.id = product.getProductID();
+            this.product = product;
+            this.position = position;
+        }
+    }
+}
@@ -1,23 +1,91 @@
-import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Manages the store's product inventory, keeping track 
  * of all products and organizing them into shelves.
+ *
+ * The products, shelves and ID index are published as immutable
+ * {@link InventorySnapshot} versions. Every change builds the next version and
+ * swaps it in atomically, so views, reports and registers read a complete
+ * catalog without locking while a change or reload is being built.
+ * Changes are made one at a time. The next version shares everything a change
+ * does not touch with the previous one: the product list, its index and the
+ * changed shelves copy only the paths to the changed products, so the cost of a
+ * change does not grow with the catalog.
+ *
+ * Each published version is also copied into a {@link Catalog} that keeps the
+ * fields bulk work reads in columns, and every stock change is copied to it.
+ * Inventory-wide scans (stock valuation, the products of a category, and
+ * rebuilding the low-stock set and expiration index after the catalog is
+ * replaced) run over those columns instead of visiting every Product.
+ * The catalog is a {@link ColumnarCatalog} on the heap, or an
+ * {@link OffHeapCatalog} in direct memory when started with
+ * -Dcatalog.memory=offheap. Either way the Product objects stay on the heap,
+ * because carts, reservations and the views share them.
  * 
  * @author Joreve P. De Jesus
  */
 class Inventory {
-    private ArrayList<Product> products;
-    private ArrayList<Shelf> shelves;
+    private static final String CATALOG_MEMORY_PROPERTY = "catalog.memory"; // "heap" (default) or "offheap"
+
+    private final AtomicReference<InventorySnapshot> current;
+    private final ReadWriteLock stockLock; // sales and restocks share it; reloads take it alone
+    private final AtomicLong savedChanges; // stock changes and edits handed to the saver so far
+    private final Catalog catalog; // follows the published version; guarded by its own monitor
+    private StockReservations reservations;
+    private LowStockTracker lowStockTracker;
+    private ExpirationIndex expirationIndex;
+    private StockChangeListener stockChangeListener;
 
     /**
      * Constructs a new, empty Inventory with initialized lists for products and shelves.
+     * The catalog backend is chosen by the catalog.memory system property.
      */
     public Inventory() {
-        this.products = new ArrayList<>();
-        this.shelves = new ArrayList<>();
+        this("offheap".equals(System.getProperty(CATALOG_MEMORY_PROPERTY))
+                ? new OffHeapCatalog() : new ColumnarCatalog());
+    }
+
+    /**
+     * Constructs a new, empty Inventory that keeps its bulk-scan columns in the given catalog.
+     *
+     * @param catalog an empty catalog, used by this inventory alone
+     */
+    Inventory(Catalog catalog) {
+        this.current = new AtomicReference<>(new InventorySnapshot(0, new ProductList(),
+                new ArrayList<>(), new HashMap<>()));
+        this.stockLock = new ReentrantReadWriteLock();
+        this.savedChanges = new AtomicLong();
+        this.catalog = catalog;
+        this.reservations = new StockReservations();
+        this.lowStockTracker = new LowStockTracker();
+        this.expirationIndex = new ExpirationIndex();
+    }
+
+    /**
+     * Returns the current version of the inventory. Reading the products and
+     * shelves from one snapshot gives a consistent view even if the inventory
+     * changes meanwhile.
+     *
+     * @return the current snapshot
+     */
+    public InventorySnapshot getSnapshot() {
+        return current.get();
     }
 
     /**
@@ -25,17 +93,42 @@ class Inventory {
      *
      * @param shelf The shelf to be added.
      */
-    public void addShelf(Shelf shelf) {
-        shelves.add(shelf);
+    public synchronized void addShelf(Shelf shelf) {
+        Draft draft = new Draft();
+        draft.addShelf(shelf);
+        draft.publish();
+    }
+
+    /**
+     * Finds the shelf that holds a category.
+     *
+     * @param category The category of the shelf.
+     * @return The shelf, or null if there is no shelf for that category yet.
+     */
+    public Shelf getShelf(Category category) {
+        return current.get().getShelf(category);
+    }
+
+    /**
+     * Places a product on the shelf for its category, creating the shelf if needed.
+     *
+     * @param product The product to shelve.
+     * @return The shelf the product was placed on.
+     */
+    public synchronized Shelf shelveProduct(Product product) {
+        Draft draft = new Draft();
+        draft.shelve(product);
+        draft.publish();
+        return getShelf(product.getCategory());
     }
 
     /**
      * Returns the list of shelves in the inventory.
      *
-     * @return The ArrayList of shelves.
+     * @return A read-only list of the shelves in the current version.
      */
-    public ArrayList<Shelf> getShelves() {
-        return shelves;
+    public List<Shelf> getShelves() {
+        return current.get().getShelves();
     }
 
     /**
@@ -43,8 +136,120 @@ class Inventory {
      *
      * @param product The product to be added.
      */
-    public void addProduct(Product product) {
-        products.add(product);
+    public synchronized void addProduct(Product product) {
+        Draft draft = new Draft();
+        draft.add(product);
+        draft.publish();
+
+        lowStockTracker.update(product);
+        expirationIndex.add(product);
+    }
+
+    /**
+     * Finds a product by ID.
+     *
+     * @param productID The ID of the product.
+     * @return The product, or null if it is not in the inventory.
+     */
+    public Product getProduct(int productID) {
+        return current.get().getProduct(productID);
+    }
+
+    /**
+     * Replaces every product with a freshly loaded list and shelves each one by category.
+     * The existing shelves are kept (emptied) and new ones are added for new categories.
+     * Readers keep seeing the previous version until the new one is complete.
+     *
+     * @param loadedProducts The products to hold from now on.
+     */
+    public synchronized void replaceProducts(Collection<Product> loadedProducts) {
+        List<Shelf> shelves = new ArrayList<>();
+        Map<Category, Shelf> shelvesByCategory = new HashMap<>();
+        for (Shelf shelf : current.get().getShelves()) {
+            Shelf emptied = new Shelf(shelf.getCategory());
+            shelves.add(emptied);
+            shelvesByCategory.putIfAbsent(shelf.getCategory(), emptied);
+        }
+
+        for (Product product : loadedProducts) {
+            Shelf shelf = shelvesByCategory.get(product.getCategory());
+            if (shelf == null) {
+                shelf = new Shelf(product.getCategory());
+                shelves.add(shelf);
+                shelvesByCategory.put(product.getCategory(), shelf);
+            }
+            shelf.addProduct(product);
+        }
+
+        install(new ArrayList<>(loadedProducts), shelves);
+    }
+
+    /**
+     * Replaces the whole inventory with products and shelves that were saved together,
+     * such as those read from a startup snapshot.
+     *
+     * @param loadedProducts The products to hold from now on.
+     * @param loadedShelves The shelves holding those products.
+     */
+    public synchronized void restore(Collection<Product> loadedProducts, Collection<Shelf> loadedShelves) {
+        install(new ArrayList<>(loadedProducts), new ArrayList<>(loadedShelves));
+    }
+
+    /**
+     * Reloads the catalog from the data files and applies only what changed.
+     * Unchanged products keep their identity. A product whose details or stock
+     * differ is replaced by the loaded object in the next version, so versions
+     * already published never change; reservations follow the new object because
+     * they are kept by product ID, and carts pick it up through
+     * {@link Cart#refreshPrices(Inventory)}. A new version is published only if
+     * something changed.
+     *
+     * The files are read before sales and restocks are stopped, so registers
+     * wait only while the differences are applied. If a stock change or edit was
+     * made while the files were being read, they may not include it yet; the
+     * files are then read again while sales wait, so the reload never undoes it.
+     *
+     * @param loader reads the products from the data files
+     * @return the number of products added, changed or removed
+     */
+    public int reload(Supplier<? extends Collection<Product>> loader) {
+        long changesBefore = savedChanges.get();
+        Collection<Product> loaded = loader.get();
+
+        stockLock.writeLock().lock();
+        try {
+            if (savedChanges.get() != changesBefore) {
+                loaded = loader.get();
+            }
+            return applyChanges(loaded, true);
+        } finally {
+            stockLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or updates a batch of products, such as a supplier price list, and saves
+     * the resulting catalog once. Products with a known ID are replaced like in
+     * {@link #reload(Supplier)}; new IDs are added and shelved by category.
+     * Products missing from the batch are left alone.
+     *
+     * Sales and restocks wait until the catalog has been saved, so the saved
+     * catalog includes every stock change made before the import.
+     *
+     * @param importedProducts the products to add or update, with unique IDs
+     * @param saver saves the complete product list after the batch is applied
+     * @return the number of products added or changed
+     */
+    public int upsertProducts(Collection<Product> importedProducts, Consumer<List<Product>> saver) {
+        stockLock.writeLock().lock();
+        try {
+            int changes = applyChanges(importedProducts, false);
+            saver.accept(getProducts());
+            savedChanges.incrementAndGet();
+            return changes;
+        } finally {
+            stockLock.writeLock().unlock();
+        }
     }
 
     /**
@@ -52,12 +257,48 @@ class Inventory {
      *
      * @param productID The ID of the product to be removed.
      */
-    public void removeProduct(int productID) {
-        products.removeIf(p -> p.getProductID() == productID);
-        
-        // Also remove from shelves
-        for (Shelf shelf : shelves) {
-            shelf.getProducts().removeIf(p -> p.getProductID() == productID);
+    public synchronized void removeProduct(int productID) {
+        // Also removes it from its shelf
+        Draft draft = new Draft();
+        if (draft.remove(productID) == null) {
+            return;
+        }
+        draft.publish();
+        lowStockTracker.remove(productID);
+        expirationIndex.remove(productID);
+    }
+
+    /**
+     * Replaces a product with an updated copy and moves it to the shelf for its
+     * (possibly changed) category, creating the shelf if needed. The product keeps
+     * its place in the catalog. Readers see either the old product or the updated
+     * one, never neither.
+     *
+     * @param updatedProduct The product with its new details.
+     */
+    public void updateProduct(Product updatedProduct) {
+        updateProduct(updatedProduct, product -> { });
+    }
+
+    /**
+     * Replaces a product with an updated copy like {@link #updateProduct(Product)}
+     * and saves it. The copy takes over the current stock, so units sold while it
+     * was being edited are not put back.
+     *
+     * Sales and restocks wait until the product has been saved, so no stock
+     * change can be made to the old object or saved after the updated one.
+     *
+     * @param updatedProduct The product with its new details.
+     * @param saver saves the updated product
+     */
+    public void updateProduct(Product updatedProduct, Consumer<Product> saver) {
+        stockLock.writeLock().lock();
+        try {
+            replaceProduct(updatedProduct);
+            saver.accept(updatedProduct);
+            savedChanges.incrementAndGet();
+        } finally {
+            stockLock.writeLock().unlock();
         }
     }
 
@@ -68,49 +309,131 @@ class Inventory {
      * @param quantity The amount to add to the stock.
      */
     public void restock(int productID, int quantity) {
-        for (Product p : products) {
-            if (p.getProductID() == productID) {
+        stockLock.readLock().lock();
+        try {
+            Product p = getProduct(productID);
+            if (p != null) {
                 p.restock(quantity);
-                break;
+                if (quantity > 0) {
+                    notifyStockChanged(productID, quantity);
+                }
             }
+        } finally {
+            stockLock.readLock().unlock();
         }
     }
 
     /**
-     * Checks all products and returns a list of those with a stock level less than 5.
+     * Returns the products whose stock is below their low-stock threshold.
+     * The set is kept up to date as stock changes, so no products are scanned.
      *
      * @return An ArrayList of products considered low in stock.
      */
     public ArrayList<Product> flagLowStock() {
-        ArrayList<Product> lowStock = new ArrayList<>();
-        for (Product p : products) {
-            if (p.getStock() < 5) {
-                lowStock.add(p);
-            }
+        return lowStockTracker.getLowStockProducts();
+    }
+
+    /**
+     * Checks if a product is below its low-stock threshold.
+     *
+     * @param productID The ID of the product.
+     * @return true if the product is low on stock.
+     */
+    public boolean isLowStock(int productID) {
+        return lowStockTracker.isLowStock(productID);
+    }
+
+    /**
+     * Returns the low-stock threshold that applies to a product.
+     *
+     * @param product The product.
+     * @return stock below this number counts as low.
+     */
+    public int getLowStockThreshold(Product product) {
+        return lowStockTracker.getThreshold(product);
+    }
+
+    /**
+     * Sets the low-stock threshold of one product.
+     *
+     * @param productID The ID of the product.
+     * @param threshold stock below this number counts as low, or a negative number to use the category's.
+     */
+    public void setLowStockThreshold(int productID, int threshold) {
+        lowStockTracker.setProductThreshold(productID, threshold);
+        lowStockTracker.update(getProduct(productID));
+    }
+
+    /**
+     * Sets the low-stock threshold of every product in a category that has none of its own.
+     *
+     * @param category The category.
+     * @param threshold stock below this number counts as low, or a negative number to use the default.
+     */
+    public void setCategoryLowStockThreshold(Category category, int threshold) {
+        lowStockTracker.setCategoryThreshold(category, threshold);
+        for (Product p : findProducts(c -> c.findByCategory(category))) {
+            lowStockTracker.update(p);
         }
-        return lowStock;
     }
 
     /**
-     * Checks all perishable products and returns those expiring within the specified days.
+     * Registers a listener for products entering or leaving the low-stock set.
+     *
+     * @param listener the listener to add
+     */
+    public void addLowStockListener(LowStockListener listener) {
+        lowStockTracker.addListener(listener);
+    }
+
+    /**
+     * Unregisters a low-stock listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeLowStockListener(LowStockListener listener) {
+        lowStockTracker.removeListener(listener);
+    }
+
+    /**
+     * Returns the perishable products expiring within the specified days, soonest first.
+     * Looks up the date-ordered expiration index instead of checking every product.
      *
      * @param daysThreshold number of days to check (e.g., 15 for products expiring in 15 days or less)
      * @return An ArrayList of products expiring soon
      */
     public ArrayList<Product> flagExpiringProducts(int daysThreshold) {
-        ArrayList<Product> expiringProducts = new ArrayList<>();
-        LocalDate today = LocalDate.now();
-        
-        for (Product p : products) {
-            if (p.isPerishable() && p.getExpirationDate() != null) {
-                long daysUntilExpiry = ChronoUnit.DAYS.between(today, p.getExpirationDate());
-                if (daysUntilExpiry >= 0 && daysUntilExpiry <= daysThreshold) {
-                    expiringProducts.add(p);
-                }
-            }
+        return expirationIndex.findExpiringWithin(daysThreshold);
+    }
+
+    /**
+     * Returns the perishable products whose expiration date has passed.
+     *
+     * @return An ArrayList of expired products
+     */
+    public ArrayList<Product> flagExpiredProducts() {
+        return expirationIndex.getExpired();
+    }
+
+    /**
+     * Returns the expiration index, for starting or stopping its daily rollover.
+     *
+     * @return the expiration index
+     */
+    public ExpirationIndex getExpirationIndex() {
+        return expirationIndex;
+    }
+
+    /**
+     * Returns the value of the stock on hand, the sum of price times stock over
+     * every product.
+     *
+     * @return the stock value
+     */
+    public Money getStockValue() {
+        synchronized (catalog) {
+            return catalog.getStockValue();
         }
-        
-        return expiringProducts;
     }
 
     /**
@@ -120,38 +443,437 @@ class Inventory {
      * @return true if product exists, false otherwise
      */
     public boolean productExists(int productID) {
-        return products.stream().anyMatch(p -> p.getProductID() == productID);
+        return getProduct(productID) != null;
     }
 
     /**
      * Automatically reduces stock for all items in the cart after purchase.
+     * The cart's reservations are turned into the sale; either every item's
+     * stock is taken or, if some item is no longer available, none is.
      *
      * @param cart the shopping cart containing items to reduce from inventory
+     * @return true if the stock was taken, false if some item is out of stock
      */
-    public void autoReduceStock(Cart cart) {
-        for (CartItem item : cart.getItems()) {
-            Product product = item.getProduct();
-            int quantityPurchased = item.getQuantity();
+    public boolean autoReduceStock(Cart cart) {
+        stockLock.readLock().lock();
+        try {
+            if (!reservations.commit(cart, current.get().getProductIndex())) {
+                return false;
+            }
 
-            for (Product p : products) {
-                if (p.getProductID() == product.getProductID()) {
-                    p.reduceStock(quantityPurchased);
-                    break;
-                }
+            for (CartItem item : cart.getItems()) {
+                notifyStockChanged(item.getProduct().getProductID(), -item.getQuantity());
             }
+            return true;
+        } finally {
+            stockLock.readLock().unlock();
         }
     }
 
+    /**
+     * Reserves more units of a product for a cart so no other register can sell them.
+     *
+     * @param cart the cart the units are added to
+     * @param product the product
+     * @param quantity the number of extra units
+     * @return true if reserved, false if not enough unreserved stock is left
+     */
+    public boolean reserveStock(Cart cart, Product product, int quantity) {
+        Product stocked = getProduct(product.getProductID());
+        return stocked != null && reservations.reserve(cart, stocked, quantity);
+    }
+
+    /**
+     * Changes the number of units of a product reserved for a cart.
+     *
+     * @param cart the cart
+     * @param product the product
+     * @param quantity the new quantity in the cart
+     * @return true if changed, false if not enough unreserved stock is left
+     */
+    public boolean adjustReservation(Cart cart, Product product, int quantity) {
+        Product stocked = getProduct(product.getProductID());
+        return stocked != null && reservations.adjust(cart, stocked, quantity);
+    }
+
+    /**
+     * Gives back the units of a product reserved for a cart.
+     *
+     * @param cart the cart
+     * @param product the product removed from the cart
+     */
+    public void releaseReservation(Cart cart, Product product) {
+        reservations.release(cart, product);
+    }
+
+    /**
+     * Gives back everything reserved for a cart.
+     *
+     * @param cart the cart being cleared or abandoned
+     */
+    public void releaseReservations(Cart cart) {
+        reservations.releaseAll(cart);
+    }
+
+    /**
+     * Returns the units of a product that are in stock and not reserved in any cart.
+     *
+     * @param product the product
+     * @return the available units
+     */
+    public int getAvailableStock(Product product) {
+        Product stocked = getProduct(product.getProductID());
+        return stocked != null ? reservations.getAvailable(stocked) : 0;
+    }
+
+    /**
+     * Returns the reservation engine, for starting or stopping its expiry timer.
+     *
+     * @return the stock reservations
+     */
+    public StockReservations getReservations() {
+        return reservations;
+    }
+
     /**
      * Displays the current inventory by iterating through all shelves and calling their {@code displayShelf} method.
      */
     public void displayInventory() {
-        for (Shelf s : shelves) {
+        for (Shelf s : current.get().getShelves()) {
             s.displayShelf();
         }
     }
 
-    public ArrayList<Product> getProducts() {
-        return products;
+    /**
+     * Returns the products in the current version.
+     *
+     * @return A read-only list of the products.
+     */
+    public List<Product> getProducts() {
+        return current.get().getProducts();
+    }
+
+    /**
+     * Sets the listener that is told about every stock change made through this inventory.
+     *
+     * @param listener the listener, or null to stop notifications
+     */
+    public void setStockChangeListener(StockChangeListener listener) {
+        this.stockChangeListener = listener;
+    }
+
+    /**
+     * Compares loaded products with the current version and applies the differences.
+     * Current products missing from the loaded ones are removed only if removeMissing is set.
+     */
+    private synchronized int applyChanges(Collection<Product> loadedProducts, boolean removeMissing) {
+        Draft draft = new Draft();
+        IntProductIndex loadedIndex = new IntProductIndex();
+        List<Product> added = new ArrayList<>();
+        List<Product> replaced = new ArrayList<>();
+
+        for (Product loaded : loadedProducts) {
+            loadedIndex.put(loaded);
+            Product existing = draft.get(loaded.getProductID());
+            if (existing == null) {
+                draft.add(loaded);
+                draft.shelve(loaded);
+                added.add(loaded);
+            } else if (differs(existing, loaded)) {
+                draft.replace(loaded);
+                replaced.add(loaded);
+            }
+        }
+
+        List<Product> removed = new ArrayList<>();
+        if (removeMissing) {
+            for (Product product : current.get().getProducts()) {
+                if (!loadedIndex.contains(product.getProductID())) {
+                    draft.remove(product.getProductID());
+                    removed.add(product);
+                }
+            }
+        }
+
+        int changes = added.size() + replaced.size() + removed.size();
+        if (changes == 0) {
+            return 0;
+        }
+        draft.publish();
+
+        for (Product product : removed) {
+            lowStockTracker.remove(product.getProductID());
+            expirationIndex.remove(product.getProductID());
+        }
+        for (Product product : added) {
+            lowStockTracker.update(product);
+            expirationIndex.add(product);
+        }
+        for (Product product : replaced) {
+            lowStockTracker.update(product);
+            expirationIndex.add(product);
+        }
+        return changes;
+    }
+
+    /**
+     * Puts an edited product in the place of the current one, carrying the stock forward.
+     */
+    private synchronized void replaceProduct(Product updatedProduct) {
+        int productID = updatedProduct.getProductID();
+        Product existing = getProduct(productID);
+        if (existing != null) {
+            updatedProduct.setStock(existing.getStock());
+        }
+
+        Draft draft = new Draft();
+        draft.replace(updatedProduct);
+        draft.publish();
+
+        lowStockTracker.remove(productID);
+        lowStockTracker.update(updatedProduct);
+        expirationIndex.remove(productID);
+        expirationIndex.add(updatedProduct);
+    }
+
+    /**
+     * Checks if a loaded product differs from the current one in its details or stock.
+     */
+    private static boolean differs(Product existing, Product loaded) {
+        return !Objects.equals(existing.getName(), loaded.getName())
+                || existing.getPrice() != loaded.getPrice()
+                || !Objects.equals(existing.getBrand(), loaded.getBrand())
+                || !Objects.equals(existing.getVariant(), loaded.getVariant())
+                || !Objects.equals(existing.getExpirationDate(), loaded.getExpirationDate())
+                || existing.getCategory() != loaded.getCategory()
+                || existing.getStock() != loaded.getStock();
+    }
+
+    /**
+     * Builds a complete set of products and shelves into a new version and publishes it.
+     */
+    private void install(List<Product> products, List<Shelf> shelves) {
+        Map<Category, Integer> shelfPositions = new HashMap<>();
+        for (int i = 0; i < shelves.size(); i++) {
+            shelfPositions.putIfAbsent(shelves.get(i).getCategory(), i);
+        }
+
+        Draft draft = new Draft(new InventorySnapshot(current.get().getVersion(), new ProductList(),
+                shelves, shelfPositions), true);
+        for (Product product : products) {
+            draft.add(product);
+        }
+        draft.publish();
+
+        // Diffed rather than cleared, so listeners hear only about real changes.
+        // Only products that were low or are below the highest threshold can be low now.
+        lowStockTracker.retainAll(current.get().getProductIndex());
+        for (Product tracked : lowStockTracker.getLowStockProducts()) {
+            lowStockTracker.update(getProduct(tracked.getProductID()));
+        }
+        int highest = lowStockTracker.getHighestThreshold();
+        for (Product product : findProducts(c -> c.findLowStock(highest))) {
+            lowStockTracker.update(product);
+        }
+
+        expirationIndex.clear();
+        for (Product product : findProducts(c -> c.findExpiring(Long.MIN_VALUE, Long.MAX_VALUE))) {
+            expirationIndex.add(product);
+        }
+    }
+
+    /**
+     * Runs a scan over the catalog and returns the current products of the rows it
+     * found. The version is read under the catalog's monitor, so it is never older
+     * than the catalog and every row found has a product.
+     */
+    private List<Product> findProducts(Function<Catalog, int[]> scan) {
+        synchronized (catalog) {
+            InventorySnapshot snapshot = current.get();
+            int[] rows = scan.apply(catalog);
+            List<Product> products = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                Product product = snapshot.getProduct(catalog.getProductID(row));
+                if (product != null) {
+                    products.add(product);
+                }
+            }
+            return products;
+        }
+    }
+
+    private void notifyStockChanged(int productID, int delta) {
+        Product product = getProduct(productID);
+        lowStockTracker.update(product);
+        if (product != null) {
+            synchronized (catalog) {
+                catalog.setStock(productID, product.getStock()); // read here, so the last writer has the latest
+            }
+        }
+        if (stockChangeListener != null) {
+            stockChangeListener.onStockChanged(productID, delta);
+        }
+        savedChanges.incrementAndGet(); // counted once the change is queued for the files
+    }
+
+    /**
+     * The next version while a change builds it. The product list is a copy that
+     * shares structure with the published one, and so is each shelf the change
+     * touches; the shelf list and category positions are copied only if a shelf
+     * changes. Nothing here is seen by readers until {@link #publish()}, which
+     * also copies the changed products into the catalog.
+     */
+    private final class Draft {
+        private final InventorySnapshot base;
+        private final boolean replacesAll; // built from an empty version rather than the published one
+        private final ProductList products;
+        private final Map<Integer, Product> changed; // null for a removed product
+        private List<Shelf> shelves;
+        private Map<Category, Integer> shelfPositions;
+        private boolean shelvesCopied;
+        private boolean positionsCopied;
+        private final Set<Shelf> copied; // shelves made for this version, safe to change
+
+        Draft() {
+            this(current.get(), false);
+        }
+
+        Draft(InventorySnapshot base, boolean replacesAll) {
+            this.base = base;
+            this.replacesAll = replacesAll;
+            this.products = base.getProductList().copy();
+            this.changed = new LinkedHashMap<>();
+            this.shelves = base.getShelves();
+            this.shelfPositions = base.getShelfPositions();
+            this.copied = new HashSet<>();
+        }
+
+        Product get(int productID) {
+            return products.get(productID);
+        }
+
+        /**
+         * Adds a product to the catalog, or puts it in the place of the product
+         * with its ID. Shelves are left alone.
+         */
+        void add(Product product) {
+            products.put(product);
+            record(product.getProductID(), product);
+        }
+
+        /**
+         * Puts a product in the place of the product with its ID, keeping its
+         * catalog position, and moves it to the shelf for its category.
+         *
+         * @return the product replaced, or null if the ID was new
+         */
+        Product replace(Product product) {
+            Product existing = get(product.getProductID());
+            products.put(product);
+            record(product.getProductID(), product);
+            if (existing != null && existing.getCategory() != product.getCategory()) {
+                unshelve(existing);
+            }
+            shelve(product); // takes the old one's place if it stays on the same shelf
+            return existing;
+        }
+
+        /**
+         * Removes a product from the catalog and from the shelf for its category.
+         *
+         * @return the product removed, or null if there was none with the ID
+         */
+        Product remove(int productID) {
+            Product existing = products.remove(productID);
+            if (existing != null) {
+                unshelve(existing);
+                record(productID, null);
+            }
+            return existing;
+        }
+
+        void shelve(Product product) {
+            writableShelf(product.getCategory()).addProduct(product);
+        }
+
+        void addShelf(Shelf shelf) {
+            shelves().add(shelf);
+            if (!shelfPositions.containsKey(shelf.getCategory())) {
+                positions().put(shelf.getCategory(), shelves.size() - 1);
+            }
+        }
+
+        void publish() {
+            current.set(new InventorySnapshot(base.getVersion() + 1, products, shelves, shelfPositions));
+
+            synchronized (catalog) {
+                if (replacesAll) {
+                    catalog.clear();
+                    for (Product product : products.toList()) {
+                        catalog.put(product);
+                    }
+                    return;
+                }
+                for (Map.Entry<Integer, Product> change : changed.entrySet()) {
+                    if (change.getValue() != null) {
+                        catalog.put(change.getValue());
+                    } else {
+                        catalog.remove(change.getKey());
+                    }
+                }
+            }
+        }
+
+        private void record(int productID, Product product) {
+            if (!replacesAll) {
+                changed.put(productID, product);
+            }
+        }
+
+        private void unshelve(Product product) {
+            if (shelfPositions.containsKey(product.getCategory())) {
+                writableShelf(product.getCategory()).removeProduct(product.getProductID());
+            }
+        }
+
+        /**
+         * Returns the shelf for a category in a form that may be changed: a shelf
+         * already copied for this version, a copy of the published one, or a new
+         * shelf. Published shelves are never changed.
+         */
+        private Shelf writableShelf(Category category) {
+            Integer position = shelfPositions.get(category);
+            if (position == null) {
+                Shelf shelf = new Shelf(category);
+                shelves().add(shelf);
+                positions().put(category, shelves.size() - 1);
+                copied.add(shelf);
+                return shelf;
+            }
+
+            Shelf shelf = shelves.get(position);
+            if (!copied.contains(shelf)) {
+                shelf = shelf.copy();
+                shelves().set(position, shelf);
+                copied.add(shelf);
+            }
+            return shelf;
+        }
+
+        private List<Shelf> shelves() {
+            if (!shelvesCopied) {
+                shelves = new ArrayList<>(shelves);
+                shelvesCopied = true;
+            }
+            return shelves;
+        }
+
+        private Map<Category, Integer> positions() {
+            if (!positionsCopied) {
+                shelfPositions = new HashMap<>(shelfPositions);
+                positionsCopied = true;
+            }
+            return shelfPositions;
+        }
     }
 }
\ No newline at end of file
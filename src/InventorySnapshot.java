@@ -0,0 +1,106 @@
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * InventorySnapshot is one published version of the inventory: the product list,
+ * the shelves and the product ID index exactly as they were when the version was
+ * built. A snapshot is never changed once the Inventory publishes it, so any number
+ * of readers can walk it without locks and always see a complete catalog; the
+ * Inventory builds a new snapshot for every change and swaps it in atomically.
+ *
+ * Versions fix which products exist, their details and where they are shelved.
+ * A product whose details change is replaced by a new Product object in the next
+ * version. Stock levels are not part of a version: Product objects are shared
+ * between versions and their stock is updated in place as sales and restocks happen.
+ *
+ * The product list, its ID index and the shelves share all but the changed parts
+ * with the previous version, so publishing a change does not copy the catalog.
+ * The product list is turned into a {@link List} the first time a reader asks for it.
+ *
+ * @author Joreve P. De Jesus
+ */
+class InventorySnapshot {
+    private final long version;
+    private final ProductList productList;
+    private final List<Shelf> shelves;
+    private final Map<Category, Integer> shelfPositions;
+    private volatile List<Product> products; // built on first use
+
+    /**
+     * Constructs a snapshot. The lists, shelves, map and index passed in belong to
+     * the snapshot from now on and must not be changed by the caller.
+     *
+     * @param version the version number
+     * @param productList the products, in catalog order
+     * @param shelves the shelves, in display order
+     * @param shelfPositions the position in shelves of the shelf for each category
+     */
+    InventorySnapshot(long version, ProductList productList, List<Shelf> shelves,
+                      Map<Category, Integer> shelfPositions) {
+        this.version = version;
+        this.productList = productList;
+        this.shelves = Collections.unmodifiableList(shelves);
+        this.shelfPositions = shelfPositions;
+    }
+
+    /**
+     * Returns the version number. Each published change increases it by one.
+     *
+     * @return the version number
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the products in catalog order.
+     *
+     * @return a read-only list of the products
+     */
+    public List<Product> getProducts() {
+        List<Product> list = products;
+        if (list == null) {
+            list = Collections.unmodifiableList(productList.toList());
+            products = list; // a race only builds the same list twice
+        }
+        return list;
+    }
+
+    public List<Shelf> getShelves() {
+        return shelves;
+    }
+
+    /**
+     * Finds the shelf that holds a category.
+     *
+     * @param category The category of the shelf.
+     * @return The shelf, or null if there is no shelf for that category.
+     */
+    public Shelf getShelf(Category category) {
+        Integer position = shelfPositions.get(category);
+        return position != null ? shelves.get(position) : null;
+    }
+
+    /**
+     * Finds a product by ID.
+     *
+     * @param productID The ID of the product.
+     * @return The product, or null if it is not in this version.
+     */
+    public Product getProduct(int productID) {
+        return productList.get(productID);
+    }
+
+    IntProductIndex getProductIndex() {
+        return productList.getIndex();
+    }
+
+    ProductList getProductList() {
+        return productList;
+    }
+
+    Map<Category, Integer> getShelfPositions() {
+        return shelfPositions;
+    }
+}
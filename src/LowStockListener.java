@@ -0,0 +1,22 @@
+/**
+ * LowStockListener is told when a product falls below its low-stock threshold
+ * or is brought back above it.
+ *
+ * @author Joreve P. De Jesus
+ */
+public interface LowStockListener {
+    /**
+     * Called when a product's stock drops below its threshold.
+     *
+     * @param product the product that is now low on stock
+     */
+    void onLowStock(Product product);
+
+    /**
+     * Called when a product is restocked to its threshold or above,
+     * or removed from the inventory while low on stock.
+     *
+     * @param product the product that is no longer low on stock
+     */
+    void onStockRecovered(Product product);
+}
@@ -0,0 +1,213 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * LowStockTracker keeps the set of products whose stock is below their low-stock
+ * threshold. It is updated only for the product whose stock just changed, so reading
+ * the alert list costs the size of the list rather than the size of the catalog.
+ *
+ * A product's threshold is, in order of precedence: its own threshold, the threshold
+ * of its category, or DEFAULT_THRESHOLD. Listeners are told whenever a product
+ * enters or leaves the set.
+ *
+ * @author Joreve P. De Jesus
+ */
+public class LowStockTracker {
+    public static final int DEFAULT_THRESHOLD = 5;
+
+    private final Map<Integer, Product> lowStock;
+    private final Map<Integer, Integer> productThresholds;
+    private final Map<Category, Integer> categoryThresholds;
+    private final List<LowStockListener> listeners;
+
+    /**
+     * Constructs an empty LowStockTracker.
+     */
+    public LowStockTracker() {
+        this.lowStock = new LinkedHashMap<>();
+        this.productThresholds = new HashMap<>();
+        this.categoryThresholds = new HashMap<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Re-checks one product after its stock (or threshold) changed.
+     *
+     * @param product the product to check
+     */
+    public void update(Product product) {
+        if (product == null) {
+            return;
+        }
+
+        Boolean entered = null;
+        synchronized (this) {
+            boolean low = product.getStock() < getThreshold(product);
+            Product tracked = lowStock.get(product.getProductID());
+
+            if (low && tracked != product) {
+                lowStock.put(product.getProductID(), product);
+                entered = tracked == null ? Boolean.TRUE : null; // replacing a reloaded copy is not news
+            } else if (!low && tracked != null) {
+                lowStock.remove(product.getProductID());
+                entered = Boolean.FALSE;
+            }
+        }
+        fire(product, entered);
+    }
+
+    /**
+     * Stops tracking a product, for example when it is removed from the inventory.
+     *
+     * @param productID the ID of the product
+     */
+    public void remove(int productID) {
+        Product removed;
+        synchronized (this) {
+            removed = lowStock.remove(productID);
+        }
+        if (removed != null) {
+            fire(removed, Boolean.FALSE);
+        }
+    }
+
+    /**
+     * Stops tracking the products that are no longer in the catalog, telling the
+     * listeners they left the set. Used when the whole catalog is replaced; the
+     * products still in it are then re-checked with {@link #update(Product)}, which
+     * reports only those whose state changed.
+     *
+     * @param catalog the products of the new catalog by ID
+     */
+    public void retainAll(IntProductIndex catalog) {
+        List<Product> removed = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Product> tracked = lowStock.values().iterator();
+            while (tracked.hasNext()) {
+                Product product = tracked.next();
+                if (!catalog.contains(product.getProductID())) {
+                    tracked.remove();
+                    removed.add(product);
+                }
+            }
+        }
+        for (Product product : removed) {
+            fire(product, Boolean.FALSE);
+        }
+    }
+
+    /**
+     * Returns the products that are currently low on stock, in the order they became low.
+     *
+     * @return a copy of the low-stock set
+     */
+    public synchronized ArrayList<Product> getLowStockProducts() {
+        return new ArrayList<>(lowStock.values());
+    }
+
+    /**
+     * Checks if a product is currently low on stock.
+     *
+     * @param productID the ID of the product
+     * @return true if the product is in the low-stock set
+     */
+    public synchronized boolean isLowStock(int productID) {
+        return lowStock.containsKey(productID);
+    }
+
+    /**
+     * Returns the threshold that applies to a product.
+     *
+     * @param product the product
+     * @return stock below this number counts as low
+     */
+    public synchronized int getThreshold(Product product) {
+        Integer threshold = productThresholds.get(product.getProductID());
+        if (threshold == null) {
+            threshold = categoryThresholds.get(product.getCategory());
+        }
+        return threshold != null ? threshold : DEFAULT_THRESHOLD;
+    }
+
+    /**
+     * Returns the highest threshold in use. No product with at least this much
+     * stock can be low.
+     *
+     * @return the highest product, category or default threshold
+     */
+    public synchronized int getHighestThreshold() {
+        int highest = DEFAULT_THRESHOLD;
+        for (int threshold : productThresholds.values()) {
+            highest = Math.max(highest, threshold);
+        }
+        for (int threshold : categoryThresholds.values()) {
+            highest = Math.max(highest, threshold);
+        }
+        return highest;
+    }
+
+    /**
+     * Sets the threshold for one product. The caller re-checks the product with {@link #update(Product)}.
+     *
+     * @param productID the ID of the product
+     * @param threshold stock below this number counts as low, or a negative number to clear it
+     */
+    public synchronized void setProductThreshold(int productID, int threshold) {
+        if (threshold < 0) {
+            productThresholds.remove(productID);
+        } else {
+            productThresholds.put(productID, threshold);
+        }
+    }
+
+    /**
+     * Sets the threshold for every product in a category that has no threshold of its own.
+     * The caller re-checks the category's products with {@link #update(Product)}.
+     *
+     * @param category the category
+     * @param threshold stock below this number counts as low, or a negative number to clear it
+     */
+    public synchronized void setCategoryThreshold(Category category, int threshold) {
+        if (threshold < 0) {
+            categoryThresholds.remove(category);
+        } else {
+            categoryThresholds.put(category, threshold);
+        }
+    }
+
+    /**
+     * Registers a listener for products entering or leaving the low-stock set.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(LowStockListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(LowStockListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fire(Product product, Boolean entered) {
+        if (entered == null) {
+            return;
+        }
+        for (LowStockListener listener : listeners) {
+            if (entered) {
+                listener.onLowStock(product);
+            } else {
+                listener.onStockRecovered(product);
+            }
+        }
+    }
+}
@@ -5,9 +5,6 @@
  *  Section         : S12
  *  Last Modified   : November 26, 2025
  ******************************************************************************/
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
@@ -19,6 +16,7 @@ import javafx.stage.Stage;
  * @author Dana Ysabelle A. Pelagio and Joreve P. De Jesus
  */
 public class MainApplication extends Application {
+    private static final long CART_RESERVATION_TIMEOUT_MILLIS = 30 * 60 * 1000; // idle carts give stock back
     
     private Stage primaryStage;
     private DataManager dataManager;
@@ -44,33 +42,58 @@ public class MainApplication extends Application {
         // Initialize data and store
         dataManager = new DataManager();
         initializeStore();
+        watchDataDirectory();
         
         // Show login
         showLoginView();
         primaryStage.show();
     }
     
+    /**
+     * Flushes pending data to disk when the application closes,
+     * then saves a startup snapshot for the next launch.
+     */
+    @Override
+    public void stop() {
+        if (store != null) {
+            store.getInventory().getReservations().stopExpiryTimer();
+            store.getInventory().getExpirationIndex().stopRolloverTimer();
+        }
+        if (dataManager != null) {
+            dataManager.close();
+            if (store != null) {
+                dataManager.saveStartupSnapshot(store.getInventory());
+            }
+        }
+    }
+    
     /**
      * Initializes the store with products loaded from file.
      */
     private void initializeStore() {
         store = new ConvenienceStore("11-Seven", "Taft");
         Inventory inventory = store.getInventory();
-        List<Product> loadedProducts = dataManager.loadProducts();
-        Map<String, Shelf> shelfMap = new HashMap<>();
+        inventory.setStockChangeListener(dataManager::recordStockChange);
+        inventory.getReservations().startExpiryTimer(CART_RESERVATION_TIMEOUT_MILLIS);
+        inventory.getExpirationIndex().startRolloverTimer();
+        dataManager.loadStockThresholds(inventory);
+        store.setPricingEngine(new PricingEngine(dataManager.loadPricingRules()));
 
-        for (Product product : loadedProducts) {
-            store.getInventory().addProduct(product);
-            String key = product.getCategory().getName() + "-" + product.getCategory().getType();
-
-            if (!shelfMap.containsKey(key)) {
-                Shelf newShelf = new Shelf(product.getCategory());
-                shelfMap.put(key, newShelf);
-                inventory.addShelf(newShelf);
-            }
-
-            shelfMap.get(key).addProduct(product);
+        StartupSnapshot snapshot = dataManager.takeStartupSnapshot();
+        if (snapshot != null) {
+            inventory.restore(snapshot.getProducts(), snapshot.getShelves());
+            return;
         }
+
+        inventory.replaceProducts(dataManager.loadProducts());
+    }
+    
+    /**
+     * Starts picking up product edits made by other tools, if enabled.
+     */
+    private void watchDataDirectory() {
+        Inventory inventory = store.getInventory();
+        dataManager.watchProducts(() -> inventory.reload(dataManager::loadProducts));
     }
     
     // ==================== NAVIGATION METHODS ====================
@@ -137,8 +160,6 @@ public class MainApplication extends Application {
      * Shows the customer shopping view.
      */
     public void showCustomerView() {
-        reloadInventory();
-        
         // Create controller with dependencies
         ShoppingController shoppingController = new ShoppingController(
             currentCustomer, store,
@@ -170,6 +191,7 @@ public class MainApplication extends Application {
         // Create controller
         CartController cartController = new CartController(
             currentCustomer.getCart(),
+            store.getInventory(),
             this
         );
         
@@ -216,8 +238,6 @@ public class MainApplication extends Application {
      * Shows the employee dashboard view.
      */
     public void showEmployeeView() {
-        reloadInventory();
-        
         // Create controller
         EmployeeController employeeController = new EmployeeController(
             store,
@@ -243,43 +263,14 @@ public class MainApplication extends Application {
      * Logs out current user and returns to login screen.
      */
     public void logout() {
+        if (currentCustomer != null) {
+            store.getInventory().releaseReservations(currentCustomer.getCart());
+        }
         currentCustomer = null;
         currentEmployee = null;
         showLoginView();
     }
     
-    /**
-     * Reloads inventory from file to get latest stock levels.
-     */
-    private void reloadInventory() {
-        store.getInventory().getProducts().clear();
-        for (Shelf shelf : store.getInventory().getShelves()) {
-            shelf.getProducts().clear();
-        }
-        
-        List<Product> loadedProducts = dataManager.loadProducts();
-        Map<String, Shelf> shelfMap = new HashMap<>();
-        
-        for (Shelf shelf : store.getInventory().getShelves()) {
-            String key = shelf.getCategory().getName() + "-" + shelf.getCategory().getType();
-            shelfMap.put(key, shelf);
-        }
-        
-        for (Product product : loadedProducts) {
-            store.getInventory().addProduct(product);
-            
-            String key = product.getCategory().getName() + "-" + product.getCategory().getType();
-            
-            if (!shelfMap.containsKey(key)) {
-                Shelf newShelf = new Shelf(product.getCategory());
-                shelfMap.put(key, newShelf);
-                store.getInventory().addShelf(newShelf);
-            }
-            
-            shelfMap.get(key).addProduct(product);
-        }
-    }
-    
     public Stage getPrimaryStage() {
         return primaryStage;
     }
@@ -0,0 +1,508 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MappedProductStore keeps the product catalog as fixed-width binary records in a
+ * memory-mapped file, indexed by product ID. Stock and price are stored as plain
+ * numbers, so reading them needs no parsing and a restock or sale is a single
+ * in-place write of the stock field instead of a rewrite of the text file.
+ *
+ * File layout: a HEADER_SIZE byte header, room for {@code capacity} records of
+ * RECORD_SIZE bytes, then the string area. A record holds the live flag, product
+ * ID, stock, price in centavos and expiration epoch day, then the offset and
+ * length of the name, main category, sub-category, brand and variant, whose UTF-8
+ * bytes are kept in the string area. Text of any length is stored whole. When the
+ * records outgrow their room the string area is moved up, so string offsets are
+ * relative to its start. Strings replaced by an update stay in the area until the
+ * next {@link #replaceAll(List)}.
+ *
+ * @author Joreve P. De Jesus
+ */
+public class MappedProductStore {
+    private static final int MAGIC = 0x50524F44; // "PROD"
+    private static final int VERSION = 2; // 1 had fixed-width text fields and double prices
+    private static final int HEADER_SIZE = 32;
+    private static final int HEADER_SLOT_COUNT = 8;
+    private static final int HEADER_CAPACITY = 12;
+    private static final int HEADER_STRINGS_END = 16;
+
+    private static final int OFF_LIVE = 0;
+    private static final int OFF_ID = 4;
+    private static final int OFF_STOCK = 8;
+    private static final int OFF_PRICE = 16;
+    private static final int OFF_EXPIRY = 24;
+    private static final int OFF_NAME = 32;
+    private static final int OFF_MAIN_CATEGORY = 40;
+    private static final int OFF_SUB_CATEGORY = 48;
+    private static final int OFF_BRAND = 56;
+    private static final int OFF_VARIANT = 64;
+    private static final int RECORD_SIZE = 72;
+
+    // Version 1 layout, read once to convert an old file
+    private static final int V1_HEADER_SIZE = 16;
+    private static final int V1_TEXT_FIELDS = 32; // offset of the first text field
+    private static final int[] V1_TEXT_WIDTHS = {64, 32, 32, 32, 32}; // name, categories, brand, variant
+    private static final int V1_RECORD_SIZE = 234;
+
+    private static final long NO_EXPIRY = Long.MIN_VALUE;
+    private static final int NO_STRING = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_STRING_CAPACITY = 64 * 1024;
+
+    private final String filepath;
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;       // record slots before the string area
+    private int stringCapacity; // bytes in the string area
+    private int stringsEnd;     // bytes of the string area in use
+    private int slotCount;
+    private Map<Integer, Integer> slotsByID;
+
+    /**
+     * Constructs a MappedProductStore for the given file. Call {@link #open()} before use.
+     *
+     * @param filepath the path of the binary catalog file
+     */
+    public MappedProductStore(String filepath) {
+        this.filepath = filepath;
+        this.slotsByID = new HashMap<>();
+    }
+
+    /**
+     * Opens (or creates) the catalog file, maps it and builds the ID index.
+     *
+     * @return true if the store is ready, false if the file could not be opened
+     */
+    public synchronized boolean open() {
+        try {
+            file = new RandomAccessFile(filepath, "rw");
+            channel = file.getChannel();
+
+            List<Product> converted = null;
+            if (file.length() >= V1_HEADER_SIZE && readVersion() == 1) {
+                converted = readVersionOne();
+                file.setLength(0);
+            }
+
+            if (file.length() < HEADER_SIZE) {
+                capacity = INITIAL_CAPACITY;
+                stringCapacity = INITIAL_STRING_CAPACITY;
+                stringsEnd = 0;
+                slotCount = 0;
+                map();
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                writeHeader();
+            } else {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                    System.err.println("Unrecognized product store format: " + filepath);
+                    close();
+                    return false;
+                }
+                slotCount = buffer.getInt(HEADER_SLOT_COUNT);
+                capacity = buffer.getInt(HEADER_CAPACITY);
+                stringsEnd = buffer.getInt(HEADER_STRINGS_END);
+                stringCapacity = (int) (file.length() - stringsStart());
+                map();
+            }
+
+            if (converted != null) {
+                replaceAll(converted);
+            }
+
+            slotsByID.clear();
+            for (int slot = 0; slot < slotCount; slot++) {
+                int position = position(slot);
+                if (buffer.getInt(position + OFF_LIVE) == 1) {
+                    slotsByID.put(buffer.getInt(position + OFF_ID), slot);
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error opening product store: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Checks if the store holds no products.
+     *
+     * @return true if there are no live records
+     */
+    public synchronized boolean isEmpty() {
+        return slotsByID.isEmpty();
+    }
+
+    /**
+     * Checks if a product with the given ID is stored.
+     *
+     * @param productID the ID to check
+     * @return true if the product exists
+     */
+    public synchronized boolean contains(int productID) {
+        return slotsByID.containsKey(productID);
+    }
+
+    /**
+     * Reads the stock of a product directly from its record.
+     *
+     * @param productID the ID of the product
+     * @return the stock level, or -1 if the product does not exist
+     */
+    public synchronized int getStock(int productID) {
+        Integer slot = slotsByID.get(productID);
+        return slot != null ? buffer.getInt(position(slot) + OFF_STOCK) : -1;
+    }
+
+    /**
+     * Reads the price of a product directly from its record.
+     *
+     * @param productID the ID of the product
+     * @return the price, or null if the product does not exist
+     */
+    public synchronized Money getPrice(int productID) {
+        Integer slot = slotsByID.get(productID);
+        return slot != null ? Money.ofCentavos(buffer.getLong(position(slot) + OFF_PRICE)) : null;
+    }
+
+    /**
+     * Changes the stock of a product in place.
+     *
+     * @param productID the ID of the product
+     * @param delta the change in stock (negative for sales)
+     * @return true if the product exists and was updated
+     */
+    public synchronized boolean adjustStock(int productID, int delta) {
+        Integer slot = slotsByID.get(productID);
+        if (slot == null) {
+            return false;
+        }
+
+        int position = position(slot) + OFF_STOCK;
+        buffer.putInt(position, buffer.getInt(position) + delta);
+        return true;
+    }
+
+    /**
+     * Inserts a new product or overwrites the record of an existing one.
+     *
+     * @param product the product to store
+     */
+    public synchronized void put(Product product) {
+        Integer slot = slotsByID.get(product.getProductID());
+        boolean overwrite = slot != null;
+        if (slot == null) {
+            if (!ensureCapacity(slotCount + 1)) {
+                return;
+            }
+            slot = slotCount;
+            slotCount++;
+            slotsByID.put(product.getProductID(), slot);
+        }
+        writeRecord(position(slot), product, overwrite);
+        writeHeader();
+    }
+
+    /**
+     * Marks the record of a product as deleted.
+     *
+     * @param productID the ID of the product to remove
+     */
+    public synchronized void remove(int productID) {
+        Integer slot = slotsByID.remove(productID);
+        if (slot != null) {
+            buffer.putInt(position(slot) + OFF_LIVE, 0);
+        }
+    }
+
+    /**
+     * Replaces the whole catalog with the given products, dropping deleted records.
+     *
+     * @param products the products to store
+     */
+    public synchronized void replaceAll(List<Product> products) {
+        slotsByID.clear();
+        slotCount = 0;
+        stringsEnd = 0;
+        if (!ensureCapacity(products.size())) {
+            writeHeader();
+            return;
+        }
+
+        for (Product product : products) {
+            Integer slot = slotsByID.get(product.getProductID());
+            if (slot == null) {
+                slot = slotCount;
+                slotsByID.put(product.getProductID(), slot);
+                slotCount++;
+            }
+            writeRecord(position(slot), product, false);
+        }
+        writeHeader();
+    }
+
+    /**
+     * Builds Product objects for every live record, in storage order.
+     *
+     * @return the list of stored products
+     */
+    public synchronized List<Product> loadAll() {
+        List<Product> products = new ArrayList<>(slotsByID.size());
+
+        for (int slot = 0; slot < slotCount; slot++) {
+            int position = position(slot);
+            if (buffer.getInt(position + OFF_LIVE) == 1) {
+                products.add(readRecord(position));
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Flushes changes in the mapped region to disk.
+     */
+    public synchronized void force() {
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Flushes and closes the catalog file.
+     */
+    public synchronized void close() {
+        try {
+            force();
+            buffer = null;
+            if (file != null) {
+                file.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing product store: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes a product into a record. When the record already holds a product,
+     * strings that did not change keep their place in the string area.
+     */
+    private void writeRecord(int position, Product product, boolean overwrite) {
+        buffer.putInt(position + OFF_LIVE, 1);
+        buffer.putInt(position + OFF_ID, product.getProductID());
+        buffer.putInt(position + OFF_STOCK, product.getStock());
+        buffer.putLong(position + OFF_PRICE, product.getUnitPrice().getCentavos());
+        buffer.putLong(position + OFF_EXPIRY, product.getExpirationDate() != null
+                ? product.getExpirationDate().toEpochDay() : NO_EXPIRY);
+        writeString(position + OFF_NAME, product.getName(), overwrite);
+        writeString(position + OFF_MAIN_CATEGORY, product.getCategory().getName(), overwrite);
+        writeString(position + OFF_SUB_CATEGORY, product.getCategory().getType(), overwrite);
+        writeString(position + OFF_BRAND, product.getBrand(), overwrite);
+        writeString(position + OFF_VARIANT, product.getVariant(), overwrite);
+    }
+
+    private Product readRecord(int position) {
+        long expiry = buffer.getLong(position + OFF_EXPIRY);
+        Category category = Category.of(readString(position + OFF_MAIN_CATEGORY),
+                                        readString(position + OFF_SUB_CATEGORY));
+
+        Product product = new Product(buffer.getInt(position + OFF_ID),
+                                      readString(position + OFF_NAME),
+                                      0,
+                                      buffer.getInt(position + OFF_STOCK),
+                                      category,
+                                      readString(position + OFF_BRAND),
+                                      readString(position + OFF_VARIANT),
+                                      expiry != NO_EXPIRY ? LocalDate.ofEpochDay(expiry) : null);
+        product.setUnitPrice(Money.ofCentavos(buffer.getLong(position + OFF_PRICE)));
+        return product;
+    }
+
+    /**
+     * Stores a string in the string area and points a record field at it.
+     * If reuse is set and the field already points at the same text, it is kept.
+     */
+    private void writeString(int field, String value, boolean reuse) {
+        if (value == null) {
+            buffer.putInt(field, 0);
+            buffer.putInt(field + 4, NO_STRING);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (reuse && stringEquals(field, bytes)) {
+            return;
+        }
+        if (!ensureStringCapacity(stringsEnd + bytes.length)) {
+            buffer.putInt(field, 0);
+            buffer.putInt(field + 4, NO_STRING);
+            return;
+        }
+
+        int start = stringsStart() + stringsEnd;
+        for (int i = 0; i < bytes.length; i++) {
+            buffer.put(start + i, bytes[i]);
+        }
+        buffer.putInt(field, stringsEnd);
+        buffer.putInt(field + 4, bytes.length);
+        stringsEnd += bytes.length;
+    }
+
+    private boolean stringEquals(int field, byte[] bytes) {
+        int offset = buffer.getInt(field);
+        int length = buffer.getInt(field + 4);
+        if (length != bytes.length || offset < 0 || offset + length > stringsEnd) {
+            return false;
+        }
+        int start = stringsStart() + offset;
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readString(int field) {
+        int length = buffer.getInt(field + 4);
+        if (length == NO_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        int start = stringsStart() + buffer.getInt(field);
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Makes room for at least the given number of records, moving the string area up.
+     *
+     * @return false if the file could not be grown
+     */
+    private boolean ensureCapacity(int slots) {
+        if (slots <= capacity) {
+            return true;
+        }
+
+        int oldStart = stringsStart();
+        int oldCapacity = capacity;
+        try {
+            capacity = Math.max(capacity * 2, slots);
+            map();
+        } catch (IOException | RuntimeException e) {
+            capacity = oldCapacity;
+            System.err.println("Error growing product store: " + e.getMessage());
+            return false;
+        }
+
+        // Move the strings in use, last byte first since the areas may overlap
+        int newStart = stringsStart();
+        for (int i = stringsEnd - 1; i >= 0; i--) {
+            buffer.put(newStart + i, buffer.get(oldStart + i));
+        }
+        writeHeader();
+        return true;
+    }
+
+    /**
+     * Makes the string area at least the given number of bytes long.
+     *
+     * @return false if the file could not be grown
+     */
+    private boolean ensureStringCapacity(long bytes) {
+        if (bytes <= stringCapacity) {
+            return true;
+        }
+
+        int oldCapacity = stringCapacity;
+        try {
+            stringCapacity = (int) Math.min(Math.max(stringCapacity * 2L, bytes), Integer.MAX_VALUE - stringsStart());
+            if (bytes > stringCapacity) {
+                throw new IOException("string area is full");
+            }
+            map();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            stringCapacity = oldCapacity;
+            System.err.println("Error growing product store: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void writeHeader() {
+        buffer.putInt(HEADER_SLOT_COUNT, slotCount);
+        buffer.putInt(HEADER_CAPACITY, capacity);
+        buffer.putInt(HEADER_STRINGS_END, stringsEnd);
+    }
+
+    private void map() throws IOException {
+        long size = stringsStart() + (long) stringCapacity;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("catalog file would exceed 2 GB");
+        }
+        if (file.length() < size) {
+            file.setLength(size);
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private int position(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private int stringsStart() {
+        return HEADER_SIZE + capacity * RECORD_SIZE;
+    }
+
+    private int readVersion() throws IOException {
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, V1_HEADER_SIZE);
+        return header.getInt(0) == MAGIC ? header.getInt(4) : -1;
+    }
+
+    /**
+     * Reads the live products of a version 1 file, whose text fields were
+     * length-prefixed and of fixed width and whose prices were doubles.
+     */
+    private List<Product> readVersionOne() throws IOException {
+        MappedByteBuffer old = channel.map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+        int count = old.getInt(8);
+        List<Product> products = new ArrayList<>(count);
+
+        for (int slot = 0; slot < count; slot++) {
+            int position = V1_HEADER_SIZE + slot * V1_RECORD_SIZE;
+            if (old.getInt(position + OFF_LIVE) != 1) {
+                continue;
+            }
+            String[] text = new String[V1_TEXT_WIDTHS.length];
+            int field = position + V1_TEXT_FIELDS;
+            for (int i = 0; i < text.length; i++) {
+                byte[] bytes = new byte[old.getShort(field)];
+                for (int j = 0; j < bytes.length; j++) {
+                    bytes[j] = old.get(field + 2 + j);
+                }
+                text[i] = new String(bytes, StandardCharsets.UTF_8);
+                field += 2 + V1_TEXT_WIDTHS[i];
+            }
+
+            long expiry = old.getLong(position + OFF_EXPIRY);
+            products.add(new Product(old.getInt(position + OFF_ID), text[0],
+                    old.getDouble(position + OFF_PRICE), old.getInt(position + OFF_STOCK),
+                    Category.of(text[1], text[2]),
+                    text[3].isEmpty() ? null : text[3],
+                    text[4].isEmpty() ? null : text[4],
+                    expiry != NO_EXPIRY ? LocalDate.ofEpochDay(expiry) : null));
+        }
+        return products;
+    }
+}
@@ -7,6 +7,8 @@
  * @author Dana Ysabelle A. Pelagio
  */
 public class MembershipCard {
+    private static final Money PESOS_PER_POINT = Money.ofPesos(50);
+
     private String cardNumber;
     private int points;
 
@@ -24,11 +26,11 @@ public class MembershipCard {
     /**
      * Adds points based on the purchase amount.
      * For every P50 spent, 1 point is awarded.
-     * @param amount the purchase amount in pesos
+     * @param amount the purchase amount
      */
-    public void addPoints(double amount) {
-        if (amount > 0) {
-            int earnedPoints = (int) (amount / 50);
+    public void addPoints(Money amount) {
+        if (amount.isPositive()) {
+            int earnedPoints = (int) (amount.getCentavos() / PESOS_PER_POINT.getCentavos());
             points += earnedPoints;
         }
     }
@@ -39,13 +41,13 @@ public class MembershipCard {
      * @param pointsToUse the number of points to redeem
      * @return the discount amount in pesos
      */
-    public double redeemPoints(int pointsToUse) {
+    public Money redeemPoints(int pointsToUse) {
         if (pointsToUse <= 0 || pointsToUse > points) {
-            return 0.0;
+            return Money.ZERO;
         }
 
         points -= pointsToUse;
-        return pointsToUse; // 1 point = 1 peso
+        return Money.ofPesos(pointsToUse); // 1 point = 1 peso
     }
 
     /**
@@ -53,8 +55,8 @@ public class MembershipCard {
      * Does not redeem the points.
      * @return the maximum discount amount available
      */
-    public double getDiscount() {
-        return points; // 1 point = 1 peso
+    public Money getDiscount() {
+        return Money.ofPesos(points); // 1 point = 1 peso
     }
 
     public int getPoints() {
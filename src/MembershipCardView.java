@@ -139,8 +139,8 @@ public class MembershipCardView extends VBox {
                 return;
             }
 
-            double discount = membershipCard.redeemPoints(pointsToRedeem);
-            redeemResultLabel.setText(String.format("Redeemed! You got ₱%.2f discount", discount));
+            Money discount = membershipCard.redeemPoints(pointsToRedeem);
+            redeemResultLabel.setText("Redeemed! You got ₱" + discount + " discount");
             redeemResultLabel.setStyle("-fx-text-fill: #90EE90;");
 
             // Refresh display
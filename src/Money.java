@@ -0,0 +1,269 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Money is an exact amount of pesos, kept as a whole number of centavos in a long.
+ * Adding, subtracting and multiplying by a quantity are exact, so totals, VAT and
+ * change come out to the centavo with no floating-point drift, and summing many
+ * amounts is plain integer arithmetic.
+ *
+ * Percentages are given in basis points (1/100 of a percent, so 12% is 1200).
+ * A percentage of an amount is rounded to the nearest centavo, with half a
+ * centavo rounded away from zero; this is the only place rounding happens.
+ *
+ * Money is immutable.
+ *
+ * @author Dana Ysabelle A. Pelagio
+ */
+public final class Money implements Comparable<Money> {
+    /** Zero pesos. */
+    public static final Money ZERO = new Money(0);
+
+    private static final int CENTAVOS_PER_PESO = 100;
+    private static final int BASIS_POINTS = 10000;
+
+    private final long centavos;
+
+    private Money(long centavos) {
+        this.centavos = centavos;
+    }
+
+    /**
+     * Returns an amount of centavos.
+     *
+     * @param centavos the number of centavos
+     * @return the amount
+     */
+    public static Money ofCentavos(long centavos) {
+        return centavos == 0 ? ZERO : new Money(centavos);
+    }
+
+    /**
+     * Returns a whole number of pesos.
+     *
+     * @param pesos the number of pesos
+     * @return the amount
+     */
+    public static Money ofPesos(long pesos) {
+        return ofCentavos(Math.multiplyExact(pesos, CENTAVOS_PER_PESO));
+    }
+
+    /**
+     * Converts a peso amount held as a double, such as a price read from a data
+     * file, rounding it to the nearest centavo.
+     *
+     * @param pesos the amount in pesos
+     * @return the amount
+     */
+    public static Money of(double pesos) {
+        return ofCentavos(Math.round(pesos * CENTAVOS_PER_PESO));
+    }
+
+    /**
+     * Parses an amount typed as pesos, such as "150", "150.5" or "-3.25",
+     * without going through a double. More than two decimals are rounded
+     * half away from zero.
+     *
+     * @param text the amount
+     * @return the amount
+     * @throws NumberFormatException if the text is not a decimal number
+     */
+    public static Money parse(String text) {
+        String value = text.trim();
+        int start = 0;
+        boolean negative = false;
+        if (!value.isEmpty() && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+            negative = value.charAt(0) == '-';
+            start = 1;
+        }
+
+        long pesos = 0;
+        long centavos = 0;
+        int digits = 0;
+        int decimals = -1;
+        boolean roundUp = false;
+        for (int i = start; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (c >= '0' && c <= '9') {
+                digits++;
+                if (decimals < 0) {
+                    pesos = Math.addExact(Math.multiplyExact(pesos, 10), c - '0');
+                } else if (decimals < 2) {
+                    centavos = centavos * 10 + (c - '0');
+                    decimals++;
+                } else if (decimals == 2) {
+                    roundUp = c >= '5';
+                    decimals++;
+                }
+            } else {
+                throw new NumberFormatException("Not an amount: \"" + text + "\"");
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Not an amount: \"" + text + "\"");
+        }
+
+        if (decimals == 1) {
+            centavos *= 10;
+        }
+        long total = Math.addExact(Math.multiplyExact(pesos, CENTAVOS_PER_PESO), centavos + (roundUp ? 1 : 0));
+        return ofCentavos(negative ? -total : total);
+    }
+
+    /**
+     * Reads an amount written by {@link #write(DataOutput)}.
+     *
+     * @param in the stream to read from
+     * @return the amount
+     * @throws IOException if reading fails
+     */
+    public static Money read(DataInput in) throws IOException {
+        long zigzag = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 63) {
+                throw new IOException("Malformed amount");
+            }
+            b = in.readUnsignedByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return ofCentavos((zigzag >>> 1) ^ -(zigzag & 1));
+    }
+
+    /**
+     * Reads an amount written by {@link #write(DataOutput)} from a buffer,
+     * such as a mapped file.
+     *
+     * @param in the buffer to read from, at the amount's first byte
+     * @return the amount
+     * @throws IOException if the amount is malformed
+     */
+    public static Money read(ByteBuffer in) throws IOException {
+        long zigzag = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 63) {
+                throw new IOException("Malformed amount");
+            }
+            b = in.get() & 0xFF;
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return ofCentavos((zigzag >>> 1) ^ -(zigzag & 1));
+    }
+
+    /**
+     * Writes the amount as a variable-length number of centavos: zigzag-encoded,
+     * seven bits per byte. Amounts under P81.92 either way take two bytes, under
+     * P10,485.76 three, and under P1,342,177.28 four.
+     *
+     * @param out the stream to write to
+     * @throws IOException if writing fails
+     */
+    public void write(DataOutput out) throws IOException {
+        long zigzag = (centavos << 1) ^ (centavos >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.writeByte((int) (zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        out.writeByte((int) zigzag);
+    }
+
+    public long getCentavos() {
+        return centavos;
+    }
+
+    /**
+     * Returns the amount in pesos as a double, for display and for code that
+     * still keeps prices as doubles. Do not do arithmetic on the result.
+     *
+     * @return the amount in pesos
+     */
+    public double doubleValue() {
+        return (double) centavos / CENTAVOS_PER_PESO;
+    }
+
+    public Money plus(Money other) {
+        return ofCentavos(Math.addExact(centavos, other.centavos));
+    }
+
+    public Money minus(Money other) {
+        return ofCentavos(Math.subtractExact(centavos, other.centavos));
+    }
+
+    public Money times(int quantity) {
+        return ofCentavos(Math.multiplyExact(centavos, quantity));
+    }
+
+    /**
+     * Returns a percentage of the amount, rounded to the nearest centavo with
+     * half a centavo rounded away from zero.
+     *
+     * @param basisPoints the percentage in basis points (1200 for 12%)
+     * @return the percentage of the amount
+     */
+    public Money percent(int basisPoints) {
+        long product = Math.multiplyExact(centavos, basisPoints);
+        long half = product < 0 ? -BASIS_POINTS / 2 : BASIS_POINTS / 2;
+        return ofCentavos((product + half) / BASIS_POINTS);
+    }
+
+    public Money min(Money other) {
+        return centavos <= other.centavos ? this : other;
+    }
+
+    public Money max(Money other) {
+        return centavos >= other.centavos ? this : other;
+    }
+
+    public boolean isZero() {
+        return centavos == 0;
+    }
+
+    public boolean isNegative() {
+        return centavos < 0;
+    }
+
+    public boolean isPositive() {
+        return centavos > 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return centavos < other.centavos;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(centavos, other.centavos);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money && ((Money) other).centavos == centavos;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centavos);
+    }
+
+    /**
+     * Formats the amount as pesos with two decimals and no grouping, such as
+     * "1234.50" or "-0.05". The result does not depend on the locale.
+     *
+     * @return the formatted amount
+     */
+    @Override
+    public String toString() {
+        long abs = Math.abs(centavos);
+        long fraction = abs % CENTAVOS_PER_PESO;
+        return (centavos < 0 ? "-" : "") + (abs / CENTAVOS_PER_PESO) + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
@@ -0,0 +1,317 @@
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * OffHeapCatalog keeps the product catalog in direct (off-heap) memory, so a store
+ * with millions of products does not fill the Java heap with small Product, String
+ * and LocalDate objects that the garbage collector has to trace on every pause.
+ * Each product is one fixed-width record; names, brands and variants are stored as
+ * handles into a {@link StringPool}, so repeated text is kept once.
+ *
+ * Record layout (RECORD_SIZE bytes each):
+ * product ID, stock, price in centavos, expiration epoch day, category ID, then the
+ * pool handles of the name, brand and variant.
+ *
+ * Rows are kept dense: removing a product moves the last record into its place.
+ * Product IDs are mapped to rows by an open-addressing table of row numbers like
+ * the one in {@link ColumnarCatalog}; it is a single int array, so it adds no
+ * per-product objects either.
+ *
+ * The inventory uses it instead of {@link ColumnarCatalog} when started with
+ * -Dcatalog.memory=offheap. Pooled strings are never freed, so text replaced by
+ * edits stays in the pool until the whole catalog is replaced.
+ *
+ * This class is not synchronized.
+ *
+ * @author Joreve P. De Jesus
+ */
+class OffHeapCatalog implements Catalog {
+    private static final int OFF_ID = 0;
+    private static final int OFF_STOCK = 4;
+    private static final int OFF_PRICE = 8;
+    private static final int OFF_EXPIRY = 16;
+    private static final int OFF_CATEGORY = 24;
+    private static final int OFF_NAME = 28;
+    private static final int OFF_BRAND = 32;
+    private static final int OFF_VARIANT = 36;
+    private static final int RECORD_SIZE = 40;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INITIAL_TABLE_SIZE = 128; // must be a power of two
+
+    private final StringPool strings;
+    private ByteBuffer records;
+    private int capacity;
+    private int size;
+
+    private int[] table; // row + 1 for each used slot, 0 for an empty slot
+    private int mask;
+
+    /**
+     * Constructs an empty OffHeapCatalog.
+     */
+    public OffHeapCatalog() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty OffHeapCatalog with room for the given number of products.
+     *
+     * @param capacity the number of products to allocate records for
+     */
+    public OffHeapCatalog(int capacity) {
+        this.strings = new StringPool();
+        this.capacity = Math.max(capacity, 1);
+        this.records = ByteBuffer.allocateDirect(this.capacity * RECORD_SIZE);
+
+        int tableSize = INITIAL_TABLE_SIZE;
+        while (tableSize < this.capacity * 2) {
+            tableSize *= 2;
+        }
+        allocateTable(tableSize);
+    }
+
+    /**
+     * Builds an OffHeapCatalog holding the given products.
+     *
+     * @param products the products to copy into records
+     * @return the new catalog
+     */
+    public static OffHeapCatalog of(Collection<Product> products) {
+        OffHeapCatalog catalog = new OffHeapCatalog(products.size());
+        for (Product product : products) {
+            catalog.put(product);
+        }
+        return catalog;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int indexOf(int productID) {
+        return table[findSlot(productID)] - 1;
+    }
+
+    @Override
+    public void put(Product product) {
+        int slot = findSlot(product.getProductID());
+        int row = table[slot] - 1;
+
+        if (row < 0) {
+            ensureCapacity(size + 1);
+            row = size++;
+            table[slot] = row + 1;
+        }
+
+        int position = row * RECORD_SIZE;
+        records.putInt(position + OFF_ID, product.getProductID());
+        records.putInt(position + OFF_STOCK, product.getStock());
+        records.putLong(position + OFF_PRICE, product.getUnitPrice().getCentavos());
+        records.putLong(position + OFF_EXPIRY, product.getExpirationDate() != null
+                ? product.getExpirationDate().toEpochDay() : NO_EXPIRY);
+        records.putInt(position + OFF_CATEGORY, product.getCategory().getId());
+        records.putInt(position + OFF_NAME, strings.intern(product.getName()));
+        records.putInt(position + OFF_BRAND, strings.intern(product.getBrand()));
+        records.putInt(position + OFF_VARIANT, strings.intern(product.getVariant()));
+
+        if (size * 2 > table.length) {
+            resizeTable(table.length * 2);
+        }
+    }
+
+    @Override
+    public boolean setStock(int productID, int stock) {
+        int row = indexOf(productID);
+        if (row < 0) {
+            return false;
+        }
+        records.putInt(row * RECORD_SIZE + OFF_STOCK, stock);
+        return true;
+    }
+
+    @Override
+    public boolean remove(int productID) {
+        int slot = findSlot(productID);
+        int row = table[slot] - 1;
+        if (row < 0) {
+            return false;
+        }
+        removeSlot(slot);
+
+        // Keep the rows dense by moving the last record into the hole
+        int last = size - 1;
+        if (row != last) {
+            table[findSlot(getProductID(last))] = row + 1;
+            int from = last * RECORD_SIZE;
+            int to = row * RECORD_SIZE;
+            for (int i = 0; i < RECORD_SIZE; i += 4) {
+                records.putInt(to + i, records.getInt(from + i));
+            }
+        }
+        size--;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(table, 0);
+        strings.clear();
+        size = 0;
+    }
+
+    @Override
+    public int getProductID(int row) {
+        return records.getInt(row * RECORD_SIZE + OFF_ID);
+    }
+
+    @Override
+    public Money getPrice(int row) {
+        return Money.ofCentavos(records.getLong(row * RECORD_SIZE + OFF_PRICE));
+    }
+
+    @Override
+    public int getStock(int row) {
+        return records.getInt(row * RECORD_SIZE + OFF_STOCK);
+    }
+
+    @Override
+    public int getCategoryId(int row) {
+        return records.getInt(row * RECORD_SIZE + OFF_CATEGORY);
+    }
+
+    @Override
+    public long getExpirationDay(int row) {
+        return records.getLong(row * RECORD_SIZE + OFF_EXPIRY);
+    }
+
+    @Override
+    public Product getProduct(int row) {
+        int position = row * RECORD_SIZE;
+        long expiry = records.getLong(position + OFF_EXPIRY);
+        Product product = new Product(records.getInt(position + OFF_ID),
+                                      strings.get(records.getInt(position + OFF_NAME)),
+                                      0,
+                                      records.getInt(position + OFF_STOCK),
+                                      Category.byId(records.getInt(position + OFF_CATEGORY)),
+                                      strings.get(records.getInt(position + OFF_BRAND)),
+                                      strings.get(records.getInt(position + OFF_VARIANT)),
+                                      expiry != NO_EXPIRY ? LocalDate.ofEpochDay(expiry) : null);
+        product.setUnitPrice(Money.ofCentavos(records.getLong(position + OFF_PRICE)));
+        return product;
+    }
+
+    @Override
+    public int[] findLowStock(int threshold) {
+        int[] rows = new int[16];
+        int count = 0;
+        for (int row = 0, position = OFF_STOCK; row < size; row++, position += RECORD_SIZE) {
+            if (records.getInt(position) < threshold) {
+                rows = append(rows, count++, row);
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    @Override
+    public int[] findExpiring(long fromDay, long toDay) {
+        int[] rows = new int[16];
+        int count = 0;
+        for (int row = 0, position = OFF_EXPIRY; row < size; row++, position += RECORD_SIZE) {
+            long day = records.getLong(position);
+            if (day >= fromDay && day <= toDay && day != NO_EXPIRY) {
+                rows = append(rows, count++, row);
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    @Override
+    public int[] findByCategory(Category category) {
+        int categoryID = category.getId();
+        int[] rows = new int[16];
+        int count = 0;
+        for (int row = 0, position = OFF_CATEGORY; row < size; row++, position += RECORD_SIZE) {
+            if (records.getInt(position) == categoryID) {
+                rows = append(rows, count++, row);
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    @Override
+    public Money getStockValue() {
+        long total = 0;
+        for (int row = 0, position = 0; row < size; row++, position += RECORD_SIZE) {
+            total += records.getLong(position + OFF_PRICE) * records.getInt(position + OFF_STOCK);
+        }
+        return Money.ofCentavos(total);
+    }
+
+    private static int[] append(int[] rows, int count, int row) {
+        if (count == rows.length) {
+            rows = Arrays.copyOf(rows, rows.length * 2);
+        }
+        rows[count] = row;
+        return rows;
+    }
+
+    private void ensureCapacity(int rows) {
+        if (rows <= capacity) {
+            return;
+        }
+
+        capacity = Math.max(capacity * 2, rows);
+        ByteBuffer larger = ByteBuffer.allocateDirect(capacity * RECORD_SIZE);
+        records.limit(size * RECORD_SIZE);
+        larger.put(records);
+        records = larger;
+        records.clear();
+    }
+
+    private int findSlot(int productID) {
+        int slot = hash(productID);
+        while (table[slot] != 0 && getProductID(table[slot] - 1) != productID) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties a slot, shifting back entries whose probe run passes through it.
+     */
+    private void removeSlot(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (table[next] != 0) {
+            int home = hash(getProductID(table[next] - 1));
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                table[gap] = table[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[gap] = 0;
+    }
+
+    private int hash(int productID) {
+        int h = productID * 0x9E3779B9; // spreads sequential IDs across the table
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void resizeTable(int tableSize) {
+        allocateTable(tableSize);
+        for (int row = 0; row < size; row++) {
+            table[findSlot(getProductID(row))] = row + 1;
+        }
+    }
+
+    private void allocateTable(int tableSize) {
+        table = new int[tableSize];
+        mask = tableSize - 1;
+    }
+}
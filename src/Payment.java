@@ -6,8 +6,8 @@
  * @author Dana Ysabelle A. Pelagio
  */
 public class Payment {
-    private double amountReceived;
-    private double totalCost;
+    private Money amountReceived;
+    private Money totalCost;
 
     /**
      * Constructs a Payment with the specified amount received and total cost.
@@ -15,7 +15,7 @@ public class Payment {
      * @param amountReceived the amount of money received from the customer
      * @param totalCost the total cost of the purchase
      */
-    public Payment(double amountReceived, double totalCost) {
+    public Payment(Money amountReceived, Money totalCost) {
         this.amountReceived = amountReceived;
         this.totalCost = totalCost;
     }
@@ -23,13 +23,13 @@ public class Payment {
     /**
      * Computes the change to be given to the customer.
      *
-     * @return the change amount, or 0 if payment is insufficient
+     * @return the change amount, or zero if payment is insufficient
      */
-    public double computeChange() {
-        if (amountReceived >= totalCost) {
-            return amountReceived - totalCost;
+    public Money computeChange() {
+        if (isSufficient()) {
+            return amountReceived.minus(totalCost);
         }
-        return 0.0;
+        return Money.ZERO;
     }
 
     /**
@@ -38,25 +38,25 @@ public class Payment {
      * @return true if payment is sufficient, false otherwise
      */
     public boolean isSufficient() {
-        return amountReceived >= totalCost;
+        return !amountReceived.isLessThan(totalCost);
     }
 
-    public double getAmountReceived() {
+    public Money getAmountReceived() {
         return amountReceived;
     }
 
-    public double getTotalCost() {
+    public Money getTotalCost() {
         return totalCost;
     }
 
-    public void setAmountReceived(double amountReceived) {
-        if (amountReceived >= 0) {
+    public void setAmountReceived(Money amountReceived) {
+        if (!amountReceived.isNegative()) {
             this.amountReceived = amountReceived;
         }
     }
 
-    public void setTotalCost(double totalCost) {
-        if (totalCost >= 0) {
+    public void setTotalCost(Money totalCost) {
+        if (!totalCost.isNegative()) {
             this.totalCost = totalCost;
         }
     }
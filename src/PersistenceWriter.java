@@ -0,0 +1,216 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PersistenceWriter performs file writes on a single background thread so the
+ * register UI never waits for the disk. Writes that arrive within a short window
+ * are grouped: each file touched by the group gets one write and one fsync, and
+ * every queued request is then told through its WriteCallback whether it is durable.
+ *
+ * Writes to the same file are applied in the order they were submitted.
+ * A callback may queue further writes (for example an index entry that must
+ * only be written once its data is durable); {@link #flush()} waits for those too.
+ *
+ * @author Joreve P. De Jesus
+ */
+public class PersistenceWriter {
+    private static final long BATCH_WINDOW_MILLIS = 5;
+
+    private final BlockingQueue<Request> queue;
+    private final Thread thread;
+    private volatile boolean running;
+    private boolean followUpQueued; // set when a callback queues a write; used on the writer thread only
+
+    /**
+     * Constructs a PersistenceWriter and starts its background thread.
+     */
+    public PersistenceWriter() {
+        this.queue = new LinkedBlockingQueue<>();
+        this.running = true;
+        this.thread = new Thread(this::run, "persistence-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues data to be appended to the end of a file.
+     *
+     * @param filepath the file to append to
+     * @param data the bytes to append
+     * @param callback told when the data is durable (may be null)
+     */
+    public void append(String filepath, byte[] data, WriteCallback callback) {
+        submit(new Request(Paths.get(filepath), data, callback, null));
+    }
+
+    /**
+     * Blocks until every write queued before this call has been attempted,
+     * along with any writes their callbacks queued.
+     * Readers call this before reading a file that may have writes in the queue.
+     */
+    public void flush() {
+        if (Thread.currentThread() == thread) {
+            return;
+        }
+
+        CountDownLatch latch = new CountDownLatch(1);
+        submit(new Request(null, null, null, latch));
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Flushes all queued writes and stops the background thread.
+     */
+    public void shutdown() {
+        flush();
+        running = false;
+
+        // Wake the thread so it sees that it should stop
+        queue.add(new Request(null, null, null, new CountDownLatch(1)));
+    }
+
+    private void submit(Request request) {
+        if (!running) {
+            System.err.println("Persistence writer is shut down; write to " + request.path + " dropped.");
+            if (request.callback != null) {
+                request.callback.onComplete(false);
+            }
+            if (request.barrier != null) {
+                request.barrier.countDown();
+            }
+            return;
+        }
+        if (Thread.currentThread() == thread) {
+            followUpQueued = true;
+        }
+        queue.add(request);
+    }
+
+    private void run() {
+        List<Request> batch = new ArrayList<>();
+
+        while (running || !queue.isEmpty()) {
+            try {
+                batch.add(queue.take());
+
+                // Collect everything else that arrives within the batch window
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BATCH_WINDOW_MILLIS);
+                long remaining;
+                while ((remaining = deadline - System.nanoTime()) > 0) {
+                    Request next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch);
+            } catch (InterruptedException e) {
+                queue.drainTo(batch);
+            }
+
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes one group of requests: one write and one fsync per file, then callbacks.
+     */
+    private void writeBatch(List<Request> batch) {
+        Map<Path, List<Request>> byFile = new LinkedHashMap<>();
+        List<Request> barriers = new ArrayList<>();
+        followUpQueued = false;
+
+        for (Request request : batch) {
+            if (request.barrier != null) {
+                barriers.add(request);
+            } else {
+                byFile.computeIfAbsent(request.path, p -> new ArrayList<>()).add(request);
+            }
+        }
+
+        for (Map.Entry<Path, List<Request>> entry : byFile.entrySet()) {
+            boolean durable = writeFile(entry.getKey(), entry.getValue());
+            for (Request request : entry.getValue()) {
+                if (request.callback != null) {
+                    try {
+                        request.callback.onComplete(durable);
+                    } catch (RuntimeException e) {
+                        System.err.println("Error in write callback: " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        for (Request barrier : barriers) {
+            if (followUpQueued && running) {
+                queue.add(barrier); // release it after the writes the callbacks queued
+            } else {
+                barrier.barrier.countDown();
+            }
+        }
+    }
+
+    /**
+     * Appends the requests for one file in order with a single write.
+     */
+    private boolean writeFile(Path path, List<Request> requests) {
+        int size = 0;
+        for (Request request : requests) {
+            size += request.data.length;
+        }
+
+        ByteBuffer content = ByteBuffer.allocate(size);
+        for (Request request : requests) {
+            content.put(request.data);
+        }
+        content.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            writeFully(channel, content);
+            channel.force(false);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error writing " + path + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void writeFully(FileChannel channel, ByteBuffer content) throws IOException {
+        while (content.hasRemaining()) {
+            channel.write(content);
+        }
+    }
+
+    /**
+     * One queued write, or a flush barrier when {@code barrier} is set.
+     */
+    private static class Request {
+        private final Path path;
+        private final byte[] data;
+        private final WriteCallback callback;
+        private final CountDownLatch barrier;
+
+        Request(Path path, byte[] data, WriteCallback callback, CountDownLatch barrier) {
+            this.path = path;
+            this.data = data;
+            this.callback = callback;
+            this.barrier = barrier;
+        }
+    }
+}
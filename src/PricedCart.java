@@ -0,0 +1,219 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * PricedCart is the result of pricing a cart: every line with its discount,
+ * every discount and promotion that applied, the membership points used, VAT
+ * and the amount to charge. It is built once by a {@link PricingEngine} and
+ * never changes afterwards.
+ *
+ * @author Dana Ysabelle A. Pelagio
+ */
+public final class PricedCart {
+    private final List<Line> lines;
+    private final List<Adjustment> adjustments;
+    private final Money subtotal;
+    private final Money pointsDiscount;
+    private final int pointsUsed;
+    private final Money vatableAmount;
+    private final Money vatExemptAmount;
+    private final int vatBasisPoints;
+    private final Money vat;
+    private final Money total;
+
+    /**
+     * Constructs a PricedCart. The lists belong to the PricedCart from now on.
+     *
+     * @param lines the priced lines, in cart order
+     * @param adjustments the discounts that applied, in rule order
+     * @param subtotal the sum of the lines at list price
+     * @param pointsDiscount the amount paid with membership points
+     * @param pointsUsed the number of membership points used
+     * @param vatableAmount the part of the discounted total that VAT is charged on
+     * @param vatExemptAmount the part of the discounted total that is exempt from VAT
+     * @param vatBasisPoints the VAT rate in basis points
+     * @param vat the VAT charged
+     * @param total the amount to charge
+     */
+    PricedCart(List<Line> lines, List<Adjustment> adjustments, Money subtotal,
+               Money pointsDiscount, int pointsUsed, Money vatableAmount, Money vatExemptAmount,
+               int vatBasisPoints, Money vat, Money total) {
+        this.lines = Collections.unmodifiableList(lines);
+        this.adjustments = Collections.unmodifiableList(adjustments);
+        this.subtotal = subtotal;
+        this.pointsDiscount = pointsDiscount;
+        this.pointsUsed = pointsUsed;
+        this.vatableAmount = vatableAmount;
+        this.vatExemptAmount = vatExemptAmount;
+        this.vatBasisPoints = vatBasisPoints;
+        this.vat = vat;
+        this.total = total;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    /**
+     * Returns each discount and promotion that took something off, with the
+     * amount it took off across the whole cart. Points are not included.
+     *
+     * @return the adjustments, in rule order
+     */
+    public List<Adjustment> getAdjustments() {
+        return adjustments;
+    }
+
+    public Money getSubtotal() {
+        return subtotal;
+    }
+
+    /**
+     * Returns the total of the discounts and promotions, not counting points.
+     *
+     * @return the discount total
+     */
+    public Money getRuleDiscount() {
+        long discount = 0;
+        for (Adjustment adjustment : adjustments) {
+            discount += adjustment.getAmount().getCentavos();
+        }
+        return Money.ofCentavos(discount);
+    }
+
+    /**
+     * Returns the total of the discounts from rules with the given condition,
+     * such as every senior citizen discount.
+     *
+     * @param condition the condition of the rules to add up
+     * @return the discount total
+     */
+    public Money getDiscount(PricingRule.Condition condition) {
+        long discount = 0;
+        for (Adjustment adjustment : adjustments) {
+            if (adjustment.getRule().getCondition() == condition) {
+                discount += adjustment.getAmount().getCentavos();
+            }
+        }
+        return Money.ofCentavos(discount);
+    }
+
+    /**
+     * Returns everything taken off the subtotal, discounts and points together.
+     *
+     * @return the total discount
+     */
+    public Money getTotalDiscount() {
+        return getRuleDiscount().plus(pointsDiscount);
+    }
+
+    public Money getPointsDiscount() {
+        return pointsDiscount;
+    }
+
+    public int getPointsUsed() {
+        return pointsUsed;
+    }
+
+    public Money getVatableAmount() {
+        return vatableAmount;
+    }
+
+    public Money getVatExemptAmount() {
+        return vatExemptAmount;
+    }
+
+    public int getVatBasisPoints() {
+        return vatBasisPoints;
+    }
+
+    public Money getVAT() {
+        return vat;
+    }
+
+    public Money getTotal() {
+        return total;
+    }
+
+    /**
+     * One cart line as priced.
+     */
+    public static final class Line {
+        private final Product product;
+        private final int quantity;
+        private final Money unitPrice;
+        private final Money discount;
+        private final boolean vatExempt;
+
+        Line(Product product, int quantity, Money unitPrice, Money discount, boolean vatExempt) {
+            this.product = product;
+            this.quantity = quantity;
+            this.unitPrice = unitPrice;
+            this.discount = discount;
+            this.vatExempt = vatExempt;
+        }
+
+        public Product getProduct() {
+            return product;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        /**
+         * Returns the list price of one unit when the cart was priced.
+         *
+         * @return the unit price
+         */
+        public Money getUnitPrice() {
+            return unitPrice;
+        }
+
+        public Money getLineTotal() {
+            return unitPrice.times(quantity);
+        }
+
+        /**
+         * Returns what the line's promotions took off, not counting order discounts.
+         *
+         * @return the line discount
+         */
+        public Money getDiscount() {
+            return discount;
+        }
+
+        public Money getNetTotal() {
+            return getLineTotal().minus(discount);
+        }
+
+        public boolean isVatExempt() {
+            return vatExempt;
+        }
+    }
+
+    /**
+     * The amount one rule took off the cart.
+     */
+    public static final class Adjustment {
+        private final PricingRule rule;
+        private final Money amount;
+
+        Adjustment(PricingRule rule, Money amount) {
+            this.rule = rule;
+            this.amount = amount;
+        }
+
+        public PricingRule getRule() {
+            return rule;
+        }
+
+        public String getName() {
+            return rule.getName();
+        }
+
+        public Money getAmount() {
+            return amount;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * PricingBenchmark measures how many carts a {@link PricingEngine} prices per
+ * second as the number of active promotions grows. The promotions are spread
+ * over a catalog of CATALOG_SIZE products in CATEGORY_COUNT categories and mix
+ * product discounts, bundles, buy-X-get-Y, member prices and category discounts,
+ * on top of the default senior discount and VAT. The same carts of
+ * LINES_PER_CART random products are priced for every number of promotions, for
+ * a member who is also a senior citizen.
+ *
+ * Promotions that do not touch a cart cost nothing once the engine is compiled,
+ * so what growth remains comes from the rules that do apply; the benchmark
+ * prints how many line discounts an average cart received next to the rate.
+ * Run it with {@code java PricingBenchmark}.
+ *
+ * @author Dana Ysabelle A. Pelagio
+ */
+public class PricingBenchmark {
+    private static final int CATALOG_SIZE = 10_000;
+    private static final int MAIN_CATEGORIES = 10;
+    private static final int SUB_CATEGORIES = 10;
+    private static final int CATEGORY_COUNT = MAIN_CATEGORIES * SUB_CATEGORIES;
+    private static final int LINES_PER_CART = 30;
+    private static final int CART_COUNT = 100;
+    private static final int[] PROMOTION_COUNTS = {0, 10, 100, 1_000, 10_000};
+    private static final long MEASURE_NANOS = 1_000_000_000L;
+
+    private static long sink; // keeps the priced totals alive
+
+    public static void main(String[] args) {
+        Random random = new Random(22);
+        List<Product> catalog = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            Category category = Category.of("Main " + i % MAIN_CATEGORIES, "Sub " + i / MAIN_CATEGORIES % SUB_CATEGORIES);
+            catalog.add(new Product(i + 1, "Product " + i, 5 + random.nextInt(500), 1000, category));
+        }
+
+        List<List<CartItem>> carts = new ArrayList<>(CART_COUNT);
+        for (int c = 0; c < CART_COUNT; c++) {
+            List<CartItem> cart = new ArrayList<>(LINES_PER_CART);
+            for (int line = 0; line < LINES_PER_CART; line++) {
+                cart.add(new CartItem(catalog.get(random.nextInt(CATALOG_SIZE)), 1 + random.nextInt(6)));
+            }
+            carts.add(cart);
+        }
+
+        MembershipCard card = new MembershipCard("BENCHMARK");
+        System.out.printf("%,d products, %d categories, %d lines per cart%n",
+                CATALOG_SIZE, CATEGORY_COUNT, LINES_PER_CART);
+        for (int promotions : PROMOTION_COUNTS) {
+            List<PricingRule> rules = new ArrayList<>(promotions + 2);
+            for (int i = 0; i < promotions; i++) {
+                rules.add(promotion(i, catalog, random));
+            }
+            rules.addAll(PricingEngine.getDefaultRules());
+            PricingEngine engine = new PricingEngine(rules);
+
+            long discountedLines = 0;
+            for (List<CartItem> cart : carts) {
+                for (PricedCart.Line line : engine.price(cart, card, true, false).getLines()) {
+                    if (!line.getDiscount().isZero()) {
+                        discountedLines++;
+                    }
+                }
+            }
+
+            priceFor(engine, carts, card, MEASURE_NANOS / 2); // warm up
+            long start = System.nanoTime();
+            long priced = priceFor(engine, carts, card, MEASURE_NANOS);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%,7d promotions: %,10.0f carts/s %5.1f discounted lines per cart%n",
+                    promotions, priced / seconds, (double) discountedLines / CART_COUNT);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Builds the i-th promotion, cycling through the kinds a store would configure.
+     */
+    private static PricingRule promotion(int i, List<Product> catalog, Random random) {
+        Product product = catalog.get(random.nextInt(catalog.size()));
+        int id = product.getProductID();
+        Category category = product.getCategory();
+        String name = "Promotion " + i;
+        switch (i % 5) {
+            case 0:
+                return new PricingRule(PricingRule.Type.PERCENT, name, PricingRule.Condition.ALWAYS,
+                        PricingRule.Scope.PRODUCT, null, null, id, 500 + random.nextInt(2000), 0);
+            case 1:
+                return new PricingRule(PricingRule.Type.BUNDLE, name, PricingRule.Condition.ALWAYS,
+                        PricingRule.Scope.PRODUCT, null, null, id, 3, product.getUnitPrice().getCentavos() * 5 / 2);
+            case 2:
+                return new PricingRule(PricingRule.Type.BUY_X_GET_Y, name, PricingRule.Condition.ALWAYS,
+                        PricingRule.Scope.PRODUCT, null, null, id, 2, 1);
+            case 3:
+                return new PricingRule(PricingRule.Type.MEMBER_PRICE, name, PricingRule.Condition.MEMBER,
+                        PricingRule.Scope.PRODUCT, null, null, id, product.getUnitPrice().getCentavos() * 9 / 10, 0);
+            default:
+                return new PricingRule(PricingRule.Type.PERCENT, name, PricingRule.Condition.ALWAYS,
+                        PricingRule.Scope.CATEGORY, category.getName(), category.getType(), 0, 100, 0);
+        }
+    }
+
+    /**
+     * Prices the carts over and over for about the given time.
+     *
+     * @return the number of carts priced
+     */
+    private static long priceFor(PricingEngine engine, List<List<CartItem>> carts, MembershipCard card, long nanos) {
+        long priced = 0;
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            for (List<CartItem> cart : carts) {
+                sink += engine.price(cart, card, true, false).getTotal().getCentavos();
+            }
+            priced += carts.size();
+        }
+        return priced;
+    }
+}
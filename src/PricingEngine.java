@@ -0,0 +1,363 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PricingEngine prices carts with a list of {@link PricingRule}s. The rules are
+ * compiled once, when the engine is built, into lookup tables: line rules by
+ * product ID, by category and by main category, and the order-level discounts
+ * and VAT in their own lists. Pricing a cart is then one pass over its lines,
+ * with a few table lookups per line and no searching through the rules.
+ *
+ * A cart is priced in this order:
+ * 1. Each line's rules, in the order they were configured: member prices,
+ *    promotions, and product or category discounts. Each rule works on what
+ *    the rules before it left of the line.
+ * 2. Order discounts, in the order they were configured, on what is left of the order.
+ * 3. Membership points, in whole pesos (1 point = P1), if the customer uses them.
+ * 4. VAT on what is left, leaving out the share that belongs to VAT-exempt lines.
+ *
+ * Bundles and buy-X-get-Y promotions count the units of each cart line separately,
+ * even when the rule names a category. No discount takes a line or the order below zero.
+ *
+ * A PricingEngine can be shared by any number of registers.
+ *
+ * @author Dana Ysabelle A. Pelagio
+ */
+public class PricingEngine {
+    private static final int[] NO_RULES = new int[0];
+    private static final int CENTAVOS_PER_POINT = 100; // 1 point = 1 peso
+
+    private final PricingRule[] rules;
+    private final int[] orderRules;
+    private final int[] vatRules;
+    private final Map<Integer, int[]> productRules;
+    private final Map<String, int[]> mainCategoryRules;
+    private final Map<Category, int[]> subCategoryRules;
+    private final Map<Category, int[]> categoryPlans; // main and sub-category rules merged, built on first use
+
+    /**
+     * Compiles a list of rules into an engine.
+     *
+     * @param rules the rules, in the order they apply
+     */
+    public PricingEngine(List<PricingRule> rules) {
+        this.rules = rules.toArray(new PricingRule[0]);
+
+        List<Integer> order = new ArrayList<>();
+        List<Integer> vat = new ArrayList<>();
+        Map<Integer, List<Integer>> byProduct = new HashMap<>();
+        Map<String, List<Integer>> byMainCategory = new HashMap<>();
+        Map<Category, List<Integer>> bySubCategory = new HashMap<>();
+
+        for (int i = 0; i < this.rules.length; i++) {
+            PricingRule rule = this.rules[i];
+            switch (rule.getScope()) {
+                case ORDER:
+                    (rule.getType() == PricingRule.Type.VAT ? vat : order).add(i);
+                    break;
+                case PRODUCT:
+                    byProduct.computeIfAbsent(rule.getProductID(), id -> new ArrayList<>()).add(i);
+                    break;
+                case CATEGORY:
+                    if (rule.getSubCategory() == null) {
+                        byMainCategory.computeIfAbsent(rule.getMainCategory(), main -> new ArrayList<>()).add(i);
+                    } else {
+                        bySubCategory.computeIfAbsent(Category.of(rule.getMainCategory(), rule.getSubCategory()),
+                                                      category -> new ArrayList<>()).add(i);
+                    }
+                    break;
+            }
+        }
+
+        this.orderRules = toArray(order);
+        this.vatRules = toArray(vat);
+        this.productRules = new HashMap<>();
+        byProduct.forEach((id, indexes) -> productRules.put(id, toArray(indexes)));
+        this.mainCategoryRules = new HashMap<>();
+        byMainCategory.forEach((main, indexes) -> mainCategoryRules.put(main, toArray(indexes)));
+        this.subCategoryRules = new HashMap<>();
+        bySubCategory.forEach((category, indexes) -> subCategoryRules.put(category, toArray(indexes)));
+        this.categoryPlans = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns an engine with the default rules.
+     *
+     * @return the engine
+     */
+    public static PricingEngine standard() {
+        return new PricingEngine(getDefaultRules());
+    }
+
+    /**
+     * Returns the rules used when no pricing configuration is present:
+     * a 20% senior citizen discount on the order and 12% VAT.
+     *
+     * @return the default rules
+     */
+    public static List<PricingRule> getDefaultRules() {
+        List<PricingRule> rules = new ArrayList<>();
+        rules.add(PricingRule.orderPercent("Senior Citizen Discount", PricingRule.Condition.SENIOR, 2000));
+        rules.add(PricingRule.vat("VAT", 1200));
+        return rules;
+    }
+
+    public List<PricingRule> getRules() {
+        return Collections.unmodifiableList(Arrays.asList(rules));
+    }
+
+    /**
+     * Prices a cart.
+     *
+     * @param items the cart lines
+     * @param card the customer's membership card, or null if the customer has none
+     * @param senior true if the senior citizen discount was claimed
+     * @param usePoints true if the customer pays with membership points
+     * @return the priced cart
+     */
+    public PricedCart price(List<CartItem> items, MembershipCard card, boolean senior, boolean usePoints) {
+        int conditions = bit(PricingRule.Condition.ALWAYS);
+        if (card != null) {
+            conditions |= bit(PricingRule.Condition.MEMBER);
+        }
+        if (senior) {
+            conditions |= bit(PricingRule.Condition.SENIOR);
+        }
+
+        DiscountTally tally = new DiscountTally();
+        List<PricedCart.Line> lines = new ArrayList<>(items.size());
+        long subtotal = 0;
+        long lineNet = 0;
+        long taxableNet = 0;
+
+        // 1. Line rules
+        for (CartItem item : items) {
+            Product product = item.getProduct();
+            int quantity = item.getQuantity();
+            Money listPrice = product.getUnitPrice();
+            long unit = listPrice.getCentavos();
+            long gross = unit * quantity;
+            long net = gross;
+            boolean vatExempt = false;
+
+            int[] categoryRules = getCategoryPlan(product.getCategory());
+            int[] ownRules = productRules.getOrDefault(product.getProductID(), NO_RULES);
+            int c = 0;
+            int p = 0;
+            while (c < categoryRules.length || p < ownRules.length) {
+                int index;
+                if (p == ownRules.length || (c < categoryRules.length && categoryRules[c] < ownRules[p])) {
+                    index = categoryRules[c++];
+                } else {
+                    index = ownRules[p++];
+                }
+
+                PricingRule rule = rules[index];
+                if ((conditions & bit(rule.getCondition())) == 0) {
+                    continue;
+                }
+
+                long discount = 0;
+                switch (rule.getType()) {
+                    case VAT_EXEMPT:
+                        vatExempt = true;
+                        break;
+                    case MEMBER_PRICE:
+                        if (rule.getValue() < unit) {
+                            discount = (unit - rule.getValue()) * quantity;
+                            unit = rule.getValue();
+                        }
+                        break;
+                    case PERCENT:
+                        discount = percent(net, rule.getBasisPoints());
+                        break;
+                    case FIXED:
+                        discount = rule.getValue() * quantity;
+                        break;
+                    case BUNDLE:
+                        long bundles = quantity / rule.getValue();
+                        discount = Math.max(0, bundles * (rule.getValue() * unit - rule.getSecondValue()));
+                        break;
+                    case BUY_X_GET_Y:
+                        long free = quantity / (rule.getValue() + rule.getSecondValue()) * rule.getSecondValue();
+                        discount = free * unit;
+                        break;
+                    default:
+                        break;
+                }
+
+                discount = Math.min(discount, net);
+                net -= discount;
+                tally.add(index, discount);
+            }
+
+            lines.add(new PricedCart.Line(product, quantity, listPrice, Money.ofCentavos(gross - net), vatExempt));
+            subtotal += gross;
+            lineNet += net;
+            if (!vatExempt) {
+                taxableNet += net;
+            }
+        }
+
+        // 2. Order discounts
+        long remaining = lineNet;
+        for (int index : orderRules) {
+            PricingRule rule = rules[index];
+            if ((conditions & bit(rule.getCondition())) == 0) {
+                continue;
+            }
+
+            long discount = rule.getType() == PricingRule.Type.PERCENT
+                    ? percent(remaining, rule.getBasisPoints()) : rule.getValue();
+            discount = Math.min(discount, remaining);
+            remaining -= discount;
+            tally.add(index, discount);
+        }
+
+        // 3. Membership points
+        int pointsUsed = 0;
+        if (usePoints && card != null) {
+            pointsUsed = (int) Math.min(card.getPoints(), remaining / CENTAVOS_PER_POINT);
+            remaining -= (long) pointsUsed * CENTAVOS_PER_POINT;
+        }
+
+        // 4. VAT
+        int vatBasisPoints = 0;
+        for (int index : vatRules) {
+            if ((conditions & bit(rules[index].getCondition())) != 0) {
+                vatBasisPoints = rules[index].getBasisPoints();
+                break;
+            }
+        }
+        long vatable = taxableNet == lineNet ? remaining : share(remaining, taxableNet, lineNet);
+        long vat = percent(vatable, vatBasisPoints);
+
+        return new PricedCart(lines, tally.toAdjustments(rules), Money.ofCentavos(subtotal),
+                              Money.ofCentavos((long) pointsUsed * CENTAVOS_PER_POINT), pointsUsed,
+                              Money.ofCentavos(vatable), Money.ofCentavos(remaining - vatable),
+                              vatBasisPoints, Money.ofCentavos(vat), Money.ofCentavos(remaining + vat));
+    }
+
+    /**
+     * Returns the rules for a category, main-category rules and sub-category
+     * rules merged in configured order.
+     */
+    private int[] getCategoryPlan(Category category) {
+        return categoryPlans.computeIfAbsent(category, key -> {
+            int[] main = mainCategoryRules.getOrDefault(key.getName(), NO_RULES);
+            int[] sub = subCategoryRules.getOrDefault(key, NO_RULES);
+            int[] merged = Arrays.copyOf(main, main.length + sub.length);
+            System.arraycopy(sub, 0, merged, main.length, sub.length);
+            Arrays.sort(merged);
+            return merged;
+        });
+    }
+
+    /**
+     * Adds up the discount of each rule that took something off. Usually only a
+     * few rules apply to a cart, so they are kept in a short list instead of an
+     * array with a slot for every configured rule. A small open-addressing table
+     * finds a rule's entry, so a cart that many promotions apply to is still
+     * tallied in time proportional to the discounts.
+     */
+    private static class DiscountTally {
+        private int[] ruleIndexes = new int[8];
+        private long[] amounts = new long[8];
+        private int[] table = new int[16]; // entry number + 1 for each rule, 0 where empty
+        private int count;
+
+        void add(int ruleIndex, long amount) {
+            if (amount <= 0) {
+                return;
+            }
+            int mask = table.length - 1;
+            int slot = (ruleIndex * 0x9E3779B9 >>> 16) & mask;
+            while (table[slot] != 0) {
+                int entry = table[slot] - 1;
+                if (ruleIndexes[entry] == ruleIndex) {
+                    amounts[entry] += amount;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            if (count == ruleIndexes.length) {
+                ruleIndexes = Arrays.copyOf(ruleIndexes, count * 2);
+                amounts = Arrays.copyOf(amounts, count * 2);
+            }
+            ruleIndexes[count] = ruleIndex;
+            amounts[count] = amount;
+            count++;
+            table[slot] = count;
+            if (count * 2 > table.length) {
+                rehash(table.length * 2);
+            }
+        }
+
+        private void rehash(int size) {
+            table = new int[size];
+            int mask = size - 1;
+            for (int entry = 0; entry < count; entry++) {
+                int slot = (ruleIndexes[entry] * 0x9E3779B9 >>> 16) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = entry + 1;
+            }
+        }
+
+        /**
+         * Returns the adjustments in rule order.
+         */
+        List<PricedCart.Adjustment> toAdjustments(PricingRule[] rules) {
+            // Rule index in the high half, entry number in the low half
+            long[] order = new long[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = (long) ruleIndexes[i] << 32 | i;
+            }
+            Arrays.sort(order);
+
+            List<PricedCart.Adjustment> adjustments = new ArrayList<>(count);
+            for (long key : order) {
+                int entry = (int) key;
+                adjustments.add(new PricedCart.Adjustment(rules[ruleIndexes[entry]], Money.ofCentavos(amounts[entry])));
+            }
+            return adjustments;
+        }
+    }
+
+    private static int bit(PricingRule.Condition condition) {
+        return 1 << condition.ordinal();
+    }
+
+    private static long percent(long centavos, int basisPoints) {
+        return Money.ofCentavos(centavos).percent(basisPoints).getCentavos();
+    }
+
+    /**
+     * Returns amount * part / whole, rounded to the nearest centavo.
+     */
+    private static long share(long amount, long part, long whole) {
+        if (whole == 0) {
+            return 0;
+        }
+        return BigInteger.valueOf(amount).multiply(BigInteger.valueOf(part)).multiply(BigInteger.valueOf(2))
+                .add(BigInteger.valueOf(whole))
+                .divide(BigInteger.valueOf(whole).multiply(BigInteger.valueOf(2)))
+                .longValueExact();
+    }
+
+    private static int[] toArray(List<Integer> indexes) {
+        int[] array = new int[indexes.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = indexes.get(i);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,238 @@
+/**
+ * PricingRule is one discount, promotion or tax rule read from the pricing
+ * configuration. Rules do nothing on their own; a {@link PricingEngine} compiles
+ * a list of them into an evaluation plan.
+ *
+ * What the two values mean depends on the type:
+ * PERCENT: value is the percentage in basis points (2000 for 20%).
+ * FIXED: value is the amount off in centavos, per unit for a product or
+ * category rule and once for an order rule.
+ * BUNDLE: value is the bundle size and secondValue the bundle price in centavos.
+ * BUY_X_GET_Y: value is the number bought and secondValue the number free.
+ * MEMBER_PRICE: value is the member unit price in centavos.
+ * VAT: value is the VAT rate in basis points.
+ * VAT_EXEMPT: no values.
+ *
+ * @author Dana Ysabelle A. Pelagio
+ */
+public final class PricingRule {
+    public static final int MAX_BASIS_POINTS = 10000; // 100%
+
+    /**
+     * What a rule does.
+     */
+    public enum Type {
+        PERCENT, FIXED, BUNDLE, BUY_X_GET_Y, MEMBER_PRICE, VAT, VAT_EXEMPT
+    }
+
+    /**
+     * When a rule applies.
+     */
+    public enum Condition {
+        ALWAYS, MEMBER, SENIOR
+    }
+
+    /**
+     * What a rule applies to: the whole order, a category or one product.
+     */
+    public enum Scope {
+        ORDER, CATEGORY, PRODUCT
+    }
+
+    private final Type type;
+    private final String name;
+    private final Condition condition;
+    private final Scope scope;
+    private final String mainCategory;
+    private final String subCategory;
+    private final int productID;
+    private final long value;
+    private final long secondValue;
+    private final int basisPoints;
+
+    /**
+     * Constructs a PricingRule.
+     *
+     * @param type what the rule does
+     * @param name the name shown on receipts
+     * @param condition when the rule applies
+     * @param scope what the rule applies to
+     * @param mainCategory the main category for a category rule, otherwise null
+     * @param subCategory the sub-category for a category rule, or null for the whole main category
+     * @param productID the product for a product rule, otherwise ignored
+     * @param value the first value (see the class description)
+     * @param secondValue the second value (see the class description)
+     * @throws IllegalArgumentException if the type cannot be used with the scope,
+     *         or a value is out of range (a percentage must be 0 to 10000 basis points)
+     */
+    public PricingRule(Type type, String name, Condition condition, Scope scope,
+                       String mainCategory, String subCategory, int productID,
+                       long value, long secondValue) {
+        boolean orderRule = scope == Scope.ORDER;
+        switch (type) {
+            case VAT:
+                if (!orderRule) {
+                    throw new IllegalArgumentException("VAT applies to the whole order");
+                }
+                break;
+            case BUNDLE:
+            case BUY_X_GET_Y:
+            case MEMBER_PRICE:
+            case VAT_EXEMPT:
+                if (orderRule) {
+                    throw new IllegalArgumentException(type + " needs a category or product");
+                }
+                break;
+            default:
+                break;
+        }
+        if (scope == Scope.CATEGORY && (mainCategory == null || mainCategory.isEmpty())) {
+            throw new IllegalArgumentException("Category rule without a category");
+        }
+        if (value < 0 || secondValue < 0) {
+            throw new IllegalArgumentException("Value out of range");
+        }
+        if (isPercentage(type) && value > MAX_BASIS_POINTS) {
+            throw new IllegalArgumentException("Percentage out of range");
+        }
+        if ((type == Type.BUNDLE && value < 1) || (type == Type.BUY_X_GET_Y && (value < 1 || secondValue < 1))) {
+            throw new IllegalArgumentException("Quantity must be at least 1");
+        }
+
+        this.type = type;
+        this.name = name;
+        this.condition = condition;
+        this.scope = scope;
+        this.mainCategory = mainCategory;
+        this.subCategory = subCategory;
+        this.productID = productID;
+        this.value = value;
+        this.secondValue = secondValue;
+        this.basisPoints = isPercentage(type) ? (int) value : 0; // range checked above
+    }
+
+    /**
+     * Parses a percentage written as a decimal, such as "12", "12.5" or "99.75",
+     * into basis points. A trailing "%" is allowed.
+     *
+     * @param text the percentage
+     * @return the percentage in basis points (1250 for "12.5")
+     * @throws NumberFormatException if the text is not a decimal number with at most two decimals
+     * @throws IllegalArgumentException if the percentage is above 100
+     */
+    public static int parsePercent(String text) {
+        String value = text.trim();
+        if (value.endsWith("%")) {
+            value = value.substring(0, value.length() - 1).trim();
+        }
+
+        int basisPoints = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (c >= '0' && c <= '9' && decimals < 2) {
+                basisPoints = basisPoints * 10 + (c - '0');
+                digits++;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+                if (basisPoints > MAX_BASIS_POINTS) {
+                    throw new IllegalArgumentException("Percentage above 100: " + text);
+                }
+            } else {
+                throw new NumberFormatException("Invalid percentage: " + text);
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Invalid percentage: " + text);
+        }
+
+        for (int i = Math.max(decimals, 0); i < 2; i++) {
+            basisPoints *= 10;
+        }
+        if (basisPoints > MAX_BASIS_POINTS) {
+            throw new IllegalArgumentException("Percentage above 100: " + text);
+        }
+        return basisPoints;
+    }
+
+    /**
+     * Returns a rule that takes a percentage off the whole order.
+     *
+     * @param name the name shown on receipts
+     * @param condition when the rule applies
+     * @param basisPoints the percentage in basis points
+     * @return the rule
+     */
+    public static PricingRule orderPercent(String name, Condition condition, int basisPoints) {
+        return new PricingRule(Type.PERCENT, name, condition, Scope.ORDER, null, null, 0, basisPoints, 0);
+    }
+
+    /**
+     * Returns a rule that charges VAT on the order.
+     *
+     * @param name the name shown on receipts
+     * @param basisPoints the VAT rate in basis points
+     * @return the rule
+     */
+    public static PricingRule vat(String name, int basisPoints) {
+        return new PricingRule(Type.VAT, name, Condition.ALWAYS, Scope.ORDER, null, null, 0, basisPoints, 0);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Condition getCondition() {
+        return condition;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public String getMainCategory() {
+        return mainCategory;
+    }
+
+    public String getSubCategory() {
+        return subCategory;
+    }
+
+    public int getProductID() {
+        return productID;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public long getSecondValue() {
+        return secondValue;
+    }
+
+    /**
+     * Returns the percentage of a PERCENT or VAT rule.
+     *
+     * @return the percentage in basis points, or 0 for other types
+     */
+    public int getBasisPoints() {
+        return basisPoints;
+    }
+
+    private static boolean isPercentage(Type type) {
+        return type == Type.PERCENT || type == Type.VAT;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + name;
+    }
+}
@@ -10,8 +10,8 @@ import java.time.LocalDate;
 class Product {
     private int productID;
     private String name;
-    private double price;
-    private int stock;
+    private Money price; // exact to the centavo
+    private volatile int stock; // read by every register; changed only in synchronized methods
     private Category category;
     private String brand;
     private String variant;
@@ -49,7 +49,7 @@ class Product {
                    Category category, String brand, String variant, LocalDate expirationDate) {
         this.productID = productID;
         this.name = name;
-        this.price = price;
+        this.price = Money.of(price);
         this.stock = stock;
         this.category = category;
         this.brand = brand;
@@ -64,7 +64,7 @@ class Product {
      * @param quantity The number of units to remove from stock.
      * @return true if stock was successfully reduced, false if there was insufficient stock.
      */
-    public boolean reduceStock(int quantity) {
+    public synchronized boolean reduceStock(int quantity) {
         if (quantity > 0 && quantity <= stock) {
             stock -= quantity;
             return true;
@@ -80,7 +80,7 @@ class Product {
      *
      * @param quantity The number of units to add to stock. Must be positive.
      */
-    public void restock(int quantity) {
+    public synchronized void restock(int quantity) {
         if (quantity > 0) {
             stock += quantity;
         }
@@ -95,6 +95,12 @@ class Product {
 
     public void setPrice(double price) {
         if (price >= 0) {
+            this.price = Money.of(price);
+        }
+    }
+
+    public void setUnitPrice(Money price) {
+        if (!price.isNegative()) {
             this.price = price;
         }
     }
@@ -112,9 +118,26 @@ class Product {
         this.isPerishable = (expirationDate != null);
     }
 
+    public void setCategory(Category category) {
+        this.category = category;
+    }
+
+    /**
+     * Sets the stock to a level read back from the data files.
+     * Sales and deliveries go through reduceStock and restock instead.
+     *
+     * @param stock The new stock level. Must not be negative.
+     */
+    public synchronized void setStock(int stock) {
+        if (stock >= 0) {
+            this.stock = stock;
+        }
+    }
+
     public int getProductID() { return productID; }
     public String getName() { return name; }
-    public double getPrice() { return price; }
+    public double getPrice() { return price.doubleValue(); }
+    public Money getUnitPrice() { return price; }
     public int getStock() { return stock; }
     public Category getCategory() { return category; }
     public String getBrand() { return brand; }
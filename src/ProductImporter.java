@@ -0,0 +1,238 @@
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * ProductImporter reads a bulk product file, such as a supplier's price list, and
+ * checks every record before anything is added to the inventory.
+ *
+ * Text files use the same "|||"-delimited format as products.txt. The file is read
+ * in one go and cut into chunks at line breaks; the chunks are parsed and validated
+ * in parallel and their results joined in file order. Files ending in ".bin" are
+ * read as a binary catalog written by {@link MappedProductStore}.
+ *
+ * When a product ID appears more than once, the last record wins.
+ *
+ * @author Joreve P. De Jesus
+ */
+public class ProductImporter {
+    private static final int CHUNK_BYTES = 1 << 20; // about 10,000 product lines per chunk
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private ProductImporter() {
+    }
+
+    /**
+     * Reads and validates the products in a file.
+     *
+     * @param filepath the file to import
+     * @return the valid products and a report of the rejected records,
+     *         or null if the file cannot be read
+     */
+    public static Result read(String filepath) {
+        Path path = Paths.get(filepath);
+        if (!Files.isRegularFile(path)) {
+            System.err.println("Import file not found: " + filepath);
+            return null;
+        }
+
+        if (filepath.endsWith(".bin")) {
+            return readBinary(filepath);
+        }
+
+        byte[] data;
+        try {
+            data = Files.readAllBytes(path);
+        } catch (IOException e) {
+            System.err.println("Error reading import file: " + e.getMessage());
+            return null;
+        }
+
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "product-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<Chunk>> chunks = new ArrayList<>();
+            int start = 0;
+            while (start < data.length) {
+                int end = Math.min(start + CHUNK_BYTES, data.length);
+                while (end < data.length && data[end - 1] != '\n') {
+                    end++; // a chunk always ends at a line break
+                }
+
+                String text = new String(data, start, end - start, StandardCharsets.UTF_8);
+                chunks.add(executor.submit(() -> parseChunk(text)));
+                start = end;
+            }
+
+            Result result = new Result();
+            for (Future<Chunk> chunk : chunks) {
+                result.add(chunk.get());
+            }
+            return result;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            System.err.println("Error importing products: " + e.getCause().getMessage());
+            return null;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads the products of a binary catalog file.
+     */
+    private static Result readBinary(String filepath) {
+        MappedProductStore store = new MappedProductStore(filepath);
+        if (!store.open()) {
+            return null;
+        }
+
+        Chunk chunk = new Chunk();
+        for (Product product : store.loadAll()) {
+            chunk.lineCount++;
+            chunk.check(product);
+        }
+        store.close();
+
+        Result result = new Result();
+        result.add(chunk);
+        return result;
+    }
+
+    /**
+     * Parses and validates the lines of one chunk.
+     */
+    private static Chunk parseChunk(String text) throws IOException {
+        Chunk chunk = new Chunk();
+        try (RecordReader fields = new RecordReader(new StringReader(text))) {
+            while (fields.nextRecord()) {
+                chunk.lineCount++;
+                if (fields.isEmptyRecord() || AppendJournal.isHeader(fields)) {
+                    continue; // a products.txt snapshot starts with a journal header
+                }
+
+                try {
+                    Product product = DataManager.readProduct(fields);
+                    if (product == null) {
+                        chunk.reject("expected at least 7 fields");
+                    } else {
+                        chunk.check(product);
+                    }
+                } catch (RuntimeException e) {
+                    chunk.reject(e.getMessage());
+                }
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * The products and rejected lines of one chunk. Line numbers are relative to the chunk.
+     */
+    private static class Chunk {
+        private final List<Product> products = new ArrayList<>();
+        private final List<Integer> errorLines = new ArrayList<>();
+        private final List<String> errorMessages = new ArrayList<>();
+        private int lineCount;
+
+        private void check(Product product) {
+            if (product.getName() == null || product.getName().isEmpty()) {
+                reject("product " + product.getProductID() + " has no name");
+            } else if (product.getPrice() < 0 || Double.isNaN(product.getPrice())) {
+                reject("product " + product.getProductID() + " has a negative price");
+            } else if (product.getStock() < 0) {
+                reject("product " + product.getProductID() + " has negative stock");
+            } else {
+                products.add(product);
+            }
+        }
+
+        private void reject(String message) {
+            errorLines.add(lineCount);
+            errorMessages.add(message);
+        }
+    }
+
+    /**
+     * The outcome of reading an import file.
+     */
+    public static class Result {
+        private final Map<Integer, Product> products = new LinkedHashMap<>();
+        private final List<String> errors = new ArrayList<>();
+        private int lineCount;
+        private int rejectedCount;
+        private int duplicateCount;
+
+        private void add(Chunk chunk) {
+            for (Product product : chunk.products) {
+                if (products.put(product.getProductID(), product) != null) {
+                    duplicateCount++;
+                }
+            }
+
+            for (int i = 0; i < chunk.errorLines.size(); i++) {
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add("Line " + (lineCount + chunk.errorLines.get(i)) + ": " + chunk.errorMessages.get(i));
+                }
+            }
+            rejectedCount += chunk.errorLines.size();
+            lineCount += chunk.lineCount;
+        }
+
+        /**
+         * Returns the valid products, one per product ID, in the order their IDs first appear.
+         *
+         * @return the products to import
+         */
+        public List<Product> getProducts() {
+            return new ArrayList<>(products.values());
+        }
+
+        /**
+         * Returns a description of each rejected record, up to the first 100.
+         *
+         * @return the error messages
+         */
+        public List<String> getErrors() {
+            return Collections.unmodifiableList(errors);
+        }
+
+        public int getLineCount() {
+            return lineCount;
+        }
+
+        public int getRejectedCount() {
+            return rejectedCount;
+        }
+
+        /**
+         * Returns the number of valid records that were replaced by a later record
+         * with the same product ID.
+         *
+         * @return the duplicate count
+         */
+        public int getDuplicateCount() {
+            return duplicateCount;
+        }
+    }
+}
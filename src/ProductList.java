@@ -0,0 +1,205 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ProductList holds products in the order they were added, at most one per ID,
+ * for the inventory's catalog and for each shelf. The products sit at positions
+ * in a trie of 32-slot arrays and an {@link IntProductIndex} maps each ID to its
+ * product and position, so adding, replacing, finding and removing a product
+ * walk at most a few levels whatever the number of products.
+ *
+ * Like {@link IntProductIndex}, copies share structure: {@link #copy()} takes
+ * constant time and a later change copies only the arrays on the path to the
+ * changed position. Removing a product empties its position rather than moving
+ * the products after it; once most positions are empty the list is rebuilt
+ * without them, which keeps the cost of a removal constant on average.
+ *
+ * @author Joreve P. De Jesus
+ */
+class ProductList {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int LEVEL_MASK = WIDTH - 1;
+    private static final int MIN_EMPTY_POSITIONS = 64; // empty positions kept before rebuilding
+
+    private IntProductIndex index;
+    private Node root;
+    private int shift;  // bits of a position that lie above the leaf level
+    private int length; // positions handed out, including emptied ones
+    private int size;   // positions holding a product
+    private Object owner; // nodes carrying this token belong to this list alone
+
+    /**
+     * Constructs an empty ProductList.
+     */
+    ProductList() {
+        this.owner = new Object();
+        this.index = new IntProductIndex();
+        this.root = new Node(owner, new Object[WIDTH]);
+    }
+
+    private ProductList(IntProductIndex index, Node root, int shift, int length, int size) {
+        this.owner = new Object();
+        this.index = index;
+        this.root = root;
+        this.shift = shift;
+        this.length = length;
+        this.size = size;
+    }
+
+    /**
+     * Finds a product by ID.
+     *
+     * @param productID the ID of the product
+     * @return the product, or null if it is not in the list
+     */
+    Product get(int productID) {
+        return index.get(productID);
+    }
+
+    /**
+     * Appends a product, or puts it in the place of the product with its ID.
+     *
+     * @param product the product
+     */
+    void put(Product product) {
+        int position = index.getPosition(product.getProductID());
+        if (position >= 0) {
+            store(position, product);
+        } else {
+            position = append(product);
+        }
+        index.put(product, position);
+    }
+
+    /**
+     * Removes the product with an ID.
+     *
+     * @param productID the ID of the product
+     * @return the removed product, or null if it was not in the list
+     */
+    Product remove(int productID) {
+        int position = index.getPosition(productID);
+        if (position < 0) {
+            return null;
+        }
+        Product removed = index.remove(productID);
+        store(position, null);
+        size--;
+
+        if (length - size > Math.max(size, MIN_EMPTY_POSITIONS)) {
+            compact();
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the products indexed by ID. The index belongs to this list and
+     * must not be changed.
+     *
+     * @return the ID index
+     */
+    IntProductIndex getIndex() {
+        return index;
+    }
+
+    private int append(Product product) {
+        if (length == 1 << (shift + BITS)) {
+            Node grown = new Node(owner, new Object[WIDTH]);
+            grown.slots[0] = root;
+            root = grown;
+            shift += BITS;
+        }
+        int position = length++;
+        store(position, product);
+        size++;
+        return position;
+    }
+
+    /**
+     * Returns the number of products.
+     *
+     * @return the product count
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns a copy of this list. The two share every array until one of them
+     * changes, and a change to one is never seen by the other.
+     *
+     * @return a new list holding the same products
+     */
+    ProductList copy() {
+        owner = new Object(); // the arrays made so far are now shared with the copy
+        return new ProductList(index.copy(), root, shift, length, size);
+    }
+
+    /**
+     * Returns the products in position order, skipping emptied positions.
+     *
+     * @return a new list of the products
+     */
+    List<Product> toList() {
+        List<Product> products = new ArrayList<>(size);
+        collect(root, shift, products);
+        return products;
+    }
+
+    private void collect(Node node, int level, List<Product> products) {
+        for (Object slot : node.slots) {
+            if (slot == null) {
+                continue;
+            }
+            if (level > 0) {
+                collect((Node) slot, level - BITS, products);
+            } else {
+                products.add((Product) slot);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the list without its empty positions.
+     */
+    private void compact() {
+        List<Product> products = toList();
+        owner = new Object();
+        index = new IntProductIndex();
+        root = new Node(owner, new Object[WIDTH]);
+        shift = 0;
+        length = 0;
+        size = 0;
+        for (Product product : products) {
+            index.put(product, append(product));
+        }
+    }
+
+    private void store(int position, Product product) {
+        root = editable(root);
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            int slot = (position >>> level) & LEVEL_MASK;
+            Node child = (Node) node.slots[slot];
+            child = child != null ? editable(child) : new Node(owner, new Object[WIDTH]);
+            node.slots[slot] = child;
+            node = child;
+        }
+        node.slots[position & LEVEL_MASK] = product;
+    }
+
+    private Node editable(Node node) {
+        return node.owner == owner ? node : new Node(owner, node.slots.clone());
+    }
+
+    private static final class Node {
+        final Object owner;
+        final Object[] slots;
+
+        Node(Object owner, Object[] slots) {
+            this.owner = owner;
+            this.slots = slots;
+        }
+    }
+}
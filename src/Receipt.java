@@ -54,36 +54,20 @@ public class Receipt {
         receipt.append("ITEMS:\n");
         receipt.append("----------------------------------------\n");
 
-        double subtotal = 0.0;
-        for (CartItem item : transaction.getPurchasedItems()) {
-            Product product = item.getProduct();
-            double lineTotal = item.computeLineTotal();
-            subtotal += lineTotal;
-
-            receipt.append(String.format("%-20s x%-3d  P%8.2f\n",
-                    product.getName(),
-                    item.getQuantity(),
-                    lineTotal));
+        for (PricedCart.Line line : transaction.getLines()) {
+            receipt.append(String.format("%-20s x%-3d  P%8s\n",
+                    line.getProduct().getName(),
+                    line.getQuantity(),
+                    line.getLineTotal()));
         }
 
         receipt.append("----------------------------------------\n");
-        receipt.append(String.format("Subtotal:               P%8.2f\n", subtotal));
-
-        double afterDiscount = transaction.applyDiscounts();
-        double discount = subtotal - afterDiscount;
-        if (discount > 0) {
-            receipt.append(String.format("Discount:              -P%8.2f\n", discount));
-            receipt.append(String.format("After Discount:         P%8.2f\n", afterDiscount));
-        }
-
-        double vat = afterDiscount * 0.12;
-        receipt.append(String.format("VAT (12%%):              P%8.2f\n", vat));
-
+        appendTotals(receipt, transaction.getPricing(), "P");
         receipt.append("========================================\n");
-        receipt.append(String.format("TOTAL:                  P%8.2f\n", transaction.getTotalCost()));
-        receipt.append(String.format("Amount Received:        P%8.2f\n",
+        receipt.append(String.format("TOTAL:                  P%8s\n", transaction.getTotalCost()));
+        receipt.append(String.format("Amount Received:        P%8s\n",
                 transaction.getPayment().getAmountReceived()));
-        receipt.append(String.format("Change:                 P%8.2f\n",
+        receipt.append(String.format("Change:                 P%8s\n",
                 transaction.getPayment().computeChange()));
         receipt.append("========================================\n");
         receipt.append("     Thank you for shopping with us!\n");
@@ -91,4 +75,55 @@ public class Receipt {
 
         return receipt.toString();
     }
+
+    /**
+     * Appends the subtotal, each discount, the points used and VAT, exactly as
+     * the cart was priced. Shared with {@link ReceiptView}.
+     *
+     * @param receipt the receipt text so far
+     * @param pricing the priced cart
+     * @param peso the peso sign to print
+     */
+    static void appendTotals(StringBuilder receipt, PricedCart pricing, String peso) {
+        receipt.append(String.format("%-24s%s%8s\n", "Subtotal:", peso, pricing.getSubtotal()));
+
+        for (PricedCart.Adjustment adjustment : pricing.getAdjustments()) {
+            appendDiscount(receipt, adjustment.getName(), adjustment.getAmount(), peso);
+        }
+        if (pricing.getPointsUsed() > 0) {
+            appendDiscount(receipt, "Points (" + pricing.getPointsUsed() + ")", pricing.getPointsDiscount(), peso);
+        }
+
+        if (pricing.getVatExemptAmount().isPositive()) {
+            receipt.append(String.format("%-24s%s%8s\n", "VAT-exempt Sales:", peso, pricing.getVatExemptAmount()));
+            receipt.append(String.format("%-24s%s%8s\n", "VATable Sales:", peso, pricing.getVatableAmount()));
+        }
+        receipt.append(String.format("%-24s%s%8s\n", "VAT (" + formatRate(pricing.getVatBasisPoints()) + "):",
+                peso, pricing.getVAT()));
+    }
+
+    /**
+     * Formats a rate in basis points as a percentage, such as "12%" or "12.5%".
+     */
+    private static String formatRate(int basisPoints) {
+        String percent = Money.ofCentavos(basisPoints).toString();
+        if (percent.endsWith(".00")) {
+            percent = percent.substring(0, percent.length() - 3);
+        } else if (percent.endsWith("0")) {
+            percent = percent.substring(0, percent.length() - 1);
+        }
+        return percent + "%";
+    }
+
+    /**
+     * Appends one discount line. A name too long for the label column gets a line of its own.
+     */
+    private static void appendDiscount(StringBuilder receipt, String name, Money amount, String peso) {
+        String label = (name == null || name.isEmpty() ? "Discount" : name) + ":";
+        if (label.length() > 23) {
+            receipt.append(label).append("\n");
+            label = "";
+        }
+        receipt.append(String.format("%-23s-%s%8s\n", label, peso, amount));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,304 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * ReceiptArchive stores receipts back to back in a few large segment files
+ * instead of one small file per sale. A segment is closed once it passes
+ * SEGMENT_SIZE bytes and the next receipt starts a new one.
+ *
+ * An index file maps each transaction ID to its segment, offset and length,
+ * so reprinting a receipt is one seek and one read. Receipts can optionally
+ * be Deflate-compressed; each index entry records whether its receipt is.
+ *
+ * A receipt's index entry is only written once its segment write is durable,
+ * so the index never points at data that is not on disk. If a segment write
+ * fails, the segment is abandoned: receipts still queued for it are reported as
+ * failed too (their offsets can no longer be trusted) and new receipts go to the
+ * next segment.
+ *
+ * @author Joreve P. De Jesus
+ */
+public class ReceiptArchive {
+    private static final long SEGMENT_SIZE = 16L * 1024 * 1024;
+    private static final String SEGMENT_PREFIX = "receipts-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_FILE = "receipts.idx";
+    private static final byte FLAG_COMPRESSED = 1;
+
+    private final Path directory;
+    private final Path indexPath;
+    private final PersistenceWriter writer;
+    private final boolean compress;
+    private final Map<String, Entry> index;
+    private final Map<String, Entry> pending;     // queued receipts whose segment write has not finished
+    private final Set<Integer> abandonedSegments; // segments with a failed write
+    private int currentSegment;
+    private long currentSegmentSize;
+
+    /**
+     * Constructs a ReceiptArchive in the given directory and loads its index.
+     *
+     * @param directory the directory that holds the segments and index
+     * @param writer the background writer that appends receipts
+     * @param compress true to Deflate-compress new receipts
+     */
+    public ReceiptArchive(String directory, PersistenceWriter writer, boolean compress) {
+        this.directory = Paths.get(directory);
+        this.indexPath = this.directory.resolve(INDEX_FILE);
+        this.writer = writer;
+        this.compress = compress;
+        this.index = new HashMap<>();
+        this.pending = new HashMap<>();
+        this.abandonedSegments = new HashSet<>();
+        this.currentSegment = 1;
+        loadIndex();
+    }
+
+    /**
+     * Queues a receipt to be appended to the current segment and indexed.
+     *
+     * @param transactionID the ID of the transaction
+     * @param receiptContent the receipt text
+     * @param callback told when the receipt and its index entry are durable, or
+     *        that either write failed (may be null)
+     */
+    public synchronized void append(String transactionID, String receiptContent, WriteCallback callback) {
+        byte[] data = receiptContent.getBytes(StandardCharsets.UTF_8);
+        byte flags = 0;
+        if (compress) {
+            data = deflate(data);
+            flags = FLAG_COMPRESSED;
+        }
+
+        if (currentSegmentSize > 0 && currentSegmentSize + data.length > SEGMENT_SIZE) {
+            currentSegment++;
+            currentSegmentSize = 0;
+        }
+
+        Entry entry = new Entry(currentSegment, currentSegmentSize, data.length, flags);
+        currentSegmentSize += data.length;
+        pending.put(transactionID, entry);
+
+        writer.append(segmentPath(entry.segment).toString(), data,
+                durable -> segmentWritten(transactionID, entry, durable, callback));
+    }
+
+    /**
+     * Called on the writer thread once a receipt's segment write was attempted.
+     * Indexes the receipt if the write is durable, or abandons the segment if not.
+     */
+    private synchronized void segmentWritten(String transactionID, Entry entry, boolean durable,
+                                             WriteCallback callback) {
+        pending.remove(transactionID, entry);
+
+        if (!durable || abandonedSegments.contains(entry.segment)) {
+            if (abandonedSegments.add(entry.segment)) {
+                System.err.println("Receipt segment " + segmentPath(entry.segment).getFileName()
+                        + " could not be written; starting a new segment.");
+            }
+            if (currentSegment == entry.segment) {
+                currentSegment++;
+                currentSegmentSize = 0;
+            }
+            if (callback != null) {
+                callback.onComplete(false);
+            }
+            return;
+        }
+
+        index.put(transactionID, entry);
+        writer.append(indexPath.toString(), encodeEntry(transactionID, entry), indexed -> {
+            if (!indexed) {
+                synchronized (this) {
+                    index.remove(transactionID, entry);
+                }
+            }
+            if (callback != null) {
+                callback.onComplete(indexed);
+            }
+        });
+    }
+
+    /**
+     * Reads a receipt back from its segment.
+     *
+     * @param transactionID the ID of the transaction
+     * @return the receipt text, or null if it is not in the archive
+     */
+    public String read(String transactionID) {
+        synchronized (this) {
+            if (!index.containsKey(transactionID) && !pending.containsKey(transactionID)) {
+                return null;
+            }
+        }
+
+        // Wait for a queued receipt to be written and indexed, or to fail
+        writer.flush();
+        Entry entry;
+        synchronized (this) {
+            entry = index.get(transactionID);
+        }
+        if (entry == null) {
+            return null;
+        }
+
+        try (RandomAccessFile segment = new RandomAccessFile(segmentPath(entry.segment).toFile(), "r")) {
+            byte[] data = new byte[entry.length];
+            segment.seek(entry.offset);
+            segment.readFully(data);
+
+            if ((entry.flags & FLAG_COMPRESSED) != 0) {
+                data = inflate(data);
+            }
+            return new String(data, StandardCharsets.UTF_8);
+        } catch (IOException | DataFormatException e) {
+            System.err.println("Error reading receipt " + transactionID + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Checks if a receipt is in the archive.
+     *
+     * @param transactionID the ID of the transaction
+     * @return true if the receipt is indexed or queued to be written
+     */
+    public synchronized boolean contains(String transactionID) {
+        return index.containsKey(transactionID) || pending.containsKey(transactionID);
+    }
+
+    /**
+     * Returns the name of the segment file that holds a receipt.
+     *
+     * @param transactionID the ID of the transaction
+     * @return the segment file name, or null if the receipt is not in the archive
+     */
+    public synchronized String getSegmentName(String transactionID) {
+        Entry entry = index.containsKey(transactionID) ? index.get(transactionID) : pending.get(transactionID);
+        return entry != null ? segmentPath(entry.segment).getFileName().toString() : null;
+    }
+
+    /**
+     * Reads the index file. A partly written entry at the end (from a crash)
+     * is cut off so that new entries are appended at a clean boundary.
+     */
+    private void loadIndex() {
+        if (Files.exists(indexPath)) {
+            long validLength = 0;
+            try {
+                byte[] content = Files.readAllBytes(indexPath);
+                ByteArrayInputStream bytes = new ByteArrayInputStream(content);
+                DataInputStream in = new DataInputStream(bytes);
+                while (true) {
+                    String transactionID = in.readUTF();
+                    Entry entry = new Entry(in.readInt(), in.readLong(), in.readInt(), in.readByte());
+                    index.put(transactionID, entry);
+                    validLength = content.length - bytes.available();
+                }
+            } catch (EOFException e) {
+                // End of index, possibly with a torn last entry
+            } catch (IOException e) {
+                System.err.println("Error loading receipt index: " + e.getMessage());
+            }
+
+            try (RandomAccessFile file = new RandomAccessFile(indexPath.toFile(), "rw")) {
+                if (file.length() > validLength) {
+                    System.err.println("Incomplete entry at end of receipt index; removed.");
+                    file.setLength(validLength);
+                }
+            } catch (IOException e) {
+                System.err.println("Error repairing receipt index: " + e.getMessage());
+            }
+        }
+
+        for (Entry entry : index.values()) {
+            currentSegment = Math.max(currentSegment, entry.segment);
+        }
+        try {
+            Path segment = segmentPath(currentSegment);
+            currentSegmentSize = Files.exists(segment) ? Files.size(segment) : 0;
+        } catch (IOException e) {
+            System.err.println("Error reading receipt segment size: " + e.getMessage());
+            currentSegment++;
+            currentSegmentSize = 0;
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("%s%05d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private byte[] encodeEntry(String transactionID, Entry entry) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(transactionID);
+            out.writeInt(entry.segment);
+            out.writeLong(entry.offset);
+            out.writeInt(entry.length);
+            out.writeByte(entry.flags);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            // Writing to a byte array cannot fail
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(data);
+        deflater.finish();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 16);
+        byte[] chunk = new byte[1024];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    private byte[] inflate(byte[] data) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        inflater.setInput(data);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3);
+        byte[] chunk = new byte[1024];
+        while (!inflater.finished()) {
+            int count = inflater.inflate(chunk);
+            if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                throw new DataFormatException("Truncated compressed receipt");
+            }
+            out.write(chunk, 0, count);
+        }
+        inflater.end();
+        return out.toByteArray();
+    }
+
+    /**
+     * Location of one receipt inside the segments.
+     */
+    private static class Entry {
+        private final int segment;
+        private final long offset;
+        private final int length;
+        private final byte flags;
+
+        Entry(int segment, long offset, int length, byte flags) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.flags = flags;
+        }
+    }
+}
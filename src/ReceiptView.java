@@ -111,40 +111,25 @@ public class ReceiptView extends Stage {
         sb.append("----------------------------------------\n");
 
         // Items
-        double subtotal = 0.0;
-        for (CartItem item : transaction.getPurchasedItems()) {
-            Product product = item.getProduct();
-            double lineTotal = item.computeLineTotal();
-            subtotal += lineTotal;
-
-            sb.append(String.format("%-20s x%-3d  ₱%8.2f\n",
-                    truncate(product.getName(), 20),
-                    item.getQuantity(),
-                    lineTotal));
+        for (PricedCart.Line line : transaction.getLines()) {
+            sb.append(String.format("%-20s x%-3d  ₱%8s\n",
+                    truncate(line.getProduct().getName(), 20),
+                    line.getQuantity(),
+                    line.getLineTotal()));
         }
 
         sb.append("----------------------------------------\n");
-        sb.append(String.format("Subtotal:               ₱%8.2f\n", subtotal));
-
-        // Discounts
-        double afterDiscount = transaction.applyDiscounts();
-        double discount = subtotal - afterDiscount;
-        if (discount > 0) {
-            sb.append(String.format("Discount:              -₱%8.2f\n", discount));
-            sb.append(String.format("After Discount:         ₱%8.2f\n", afterDiscount));
-        }
 
-        // VAT
-        double vat = afterDiscount * 0.12;
-        sb.append(String.format("VAT (12%%):              ₱%8.2f\n", vat));
+        // Discounts, points and VAT as priced at checkout
+        Receipt.appendTotals(sb, transaction.getPricing(), "₱");
 
         sb.append("========================================\n");
-        sb.append(String.format("TOTAL:                  ₱%8.2f\n", transaction.getTotalCost()));
+        sb.append(String.format("TOTAL:                  ₱%8s\n", transaction.getTotalCost()));
 
         if (transaction.getPayment() != null) {
-            sb.append(String.format("Amount Received:        ₱%8.2f\n",
+            sb.append(String.format("Amount Received:        ₱%8s\n",
                     transaction.getPayment().getAmountReceived()));
-            sb.append(String.format("Change:                 ₱%8.2f\n",
+            sb.append(String.format("Change:                 ₱%8s\n",
                     transaction.getPayment().computeChange()));
         }
 
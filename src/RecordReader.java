@@ -0,0 +1,417 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+
+/**
+ * RecordReader reads "|||"-delimited records field by field from a reusable character buffer.
+ * Numbers and dates are parsed straight from the buffer, so reading a record does not compile
+ * a regular expression or allocate a String[] and a substring per field the way
+ * {@code line.split("\\|\\|\\|")} does. Only fields read with {@link #nextString()} allocate.
+ *
+ * Field counting follows {@code String.split}: trailing empty fields are not counted,
+ * so existing data files load exactly as before.
+ *
+ * @author Joreve P. De Jesus
+ */
+public class RecordReader implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final char SEPARATOR = '|';
+    private static final int SEPARATOR_LENGTH = 3;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final Reader reader;
+    private char[] buffer;
+    private int bufferEnd;
+    private int recordStart;
+    private int recordEnd;
+    private int nextRecordStart;
+    private int position;
+    private int fieldCount;
+    private int fieldIndex;
+
+    /**
+     * Constructs a RecordReader over a character stream.
+     *
+     * @param reader the stream to read records from
+     */
+    public RecordReader(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * Constructs a RecordReader that is fed single lines through {@link #reset(String)}.
+     */
+    public RecordReader() {
+        this(null);
+    }
+
+    /**
+     * Opens a RecordReader over a UTF-8 file.
+     *
+     * @param filepath the path of the file
+     * @return a new RecordReader
+     * @throws IOException if the file cannot be opened
+     */
+    public static RecordReader open(String filepath) throws IOException {
+        return open(Paths.get(filepath));
+    }
+
+    /**
+     * Opens a RecordReader over a UTF-8 file, the encoding every data file is written in.
+     * Bytes that are not valid UTF-8 are read as the replacement character instead of
+     * failing the whole file.
+     *
+     * @param path the path of the file
+     * @return a new RecordReader
+     * @throws IOException if the file cannot be opened
+     */
+    public static RecordReader open(Path path) throws IOException {
+        return new RecordReader(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Advances to the next record (line) in the stream.
+     *
+     * @return true if a record is available, false at end of input
+     * @throws IOException if reading fails
+     */
+    public boolean nextRecord() throws IOException {
+        if (reader == null) {
+            return false;
+        }
+
+        int start = nextRecordStart;
+        int scan = start;
+
+        while (true) {
+            while (scan < bufferEnd && buffer[scan] != '\n') {
+                scan++;
+            }
+
+            if (scan < bufferEnd) {
+                setRecord(start, scan, scan + 1);
+                return true;
+            }
+
+            // Line continues past the buffer: compact and refill
+            if (start > 0) {
+                System.arraycopy(buffer, start, buffer, 0, bufferEnd - start);
+                bufferEnd -= start;
+                scan -= start;
+                start = 0;
+            } else if (bufferEnd == buffer.length) {
+                char[] larger = new char[buffer.length * 2];
+                System.arraycopy(buffer, 0, larger, 0, bufferEnd);
+                buffer = larger;
+            }
+
+            int read = reader.read(buffer, bufferEnd, buffer.length - bufferEnd);
+            if (read < 0) {
+                if (bufferEnd > start) {
+                    setRecord(start, bufferEnd, bufferEnd);
+                    return true;
+                }
+                nextRecordStart = bufferEnd;
+                return false;
+            }
+            bufferEnd += read;
+        }
+    }
+
+    /**
+     * Loads a single line as the current record, reusing the buffer.
+     *
+     * @param line the record text
+     */
+    public void reset(String line) {
+        if (line.length() > buffer.length) {
+            buffer = new char[Math.max(line.length(), buffer.length * 2)];
+        }
+        line.getChars(0, line.length(), buffer, 0);
+        bufferEnd = line.length();
+        setRecord(0, bufferEnd, bufferEnd);
+    }
+
+    /**
+     * Returns the number of fields in the current record, not counting trailing empty fields.
+     *
+     * @return the field count
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns the number of fields not yet read from the current record,
+     * counted the same way as {@link #getFieldCount()}.
+     *
+     * @return the remaining field count
+     */
+    public int getRemainingFieldCount() {
+        return Math.max(fieldCount - fieldIndex, 0);
+    }
+
+    /**
+     * Checks if the current record is empty.
+     *
+     * @return true if the record has no characters
+     */
+    public boolean isEmptyRecord() {
+        return recordEnd == recordStart;
+    }
+
+    /**
+     * Reads the next field as a String.
+     *
+     * @return the field text (empty if the field is empty or missing)
+     */
+    public String nextString() {
+        int end = fieldEnd();
+        String value = new String(buffer, position, end - position);
+        advance(end);
+        return value;
+    }
+
+    /**
+     * Reads the next field as a String, or null if it is empty.
+     *
+     * @return the field text, or null
+     */
+    public String nextOptionalString() {
+        int end = fieldEnd();
+        String value = end > position ? new String(buffer, position, end - position) : null;
+        advance(end);
+        return value;
+    }
+
+    /**
+     * Checks if the next field is empty, without consuming it.
+     *
+     * @return true if the next field has no characters
+     */
+    public boolean isNextEmpty() {
+        return fieldEnd() == position;
+    }
+
+    /**
+     * Compares the next field with a String without allocating, and consumes it.
+     *
+     * @param value the text to compare against
+     * @return true if the field equals the value
+     */
+    public boolean nextEquals(String value) {
+        boolean equal = isNext(value);
+        skipField();
+        return equal;
+    }
+
+    /**
+     * Compares the next field with a String without allocating or consuming it.
+     *
+     * @param value the text to compare against
+     * @return true if the field equals the value
+     */
+    public boolean isNext(String value) {
+        int end = fieldEnd();
+        if (end - position != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (buffer[position + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Skips the next field.
+     */
+    public void skipField() {
+        advance(fieldEnd());
+    }
+
+    /**
+     * Parses the next field as an int.
+     *
+     * @return the parsed value
+     * @throws NumberFormatException if the field is not a valid integer
+     */
+    public int nextInt() {
+        int end = fieldEnd();
+        long value = parseLong(position, end);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Integer out of range: " + new String(buffer, position, end - position));
+        }
+        advance(end);
+        return (int) value;
+    }
+
+    /**
+     * Parses the next field as a double. Plain decimals such as "302.4" are
+     * parsed in place with the same result as {@link Double#parseDouble(String)};
+     * anything else falls back to it.
+     *
+     * @return the parsed value
+     * @throws NumberFormatException if the field is not a valid number
+     */
+    public double nextDouble() {
+        int end = fieldEnd();
+        double value = parseDouble(position, end);
+        advance(end);
+        return value;
+    }
+
+    /**
+     * Parses the next field as an ISO date (yyyy-MM-dd).
+     *
+     * @return the parsed date, or null if the field is empty
+     */
+    public LocalDate nextDate() {
+        int end = fieldEnd();
+        LocalDate date = null;
+
+        if (end - position == 10 && buffer[position + 4] == '-' && buffer[position + 7] == '-') {
+            date = LocalDate.of((int) parseLong(position, position + 4),
+                                (int) parseLong(position + 5, position + 7),
+                                (int) parseLong(position + 8, position + 10));
+        } else if (end > position) {
+            date = LocalDate.parse(new String(buffer, position, end - position));
+        }
+
+        advance(end);
+        return date;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+        }
+    }
+
+    private void setRecord(int start, int end, int next) {
+        recordStart = start;
+        recordEnd = end;
+        if (recordEnd > recordStart && buffer[recordEnd - 1] == '\r') {
+            recordEnd--;
+        }
+        nextRecordStart = next;
+        position = recordStart;
+        fieldIndex = 0;
+        fieldCount = countFields();
+    }
+
+    /**
+     * Counts fields the way String.split does: separators are matched left to right
+     * and trailing empty fields are dropped.
+     */
+    private int countFields() {
+        if (recordEnd == recordStart) {
+            return 1; // "".split(...) yields one empty field
+        }
+
+        int count = 0;
+        int lastNonEmpty = 0;
+        int start = recordStart;
+
+        while (true) {
+            int end = findSeparator(start);
+            count++;
+            if (end > start) {
+                lastNonEmpty = count;
+            }
+            if (end == recordEnd) {
+                break;
+            }
+            start = end + SEPARATOR_LENGTH;
+        }
+        return lastNonEmpty;
+    }
+
+    private int fieldEnd() {
+        return position >= recordEnd ? recordEnd : findSeparator(position);
+    }
+
+    private int findSeparator(int from) {
+        for (int i = from; i + SEPARATOR_LENGTH <= recordEnd; i++) {
+            if (buffer[i] == SEPARATOR && buffer[i + 1] == SEPARATOR && buffer[i + 2] == SEPARATOR) {
+                return i;
+            }
+        }
+        return recordEnd;
+    }
+
+    private void advance(int fieldEnd) {
+        fieldIndex++;
+        position = fieldEnd < recordEnd ? fieldEnd + SEPARATOR_LENGTH : recordEnd;
+    }
+
+    private long parseLong(int start, int end) {
+        int i = start;
+        boolean negative = false;
+
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+        if (i == end || end - i > 18) {
+            throw new NumberFormatException("For input string: \"" + new String(buffer, start, end - start) + "\"");
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            char c = buffer[i];
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("For input string: \"" + new String(buffer, start, end - start) + "\"");
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private double parseDouble(int start, int end) {
+        int i = start;
+        boolean negative = false;
+
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        boolean simple = i < end;
+
+        for (; i < end && simple; i++) {
+            char c = buffer[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                simple = false;
+            }
+        }
+
+        // Exact fast path: mantissa and power of ten are both exactly representable
+        if (simple && digits > 0 && digits <= 15 && fractionDigits < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(buffer, start, end - start));
+    }
+}
@@ -0,0 +1,297 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SalesHistory reads transactions.txt a page at a time, newest first.
+ * An index file holds the byte offset where each line starts (one long per line),
+ * so a page is found by reading a few index entries and one range of the sales file,
+ * no matter how many transactions came before it.
+ *
+ * The index is brought up to date on every read by scanning only the lines
+ * appended since the last read. If it no longer fits the sales file it is rebuilt.
+ *
+ * @author Joreve P. De Jesus
+ */
+public class SalesHistory {
+    private static final int ENTRY_SIZE = Long.BYTES;
+    private static final int SCAN_CHUNK_SIZE = 64 * 1024;
+
+    private final Path salesPath;
+    private final Path indexPath;
+    private long lineCount;
+    private long indexedEnd; // offset just past the last indexed line
+
+    /**
+     * Constructs a SalesHistory over a sales file and its offset index.
+     *
+     * @param salesFilepath the path of transactions.txt
+     * @param indexFilepath the path of the offset index
+     */
+    public SalesHistory(String salesFilepath, String indexFilepath) {
+        this.salesPath = Paths.get(salesFilepath);
+        this.indexPath = Paths.get(indexFilepath);
+        this.lineCount = -1;
+    }
+
+    /**
+     * Returns a cursor positioned after the newest transaction.
+     *
+     * @return the cursor to pass to {@link #readPage(long, int)} for the first page
+     */
+    public synchronized long newestCursor() {
+        refresh();
+        return lineCount;
+    }
+
+    /**
+     * Reads up to pageSize transactions older than the cursor, newest first.
+     *
+     * @param cursor a cursor from {@link #newestCursor()} or a previous page
+     * @param pageSize the maximum number of transactions to return
+     * @return the page of transaction lines
+     */
+    public synchronized Page readPage(long cursor, int pageSize) {
+        refresh();
+        long to = Math.min(Math.max(cursor, 0), lineCount);
+        long from = Math.max(to - pageSize, 0);
+        if (from == to) {
+            return new Page(Collections.emptyList(), from);
+        }
+
+        try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.READ);
+             FileChannel sales = FileChannel.open(salesPath, StandardOpenOption.READ)) {
+            long start = readEntry(index, from);
+            long end = to < lineCount ? readEntry(index, to) : indexedEnd;
+
+            ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+            while (bytes.hasRemaining() && sales.read(bytes, start + bytes.position()) >= 0) {
+                // keep reading until the range is filled
+            }
+
+            List<String> lines = new ArrayList<>(pageSize);
+            for (String line : new String(bytes.array(), 0, bytes.position(), StandardCharsets.UTF_8).split("\n")) {
+                line = stripCarriageReturn(line);
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                }
+            }
+            Collections.reverse(lines);
+            return new Page(lines, from);
+        } catch (IOException e) {
+            System.err.println("Error reading sales history: " + e.getMessage());
+            return new Page(Collections.emptyList(), 0);
+        }
+    }
+
+    /**
+     * Indexes any lines appended to the sales file since the last call.
+     */
+    private void refresh() {
+        try {
+            long salesSize = Files.exists(salesPath) ? Files.size(salesPath) : 0;
+
+            if (lineCount < 0) {
+                openIndex(salesSize);
+            }
+            if (indexedEnd > salesSize) {
+                rebuild(); // the sales file was replaced or truncated
+            }
+            if (indexedEnd < salesSize) {
+                catchUp(salesSize);
+            }
+        } catch (IOException e) {
+            System.err.println("Error indexing sales history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Picks up the existing index, checking that its last entry still starts
+     * a line of the sales file.
+     */
+    private void openIndex(long salesSize) throws IOException {
+        lineCount = 0;
+        indexedEnd = 0;
+        if (!Files.exists(indexPath)) {
+            return;
+        }
+
+        try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long count = index.size() / ENTRY_SIZE;
+            index.truncate(count * ENTRY_SIZE); // drop a torn last entry
+            if (count == 0) {
+                return;
+            }
+
+            long lastStart = readEntry(index, count - 1);
+            long lastEnd = lastStart < salesSize ? findLineEnd(lastStart, salesSize) : -1;
+            if (lastEnd < 0 || (lastStart > 0 && byteAt(lastStart - 1) != '\n')) {
+                lineCount = 0;
+                indexedEnd = Long.MAX_VALUE; // forces a rebuild
+                return;
+            }
+            lineCount = count;
+            indexedEnd = lastEnd;
+        }
+    }
+
+    private void rebuild() throws IOException {
+        Files.deleteIfExists(indexPath);
+        lineCount = 0;
+        indexedEnd = 0;
+    }
+
+    /**
+     * Scans the sales file from the end of the last indexed line and appends
+     * the start offset of every complete new line to the index.
+     */
+    private void catchUp(long salesSize) throws IOException {
+        try (FileChannel sales = FileChannel.open(salesPath, StandardOpenOption.READ);
+             FileChannel index = FileChannel.open(indexPath, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer chunk = ByteBuffer.allocate(SCAN_CHUNK_SIZE);
+            ByteBuffer entries = ByteBuffer.allocate(SCAN_CHUNK_SIZE);
+            long lineStart = indexedEnd;
+            long position = indexedEnd;
+
+            while (position < salesSize) {
+                chunk.clear();
+                int read = sales.read(chunk, position);
+                if (read <= 0) {
+                    break;
+                }
+
+                for (int i = 0; i < read; i++) {
+                    if (chunk.get(i) != '\n') {
+                        continue;
+                    }
+                    long lineEnd = position + i + 1;
+                    if (!isBlank(sales, lineStart, lineEnd)) {
+                        if (!entries.hasRemaining()) {
+                            flushEntries(index, entries);
+                        }
+                        entries.putLong(lineStart);
+                        lineCount++;
+                    }
+                    lineStart = lineEnd;
+                    indexedEnd = lineEnd;
+                }
+                position += read;
+            }
+            flushEntries(index, entries);
+        }
+    }
+
+    private boolean isBlank(FileChannel sales, long start, long end) throws IOException {
+        if (end - start > 2) {
+            return false;
+        }
+        ByteBuffer line = ByteBuffer.allocate((int) (end - start));
+        sales.read(line, start);
+        for (int i = 0; i < line.position(); i++) {
+            if (line.get(i) != '\r' && line.get(i) != '\n') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void flushEntries(FileChannel index, ByteBuffer entries) throws IOException {
+        entries.flip();
+        while (entries.hasRemaining()) {
+            index.write(entries);
+        }
+        entries.clear();
+    }
+
+    private long findLineEnd(long start, long salesSize) throws IOException {
+        try (FileChannel sales = FileChannel.open(salesPath, StandardOpenOption.READ)) {
+            ByteBuffer chunk = ByteBuffer.allocate(4096);
+            long position = start;
+            while (position < salesSize) {
+                chunk.clear();
+                int read = sales.read(chunk, position);
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (chunk.get(i) == '\n') {
+                        return position + i + 1;
+                    }
+                }
+                position += read;
+            }
+        }
+        return -1;
+    }
+
+    private byte byteAt(long position) throws IOException {
+        try (FileChannel sales = FileChannel.open(salesPath, StandardOpenOption.READ)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            sales.read(one, position);
+            return one.get(0);
+        }
+    }
+
+    private long readEntry(FileChannel index, long entry) throws IOException {
+        ByteBuffer value = ByteBuffer.allocate(ENTRY_SIZE);
+        while (value.hasRemaining()) {
+            if (index.read(value, entry * ENTRY_SIZE + value.position()) < 0) {
+                throw new IOException("Sales index is shorter than expected");
+            }
+        }
+        return value.getLong(0);
+    }
+
+    private String stripCarriageReturn(String line) {
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+
+    /**
+     * One page of sales history.
+     */
+    public static class Page {
+        private final List<String> transactions;
+        private final long nextCursor;
+
+        Page(List<String> transactions, long nextCursor) {
+            this.transactions = transactions;
+            this.nextCursor = nextCursor;
+        }
+
+        /**
+         * Returns the transaction lines on this page, newest first.
+         *
+         * @return the transaction lines
+         */
+        public List<String> getTransactions() {
+            return transactions;
+        }
+
+        /**
+         * Returns the cursor for the next (older) page.
+         *
+         * @return the cursor to pass to readPage
+         */
+        public long getNextCursor() {
+            return nextCursor;
+        }
+
+        /**
+         * Checks if there are older transactions after this page.
+         *
+         * @return true if another page can be read
+         */
+        public boolean hasOlder() {
+            return nextCursor > 0;
+        }
+    }
+}
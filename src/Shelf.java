@@ -1,14 +1,19 @@
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Represents a shelf or display area in the store, dedicated to a specific category.
  * It holds a collection of Product objects that match its category.
+ *
+ * The products are kept in a {@link ProductList}, so the inventory can copy a
+ * published shelf and change the copy without copying every product on it.
  * 
  * @author Joreve P. De Jesus
  */
 public class Shelf {
     private Category category;
-    private ArrayList<Product> products;
+    private ProductList products;
+    private volatile List<Product> productsView; // built on first use after a change
 
     /**
      * Constructs a new Shelf for a specific product category.
@@ -16,18 +21,24 @@ public class Shelf {
      * @param category The category (main and sub) of products this shelf will hold.
      */
     public Shelf(Category category) {
+        this(category, new ProductList());
+    }
+
+    private Shelf(Category category, ProductList products) {
         this.category = category;
-        this.products = new ArrayList<>();
+        this.products = products;
     }
 
     /**
      * Adds a product to the shelf, but only if the product's category matches the shelf's category.
+     * A product with the same ID as one already on the shelf takes its place.
      *
      * @param product The product to add.
      */
     public void addProduct(Product product) {
         if (product.getCategory().getName().equalsIgnoreCase(category.getName())) {
-            products.add(product);
+            products.put(product);
+            productsView = null;
         } 
         else {
             System.out.println("Product category does not match shelf category.\n");
@@ -41,7 +52,7 @@ public class Shelf {
     public void displayShelf() {
         System.out.println("=== " + category.getName().toUpperCase() + " - " + category.getType().toUpperCase() + " ===");
 
-        for (Product p : products) {
+        for (Product p : getProducts()) {
             System.out.printf("ID: %d | %s | Price: %.2f | Stock: %d",
                             p.getProductID(), p.getName(), p.getPrice(), p.getStock());
         
@@ -69,7 +80,39 @@ public class Shelf {
         return category;
     }
 
-    public ArrayList<Product> getProducts() {
-        return products;
+    /**
+     * Returns the products on the shelf. The list cannot be changed through
+     * this method; use {@link #addProduct(Product)}.
+     *
+     * @return a read-only list of the shelf's products
+     */
+    public List<Product> getProducts() {
+        List<Product> view = productsView;
+        if (view == null) {
+            view = Collections.unmodifiableList(products.toList());
+            productsView = view;
+        }
+        return view;
+    }
+
+    /**
+     * Takes a product off the shelf.
+     *
+     * @param productID The ID of the product.
+     */
+    void removeProduct(int productID) {
+        if (products.remove(productID) != null) {
+            productsView = null;
+        }
+    }
+
+    /**
+     * Returns a copy of the shelf that shares its products with this one until
+     * either changes.
+     *
+     * @return the copy
+     */
+    Shelf copy() {
+        return new Shelf(category, products.copy());
     }
 }
\ No newline at end of file
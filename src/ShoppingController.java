@@ -1,4 +1,4 @@
-import java.util.ArrayList;
+import java.util.List;
 
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
@@ -36,7 +36,7 @@ public class ShoppingController {
         return store.getLocation();
     }
 
-    public ArrayList<Shelf> getShelves() {
+    public List<Shelf> getShelves() {
         return store.getInventory().getShelves();
     }
 
@@ -67,9 +67,11 @@ public class ShoppingController {
             return;
         }
         
-        if (quantity > product.getStock()) {
+        // Hold the stock for this cart so another register cannot sell it
+        Inventory inventory = store.getInventory();
+        if (!inventory.reserveStock(customer.getCart(), product, quantity)) {
             showAlert("Insufficient Stock", 
-                     "Only " + product.getStock() + " units available.", 
+                     "Only " + inventory.getAvailableStock(product) + " more units available.", 
                      Alert.AlertType.WARNING);
             return;
         }
@@ -0,0 +1,382 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * StartupSnapshot is a binary image of the catalog, the shelf layout and the
+ * user directory, written when the application closes cleanly and mapped on the
+ * next start so the text files do not have to be parsed again.
+ *
+ * The snapshot records the size and a CRC-32C checksum of the content of every
+ * data file it was built from; modification times are not used, since other
+ * tools and coarse filesystem clocks change them without changing the data.
+ * If any file's content changed since (or the snapshot is missing, from another
+ * version, or unreadable) the snapshot is ignored and the text files are loaded
+ * instead. A loaded snapshot is deleted right away, so after a crash the next
+ * start always falls back to the text files and their journals.
+ *
+ * @author Joreve P. De Jesus
+ */
+public class StartupSnapshot {
+    private static final int MAGIC = 0x534E4150; // "SNAP"
+    private static final int VERSION = 2; // 1 stored prices as doubles and fingerprints by time
+    private static final long NO_EXPIRY = Long.MIN_VALUE;
+
+    private final Path snapshotPath;
+    private final List<Path> sourcePaths;
+    private final String catalogEngine;
+
+    private List<Product> products;
+    private List<Shelf> shelves;
+    private List<Customer> customers;
+    private List<Employee> employees;
+
+    /**
+     * Constructs a StartupSnapshot for the given file.
+     *
+     * @param filepath the path of the snapshot file
+     * @param sourceFilepaths the data files the snapshot must be newer than
+     * @param catalogEngine the catalog engine in use; a snapshot from another engine is stale
+     */
+    public StartupSnapshot(String filepath, List<String> sourceFilepaths, String catalogEngine) {
+        this.snapshotPath = Paths.get(filepath);
+        this.sourcePaths = new ArrayList<>();
+        for (String source : sourceFilepaths) {
+            sourcePaths.add(Paths.get(source));
+        }
+        this.catalogEngine = catalogEngine;
+    }
+
+    /**
+     * Writes the snapshot. Must be called after every pending write to the
+     * source files has finished, so the recorded fingerprints match them.
+     *
+     * @param inventory the inventory whose products and shelves are saved
+     * @param userDirectory the accounts to save
+     * @return true if the snapshot was written
+     */
+    public boolean write(Inventory inventory, UserDirectory userDirectory) {
+        Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, catalogEngine);
+            writeFingerprints(out);
+
+            // One version of the inventory, so products and shelves agree
+            InventorySnapshot catalog = inventory.getSnapshot();
+
+            // Category table, shared by products and shelves
+            Map<Category, Integer> categoryIndex = new LinkedHashMap<>();
+            List<Category> categories = new ArrayList<>();
+            for (Product product : catalog.getProducts()) {
+                indexCategory(product.getCategory(), categoryIndex, categories);
+            }
+            for (Shelf shelf : catalog.getShelves()) {
+                indexCategory(shelf.getCategory(), categoryIndex, categories);
+            }
+            out.writeInt(categories.size());
+            for (Category category : categories) {
+                writeString(out, category.getName());
+                writeString(out, category.getType());
+            }
+
+            out.writeInt(catalog.getProducts().size());
+            for (Product product : catalog.getProducts()) {
+                out.writeInt(product.getProductID());
+                writeString(out, product.getName());
+                product.getUnitPrice().write(out);
+                out.writeInt(product.getStock());
+                out.writeInt(categoryIndex.get(product.getCategory()));
+                writeString(out, product.getBrand());
+                writeString(out, product.getVariant());
+                out.writeLong(product.getExpirationDate() != null
+                        ? product.getExpirationDate().toEpochDay() : NO_EXPIRY);
+            }
+
+            out.writeInt(catalog.getShelves().size());
+            for (Shelf shelf : catalog.getShelves()) {
+                out.writeInt(categoryIndex.get(shelf.getCategory()));
+                out.writeInt(shelf.getProducts().size());
+                for (Product product : shelf.getProducts()) {
+                    out.writeInt(product.getProductID());
+                }
+            }
+
+            List<Customer> allCustomers = userDirectory.getAllCustomers();
+            out.writeInt(allCustomers.size());
+            for (Customer customer : allCustomers) {
+                writeString(out, customer.getUsername());
+                writeString(out, customer.getPassword());
+                writeString(out, customer.getName());
+                writeString(out, customer.hasMembershipCard() ? customer.getMembershipCard().getCardNumber() : null);
+                out.writeInt(customer.hasMembershipCard() ? customer.getMembershipCard().getPoints() : 0);
+            }
+
+            List<Employee> allEmployees = userDirectory.getAllEmployees();
+            out.writeInt(allEmployees.size());
+            for (Employee employee : allEmployees) {
+                writeString(out, employee.getUsername());
+                writeString(out, employee.getPassword());
+                writeString(out, employee.getName());
+                writeString(out, employee.getEmployeeID());
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing startup snapshot: " + e.getMessage());
+            return false;
+        }
+
+        try {
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error saving startup snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Maps and reads the snapshot if it is present and up to date, then deletes it.
+     *
+     * @return true if the snapshot was loaded, false if the text files must be read
+     */
+    public boolean load() {
+        if (!Files.exists(snapshotPath)) {
+            return false;
+        }
+
+        boolean loaded = false;
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            loaded = read(buffer);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading startup snapshot: " + e.getMessage());
+        }
+
+        if (!loaded) {
+            products = null;
+            shelves = null;
+            customers = null;
+            employees = null;
+        }
+        discard();
+        return loaded;
+    }
+
+    /**
+     * Deletes the snapshot file.
+     */
+    public void discard() {
+        try {
+            Files.deleteIfExists(snapshotPath);
+        } catch (IOException e) {
+            System.err.println("Error deleting startup snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the loaded products in inventory order.
+     *
+     * @return the products, or null if no snapshot was loaded
+     */
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    /**
+     * Returns the loaded shelves, already filled with the loaded products.
+     *
+     * @return the shelves, or null if no snapshot was loaded
+     */
+    public List<Shelf> getShelves() {
+        return shelves;
+    }
+
+    /**
+     * Returns the loaded customers.
+     *
+     * @return the customers, or null if no snapshot was loaded
+     */
+    public List<Customer> getCustomers() {
+        return customers;
+    }
+
+    /**
+     * Returns the loaded employees.
+     *
+     * @return the employees, or null if no snapshot was loaded
+     */
+    public List<Employee> getEmployees() {
+        return employees;
+    }
+
+    private boolean read(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return false;
+        }
+        if (!catalogEngine.equals(readString(buffer)) || !fingerprintsMatch(buffer)) {
+            return false;
+        }
+
+        int categoryCount = buffer.getInt();
+        List<Category> categories = new ArrayList<>(categoryCount);
+        for (int i = 0; i < categoryCount; i++) {
+            categories.add(Category.of(readString(buffer), readString(buffer)));
+        }
+
+        int productCount = buffer.getInt();
+        products = new ArrayList<>(productCount);
+        Map<Integer, Product> productsByID = new HashMap<>(productCount * 2);
+        for (int i = 0; i < productCount; i++) {
+            int productID = buffer.getInt();
+            String name = readString(buffer);
+            Money price = Money.read(buffer);
+            int stock = buffer.getInt();
+            Category category = categories.get(buffer.getInt());
+            String brand = readString(buffer);
+            String variant = readString(buffer);
+            long expiry = buffer.getLong();
+
+            Product product = new Product(productID, name, 0, stock, category, brand, variant,
+                                          expiry != NO_EXPIRY ? LocalDate.ofEpochDay(expiry) : null);
+            product.setUnitPrice(price);
+            products.add(product);
+            productsByID.put(productID, product);
+        }
+
+        int shelfCount = buffer.getInt();
+        shelves = new ArrayList<>(shelfCount);
+        for (int i = 0; i < shelfCount; i++) {
+            Shelf shelf = new Shelf(categories.get(buffer.getInt()));
+            int shelfSize = buffer.getInt();
+            for (int j = 0; j < shelfSize; j++) {
+                Product product = productsByID.get(buffer.getInt());
+                if (product != null) {
+                    shelf.addProduct(product);
+                }
+            }
+            shelves.add(shelf);
+        }
+
+        int customerCount = buffer.getInt();
+        customers = new ArrayList<>(customerCount);
+        for (int i = 0; i < customerCount; i++) {
+            String username = readString(buffer);
+            String password = readString(buffer);
+            Customer customer = new Customer(readString(buffer), username, password);
+            String cardNumber = readString(buffer);
+            int points = buffer.getInt();
+            if (cardNumber != null) {
+                MembershipCard card = new MembershipCard(cardNumber);
+                card.setPoints(points);
+                customer.setMembershipCard(card);
+            }
+            customers.add(customer);
+        }
+
+        int employeeCount = buffer.getInt();
+        employees = new ArrayList<>(employeeCount);
+        for (int i = 0; i < employeeCount; i++) {
+            String username = readString(buffer);
+            String password = readString(buffer);
+            String name = readString(buffer);
+            employees.add(new Employee(name, username, password, readString(buffer)));
+        }
+        return true;
+    }
+
+    private void writeFingerprints(DataOutputStream out) throws IOException {
+        out.writeInt(sourcePaths.size());
+        for (Path source : sourcePaths) {
+            writeString(out, source.toString());
+            if (Files.exists(source)) {
+                out.writeLong(Files.size(source));
+                out.writeLong(checksum(source));
+            } else {
+                out.writeLong(-1);
+                out.writeLong(-1);
+            }
+        }
+    }
+
+    private boolean fingerprintsMatch(ByteBuffer buffer) throws IOException {
+        int count = buffer.getInt();
+        if (count != sourcePaths.size()) {
+            return false;
+        }
+
+        for (Path source : sourcePaths) {
+            String recordedPath = readString(buffer);
+            long size = buffer.getLong();
+            long checksum = buffer.getLong();
+
+            boolean match;
+            if (!source.toString().equals(recordedPath)) {
+                match = false;
+            } else if (Files.exists(source)) {
+                // The size is compared first so a changed file is usually not read
+                match = size == Files.size(source) && checksum == checksum(source);
+            } else {
+                match = size == -1;
+            }
+            if (!match) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the CRC-32C of a file's content.
+     */
+    private long checksum(Path source) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer chunk = ByteBuffer.allocateDirect(64 * 1024);
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            while (channel.read(chunk) >= 0) {
+                chunk.flip();
+                crc.update(chunk);
+                chunk.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    private void indexCategory(Category category, Map<Category, Integer> categoryIndex, List<Category> categories) {
+        if (!categoryIndex.containsKey(category)) {
+            categoryIndex.put(category, categories.size());
+            categories.add(category);
+        }
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
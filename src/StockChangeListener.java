@@ -0,0 +1,15 @@
+/**
+ * Receives a callback whenever Inventory changes the stock level of a product,
+ * so the change can be persisted without rewriting the whole catalog.
+ *
+ * @author Joreve P. De Jesus
+ */
+public interface StockChangeListener {
+    /**
+     * Called after a product's stock has changed.
+     *
+     * @param productID the ID of the product
+     * @param delta the change in stock (positive for restocks, negative for sales)
+     */
+    void onStockChanged(int productID, int delta);
+}
@@ -0,0 +1,310 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * StockReservations holds stock for items while they sit in a cart, so two
+ * registers sharing one inventory can never sell the same last unit.
+ *
+ * Stock is reserved when an item is added to a cart, taken from the product when
+ * the cart is paid for, and given back when the item is removed, the customer logs
+ * out, or the cart is left idle for longer than the timeout.
+ *
+ * Each product ID maps to one of STRIPE_COUNT lock stripes. A reservation locks only
+ * its product's stripe, so lanes selling different products never wait for each
+ * other. Checkout locks the stripes of every product in the cart in index order,
+ * which keeps the whole sale atomic without risk of deadlock.
+ *
+ * @author Joreve P. De Jesus
+ */
+public class StockReservations {
+    private static final int STRIPE_COUNT = 64; // must be a power of two
+
+    private final Object[] stripes;
+    private final Map<Integer, AtomicInteger> reservedByProduct;
+    private final Map<Cart, Hold> holds;
+    private ScheduledExecutorService expiryTimer;
+
+    /**
+     * Constructs an empty StockReservations.
+     */
+    public StockReservations() {
+        this.stripes = new Object[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Object();
+        }
+        this.reservedByProduct = new ConcurrentHashMap<>();
+        this.holds = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Reserves more units of a product for a cart.
+     *
+     * @param cart the cart the units are for
+     * @param product the product to reserve
+     * @param quantity the number of extra units
+     * @return true if the units were reserved, false if not enough stock is free
+     */
+    public boolean reserve(Cart cart, Product product, int quantity) {
+        if (quantity <= 0) {
+            return false;
+        }
+        return setHeld(cart, product, quantity, true);
+    }
+
+    /**
+     * Changes the number of units of a product reserved for a cart.
+     *
+     * @param cart the cart the units are for
+     * @param product the product
+     * @param quantity the new number of units (0 releases the reservation)
+     * @return true if the change was made, false if not enough stock is free
+     */
+    public boolean adjust(Cart cart, Product product, int quantity) {
+        return setHeld(cart, product, Math.max(quantity, 0), false);
+    }
+
+    /**
+     * Gives back the units of a product reserved for a cart.
+     *
+     * @param cart the cart
+     * @param product the product removed from the cart
+     */
+    public void release(Cart cart, Product product) {
+        if (holds.containsKey(cart)) {
+            setHeld(cart, product, 0, false);
+        }
+    }
+
+    /**
+     * Gives back everything reserved for a cart.
+     *
+     * @param cart the cart being emptied or abandoned
+     */
+    public void releaseAll(Cart cart) {
+        Hold hold = holds.remove(cart);
+        if (hold == null) {
+            return;
+        }
+
+        synchronized (hold) {
+            for (Map.Entry<Integer, Integer> entry : hold.quantities.entrySet()) {
+                int productID = entry.getKey();
+                synchronized (stripeFor(productID)) {
+                    addReserved(productID, -entry.getValue());
+                }
+            }
+            hold.quantities.clear();
+            hold.released = true;
+        }
+    }
+
+    /**
+     * Takes the stock for every item in a cart, converting its reservations into a sale.
+     * Items whose reservation expired are taken from free stock if there is enough.
+     * Either every item is taken or none is.
+     *
+     * @param cart the cart being paid for
+     * @param products looks up the current Product object for each ID
+     * @return true if the stock was taken, false if some item is no longer available
+     */
+    public boolean commit(Cart cart, IntProductIndex products) {
+        List<CartItem> items = cart.getItems();
+
+        while (true) {
+            Hold hold = holds.computeIfAbsent(cart, c -> new Hold());
+            synchronized (hold) {
+                if (hold.released) {
+                    continue; // released by another thread meanwhile; start over
+                }
+                // Lock every stripe involved, in index order
+                int[] stripeIndexes = new int[items.size()];
+                for (int i = 0; i < items.size(); i++) {
+                    stripeIndexes[i] = stripeIndex(items.get(i).getProduct().getProductID());
+                }
+                Arrays.sort(stripeIndexes);
+
+                if (!commitLocked(hold, items, products, stripeIndexes, 0)) {
+                    return false; // reservations are kept so the customer can adjust the cart
+                }
+                hold.quantities.clear();
+                hold.released = true;
+                holds.remove(cart, hold);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of units of a product that can still be reserved.
+     *
+     * @param product the product
+     * @return stock minus units reserved in carts
+     */
+    public int getAvailable(Product product) {
+        return Math.max(product.getStock() - getReserved(product.getProductID()), 0);
+    }
+
+    /**
+     * Returns the number of units of a product reserved in carts.
+     *
+     * @param productID the ID of the product
+     * @return the reserved units
+     */
+    public int getReserved(int productID) {
+        AtomicInteger reserved = reservedByProduct.get(productID);
+        return reserved != null ? reserved.get() : 0;
+    }
+
+    /**
+     * Releases every cart that has not reserved or changed anything for the given time.
+     *
+     * @param idleMillis how long a cart may sit idle
+     * @return the number of carts released
+     */
+    public int expireIdle(long idleMillis) {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        int expired = 0;
+
+        for (Map.Entry<Cart, Hold> entry : holds.entrySet()) {
+            if (entry.getValue().lastTouched < cutoff) {
+                releaseAll(entry.getKey());
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Starts a background timer that releases idle carts once a minute.
+     *
+     * @param idleMillis how long a cart may sit idle before its stock is released
+     */
+    public synchronized void startExpiryTimer(long idleMillis) {
+        if (expiryTimer != null) {
+            return;
+        }
+        expiryTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "reservation-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiryTimer.scheduleWithFixedDelay(() -> {
+            int expired = expireIdle(idleMillis);
+            if (expired > 0) {
+                System.out.println("Released stock reserved by " + expired + " idle cart(s).");
+            }
+        }, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stops the background expiry timer.
+     */
+    public synchronized void stopExpiryTimer() {
+        if (expiryTimer != null) {
+            expiryTimer.shutdownNow();
+            expiryTimer = null;
+        }
+    }
+
+    private boolean commitLocked(Hold hold, List<CartItem> items, IntProductIndex products,
+                                 int[] stripeIndexes, int next) {
+        // Skip repeated stripes, then lock the next one and recurse
+        while (next > 0 && next < stripeIndexes.length && stripeIndexes[next] == stripeIndexes[next - 1]) {
+            next++;
+        }
+        if (next < stripeIndexes.length) {
+            synchronized (stripes[stripeIndexes[next]]) {
+                return commitLocked(hold, items, products, stripeIndexes, next + 1);
+            }
+        }
+
+        // All stripes held: check every item first, then take the stock
+        Map<Integer, Integer> wanted = new HashMap<>();
+        for (CartItem item : items) {
+            wanted.merge(item.getProduct().getProductID(), item.getQuantity(), Integer::sum);
+        }
+        for (Map.Entry<Integer, Integer> entry : wanted.entrySet()) {
+            Product product = products.get(entry.getKey());
+            int held = hold.get(entry.getKey());
+            int free = product != null ? product.getStock() - getReserved(entry.getKey()) + held : 0;
+            if (entry.getValue() > free) {
+                return false;
+            }
+        }
+        for (Map.Entry<Integer, Integer> entry : wanted.entrySet()) {
+            products.get(entry.getKey()).reduceStock(entry.getValue());
+            addReserved(entry.getKey(), -hold.get(entry.getKey()));
+        }
+        return true;
+    }
+
+    /**
+     * Sets (or, if relative, adds to) the units of a product held for a cart.
+     */
+    private boolean setHeld(Cart cart, Product product, int quantity, boolean relative) {
+        int productID = product.getProductID();
+
+        while (true) {
+            Hold hold = holds.computeIfAbsent(cart, c -> new Hold());
+            synchronized (hold) {
+                if (hold.released) {
+                    continue; // released by another thread meanwhile; start over
+                }
+                synchronized (stripeFor(productID)) {
+                    int target = relative ? hold.get(productID) + quantity : quantity;
+                    int delta = target - hold.get(productID);
+                    if (delta > 0 && delta > product.getStock() - getReserved(productID)) {
+                        return false;
+                    }
+                    addReserved(productID, delta);
+                    hold.set(productID, target);
+                }
+                return true;
+            }
+        }
+    }
+
+    private void addReserved(int productID, int delta) {
+        if (delta != 0) {
+            reservedByProduct.computeIfAbsent(productID, id -> new AtomicInteger()).addAndGet(delta);
+        }
+    }
+
+    private Object stripeFor(int productID) {
+        return stripes[stripeIndex(productID)];
+    }
+
+    private int stripeIndex(int productID) {
+        int h = productID * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (STRIPE_COUNT - 1);
+    }
+
+    /**
+     * Units reserved by one cart, per product ID.
+     */
+    private static class Hold {
+        private final Map<Integer, Integer> quantities = new HashMap<>();
+        private volatile long lastTouched = System.currentTimeMillis();
+        private boolean released;
+
+        int get(int productID) {
+            return quantities.getOrDefault(productID, 0);
+        }
+
+        void set(int productID, int quantity) {
+            if (quantity > 0) {
+                quantities.put(productID, quantity);
+            } else {
+                quantities.remove(productID);
+            }
+            lastTouched = System.currentTimeMillis();
+        }
+    }
+}
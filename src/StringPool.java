@@ -0,0 +1,172 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * StringPool stores strings once each as UTF-8 bytes in direct (off-heap) memory
+ * and hands out an int handle for each. Adding a string that is already pooled
+ * returns the existing handle, so a name or brand repeated across thousands of
+ * products is stored only once and costs no heap objects while it sits in the pool.
+ *
+ * Entries are a two-byte length followed by the bytes. Duplicates are found through
+ * an open-addressing table of entry offsets probed linearly. Entries are never
+ * removed; the pool only grows.
+ *
+ * This class is not synchronized.
+ *
+ * @author Joreve P. De Jesus
+ */
+class StringPool {
+    /** Handle stored for a null string. */
+    public static final int NULL = -1;
+
+    private static final int INITIAL_BYTES = 64 * 1024;
+    private static final int INITIAL_TABLE_SIZE = 1024; // must be a power of two
+    private static final int MAX_LENGTH = 0xFFFF;
+
+    private ByteBuffer data;
+    private int[] table; // entry offset + 1 for each used slot, 0 for an empty slot
+    private int mask;
+    private int count;
+
+    /**
+     * Constructs an empty StringPool.
+     */
+    public StringPool() {
+        this.data = ByteBuffer.allocateDirect(INITIAL_BYTES);
+        this.table = new int[INITIAL_TABLE_SIZE];
+        this.mask = INITIAL_TABLE_SIZE - 1;
+    }
+
+    /**
+     * Adds a string to the pool, or finds it if it is already there.
+     * Strings longer than 65535 UTF-8 bytes are cut off.
+     *
+     * @param value the string (may be null)
+     * @return the handle of the pooled string, or {@link #NULL} for null
+     */
+    public int intern(String value) {
+        if (value == null) {
+            return NULL;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_LENGTH);
+        int hash = hash(bytes, length);
+
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int offset = table[slot] - 1;
+            if (matches(offset, bytes, length)) {
+                return offset;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int offset = data.position();
+        ensureCapacity(2 + length);
+        data.putShort((short) length);
+        data.put(bytes, 0, length);
+        table[slot] = offset + 1;
+        count++;
+
+        if (count * 2 > table.length) {
+            resizeTable(table.length * 2);
+        }
+        return offset;
+    }
+
+    /**
+     * Decodes a pooled string.
+     *
+     * @param handle a handle returned by {@link #intern(String)}
+     * @return the string, or null for {@link #NULL}
+     */
+    public String get(int handle) {
+        if (handle == NULL) {
+            return null;
+        }
+
+        int length = data.getShort(handle) & MAX_LENGTH;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = data.get(handle + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Empties the pool. Handles handed out before are no longer valid. The
+     * memory already allocated is kept for the strings added next.
+     */
+    public void clear() {
+        data.clear();
+        Arrays.fill(table, 0);
+        count = 0;
+    }
+
+    private boolean matches(int offset, byte[] bytes, int length) {
+        if ((data.getShort(offset) & MAX_LENGTH) != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (data.get(offset + 2 + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int hash(byte[] bytes, int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return spread(h);
+    }
+
+    private int hashEntry(int offset) {
+        int length = data.getShort(offset) & MAX_LENGTH;
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + data.get(offset + 2 + i);
+        }
+        return spread(h);
+    }
+
+    private int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (data.remaining() >= extra) {
+            return;
+        }
+
+        int capacity = data.capacity();
+        while (capacity - data.position() < extra) {
+            capacity *= 2;
+        }
+        ByteBuffer larger = ByteBuffer.allocateDirect(capacity);
+        data.flip();
+        larger.put(data);
+        data = larger;
+    }
+
+    private void resizeTable(int tableSize) {
+        int[] oldTable = table;
+        table = new int[tableSize];
+        mask = tableSize - 1;
+
+        for (int entry : oldTable) {
+            if (entry != 0) {
+                int slot = hashEntry(entry - 1) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = entry;
+            }
+        }
+    }
+}
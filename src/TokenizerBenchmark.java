@@ -0,0 +1,131 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+
+/**
+ * TokenizerBenchmark measures what reading one products.txt record costs with
+ * {@link RecordReader} compared with the {@code readLine()} and
+ * {@code split("\\|\\|\\|")} parsing it replaced. Both read every field of the
+ * same generated catalog the way DataManager does; neither builds the Product,
+ * so only the tokenizing and number parsing are compared.
+ *
+ * For each approach it prints the bytes allocated per line, read from the JVM's
+ * per-thread allocation counter, and the time per line. Run it with
+ * {@code java TokenizerBenchmark [lines]}; the default is 200,000 lines.
+ *
+ * @author Joreve P. De Jesus
+ */
+public class TokenizerBenchmark {
+    private static final int DEFAULT_LINES = 200_000;
+    private static final int ROUNDS = 5;
+
+    private static long sink; // keeps the parsed values alive
+
+    public static void main(String[] args) throws IOException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+        String catalog = generateCatalog(lines);
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.err.println("This JVM does not report allocated bytes per thread.");
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        System.out.printf("%,d product lines, best of %d rounds%n", lines, ROUNDS);
+        for (int approach = 0; approach < 2; approach++) {
+            long bestBytes = Long.MAX_VALUE;
+            long bestNanos = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long bytesBefore = threads.getThreadAllocatedBytes(thread);
+                long start = System.nanoTime();
+                if (approach == 0) {
+                    readWithSplit(catalog);
+                } else {
+                    readWithRecordReader(catalog);
+                }
+                long nanos = System.nanoTime() - start;
+                long bytes = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+                bestBytes = Math.min(bestBytes, bytes);
+                bestNanos = Math.min(bestNanos, nanos);
+            }
+            System.out.printf("%-13s %8.1f bytes/line %8.1f ns/line%n",
+                    approach == 0 ? "split" : "RecordReader",
+                    (double) bestBytes / lines, (double) bestNanos / lines);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Builds a catalog in the products.txt format, with and without the optional fields.
+     */
+    private static String generateCatalog(int lines) {
+        StringBuilder text = new StringBuilder(lines * 80);
+        for (int i = 0; i < lines; i++) {
+            text.append(100 + i).append("|||Product ").append(i)
+                .append("|||").append(10 + i % 500).append('.').append(i % 4 * 25)
+                .append("|||").append(i % 300)
+                .append("|||Food|||Snacks ").append(i % 12)
+                .append("|||").append(i % 3 == 0 ? "" : "Brand " + i % 40)
+                .append("|||").append(i % 2 == 0 ? "" : "Pack")
+                .append("|||").append(i % 5 == 0 ? "" : LocalDate.of(2026, 1 + i % 12, 1 + i % 28))
+                .append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Reads every line the way DataManager did before RecordReader.
+     */
+    private static void readWithSplit(String catalog) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new StringReader(catalog))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\\|\\|\\|");
+                int productID = Integer.parseInt(parts[0]);
+                String name = parts[1];
+                double price = Double.parseDouble(parts[2]);
+                int stock = Integer.parseInt(parts[3]);
+                String mainCategory = parts[4];
+                String subCategory = parts[5];
+                String brand = parts.length > 6 && !parts[6].isEmpty() ? parts[6] : null;
+                String variant = parts.length > 7 && !parts[7].isEmpty() ? parts[7] : null;
+                LocalDate expiry = parts.length > 8 && !parts[8].isEmpty() ? LocalDate.parse(parts[8]) : null;
+                consume(productID, name, price, stock, mainCategory, subCategory, brand, variant, expiry);
+            }
+        }
+    }
+
+    /**
+     * Reads every line the way DataManager.readProduct does now.
+     */
+    private static void readWithRecordReader(String catalog) throws IOException {
+        try (RecordReader fields = new RecordReader(new StringReader(catalog))) {
+            while (fields.nextRecord()) {
+                int productID = fields.nextInt();
+                String name = fields.nextString();
+                double price = fields.nextDouble();
+                int stock = fields.nextInt();
+                String mainCategory = fields.nextString();
+                String subCategory = fields.nextString();
+                String brand = fields.nextOptionalString();
+                String variant = fields.nextOptionalString();
+                LocalDate expiry = fields.nextDate();
+                consume(productID, name, price, stock, mainCategory, subCategory, brand, variant, expiry);
+            }
+        }
+    }
+
+    private static void consume(int productID, String name, double price, int stock, String mainCategory,
+                                String subCategory, String brand, String variant, LocalDate expiry) {
+        sink += productID + name.length() + (long) price + stock + mainCategory.length() + subCategory.length()
+                + (brand != null ? brand.length() : 0) + (variant != null ? variant.length() : 0)
+                + (expiry != null ? expiry.getDayOfMonth() : 0);
+    }
+}
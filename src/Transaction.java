@@ -1,37 +1,37 @@
-import java.util.ArrayList;
+import java.util.List;
 import java.time.LocalDateTime;
 
 /**
  * The Transaction class represents a completed purchase.
- * It keeps track of the customer, the items they bought,
- * how they paid, and automatically computes the total cost with tax.
+ * It keeps track of the customer, the items they bought and how they paid.
+ *
+ * Every amount comes from the {@link PricedCart} made when the cart was priced
+ * at checkout, so the transaction, its receipt and the saved record all show the
+ * same breakdown and nothing is priced a second time.
  * 
  * @author Dana Ysabelle A. Pelagio
  */
 public class Transaction {
     private String transactionID;
     private Customer customer;
-    private ArrayList<CartItem> purchasedItems;
-    private double totalCost;
+    private PricedCart pricing;
     private Payment payment;
     private LocalDateTime timeStamp;
-    private static final double VAT_RATE = 0.12; // 12% VAT
 
     /**
      * Creates a new Transaction with all needed details including payment.
      *
      * @param transactionID unique ID for this transaction
      * @param customer the customer who made the purchase
-     * @param purchasedItems list of all items bought
+     * @param pricing the priced cart that was paid for
      * @param payment payment information
      */
-    public Transaction(String transactionID, Customer customer, ArrayList<CartItem> purchasedItems, Payment payment) {
+    public Transaction(String transactionID, Customer customer, PricedCart pricing, Payment payment) {
         this.transactionID = transactionID;
         this.customer = customer;
-        this.purchasedItems = new ArrayList<>(purchasedItems);
+        this.pricing = pricing;
         this.payment = payment;
         this.timeStamp = LocalDateTime.now();
-        this.totalCost = calculateTotalWithTax();
     }
 
     /**
@@ -39,53 +39,10 @@ public class Transaction {
      *
      * @param transactionID unique ID for this transaction
      * @param customer the customer who made the purchase
-     * @param purchasedItems list of all items bought
-     * @param totalCost the subtotal before tax
+     * @param pricing the priced cart that was paid for
      */
-    public Transaction(String transactionID, Customer customer, ArrayList<CartItem> purchasedItems, double totalCost) {
-        this.transactionID = transactionID;
-        this.customer = customer;
-        this.purchasedItems = new ArrayList<>(purchasedItems);
-        this.payment = null; // Payment will be set later
-        this.timeStamp = LocalDateTime.now();
-        this.totalCost = calculateTotalWithTax();
-    }
-
-    /**
-     * Calculates the total amount with VAT added.
-     *
-     * @return total cost including tax
-     */
-    public double calculateTotalWithTax() {
-        double subtotal = 0.0;
-        for (CartItem item : purchasedItems) {
-            subtotal += item.computeLineTotal();
-        }
-
-        double discountedSubtotal = applyDiscounts();
-        double vat = discountedSubtotal * VAT_RATE;
-        return discountedSubtotal + vat;
-    }
-
-    /**
-     * Applies discounts (like membership or senior discounts)
-     * to the total before adding VAT.
-     *
-     * @return discounted subtotal
-     */
-    public double applyDiscounts() {
-        double subtotal = 0.0;
-        for (CartItem item : purchasedItems) {
-            subtotal += item.computeLineTotal();
-        }
-
-        double discountedTotal = subtotal;
-
-        if (customer.hasMembershipCard()) {
-            discountedTotal = DiscountPolicy.applyMembershipDiscount(customer, discountedTotal);
-        }
-
-        return discountedTotal;
+    public Transaction(String transactionID, Customer customer, PricedCart pricing) {
+        this(transactionID, customer, pricing, null);
     }
 
     /**
@@ -109,12 +66,31 @@ public class Transaction {
         return customer;
     }
 
-    public ArrayList<CartItem> getPurchasedItems() {
-        return purchasedItems;
+    /**
+     * Returns the pricing of the purchase: the lines, every discount,
+     * the points used, VAT and the total.
+     *
+     * @return the priced cart
+     */
+    public PricedCart getPricing() {
+        return pricing;
+    }
+
+    /**
+     * Returns the purchased lines with the prices they were sold at.
+     *
+     * @return the lines, in cart order
+     */
+    public List<PricedCart.Line> getLines() {
+        return pricing.getLines();
+    }
+
+    public Money getSubtotal() {
+        return pricing.getSubtotal();
     }
 
-    public double getTotalCost() {
-        return totalCost;
+    public Money getTotalCost() {
+        return pricing.getTotal();
     }
 
     public Payment getPayment() {
@@ -124,4 +100,20 @@ public class Transaction {
     public LocalDateTime getTimeStamp() {
         return timeStamp;
     }
+
+    public Money getSeniorDiscount() {
+        return pricing.getDiscount(PricingRule.Condition.SENIOR);
+    }
+
+    public Money getPointsDiscount() {
+        return pricing.getPointsDiscount();
+    }
+
+    public int getPointsUsed() {
+        return pricing.getPointsUsed();
+    }
+
+    public Money getVAT() {
+        return pricing.getVAT();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,230 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * TransactionLog is an append-only binary log of completed sales.
+ * Every record keeps the full line items (product ID, quantity, unit price and
+ * line discount), the discount breakdown, points used, VAT and payment, all taken
+ * from the transaction's {@link PricedCart}, so any sales report can be rebuilt
+ * by scanning the log instead of parsing receipt text.
+ *
+ * Record layout: payload length (int), payload, CRC32 of the payload (int).
+ * A record cut short by a crash fails its length or checksum test, and the
+ * scan stops there instead of returning garbage.
+ *
+ * Amounts are written as variable-length centavo counts (see {@link Money#write}),
+ * so a typical price or total takes two to four bytes instead of an eight-byte
+ * double. Records written before amounts were exact (version 1) hold doubles and
+ * are still read, rounded to the centavo. Records written before the full pricing
+ * breakdown was kept (versions 1 and 2) read back with no line discounts, no
+ * points count and no named discounts.
+ *
+ * @author Joreve P. De Jesus
+ */
+public class TransactionLog {
+    private static final int VERSION = 3;
+    private static final int DOUBLE_AMOUNTS_VERSION = 1;
+    private static final int TOTALS_ONLY_VERSION = 2;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    private final Path logPath;
+    private final PersistenceWriter writer;
+
+    /**
+     * Constructs a TransactionLog backed by the given file.
+     *
+     * @param filepath the path of the log file
+     * @param writer the background writer that appends records
+     */
+    public TransactionLog(String filepath, PersistenceWriter writer) {
+        this.logPath = Paths.get(filepath);
+        this.writer = writer;
+    }
+
+    /**
+     * Queues a transaction to be appended to the log.
+     * The line items and prices are captured before this method returns.
+     *
+     * @param transaction the completed transaction
+     * @param callback told when the record is durable (may be null)
+     */
+    public void append(Transaction transaction, WriteCallback callback) {
+        writer.append(logPath.toString(), encode(transaction), callback);
+    }
+
+    /**
+     * Reads every record in the log, oldest first.
+     *
+     * @param consumer receives each transaction record
+     */
+    public void scan(Consumer<TransactionRecord> consumer) {
+        writer.flush();
+        if (!Files.exists(logPath)) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(logPath)))) {
+            byte[] payload = new byte[256];
+            CRC32 crc = new CRC32();
+
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return; // clean end of log
+                }
+                if (length <= 0 || length > MAX_RECORD_SIZE) {
+                    System.err.println("Corrupt record in transaction log; stopping scan.");
+                    return;
+                }
+
+                if (payload.length < length) {
+                    payload = new byte[Math.max(length, payload.length * 2)];
+                }
+                in.readFully(payload, 0, length);
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != in.readInt()) {
+                    System.err.println("Corrupt record in transaction log; stopping scan.");
+                    return;
+                }
+
+                consumer.accept(decode(new DataInputStream(new ByteArrayInputStream(payload, 0, length))));
+            }
+        } catch (EOFException e) {
+            System.err.println("Incomplete record at end of transaction log; ignored.");
+        } catch (IOException e) {
+            System.err.println("Error reading transaction log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads every record in the log into a list, oldest first.
+     *
+     * @return the recorded transactions
+     */
+    public List<TransactionRecord> loadAll() {
+        List<TransactionRecord> records = new ArrayList<>();
+        scan(records::add);
+        return records;
+    }
+
+    private byte[] encode(Transaction transaction) {
+        try {
+            PricedCart pricing = transaction.getPricing();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 + pricing.getLines().size() * 16);
+            DataOutputStream out = new DataOutputStream(bytes);
+            Payment payment = transaction.getPayment();
+            Money total = payment != null ? payment.getTotalCost() : transaction.getTotalCost();
+
+            out.writeByte(VERSION);
+            out.writeLong(transaction.getTimeStamp().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(transaction.getTimeStamp().getNano());
+            out.writeUTF(transaction.getTransactionID());
+            out.writeUTF(transaction.getCustomer().getUsername());
+            out.writeUTF(transaction.getCustomer().getName());
+
+            out.writeInt(pricing.getLines().size());
+            for (PricedCart.Line line : pricing.getLines()) {
+                out.writeInt(line.getProduct().getProductID());
+                out.writeInt(line.getQuantity());
+                line.getUnitPrice().write(out);
+                line.getDiscount().write(out);
+            }
+
+            pricing.getSubtotal().write(out);
+            transaction.getSeniorDiscount().write(out);
+            transaction.getPointsDiscount().write(out);
+            transaction.getVAT().write(out);
+            total.write(out);
+            (payment != null ? payment.getAmountReceived() : total).write(out);
+            (payment != null ? payment.computeChange() : Money.ZERO).write(out);
+
+            out.writeInt(pricing.getPointsUsed());
+            out.writeInt(pricing.getAdjustments().size());
+            for (PricedCart.Adjustment adjustment : pricing.getAdjustments()) {
+                out.writeUTF(adjustment.getName() == null ? "" : adjustment.getName());
+                out.writeByte(adjustment.getRule().getCondition().ordinal());
+                adjustment.getAmount().write(out);
+            }
+            out.flush();
+
+            byte[] payload = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+
+            ByteArrayOutputStream record = new ByteArrayOutputStream(payload.length + 8);
+            DataOutputStream framed = new DataOutputStream(record);
+            framed.writeInt(payload.length);
+            framed.write(payload);
+            framed.writeInt((int) crc.getValue());
+            return record.toByteArray();
+        } catch (IOException e) {
+            // Writing to a byte array cannot fail
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private TransactionRecord decode(DataInputStream in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != VERSION && version != TOTALS_ONLY_VERSION && version != DOUBLE_AMOUNTS_VERSION) {
+            throw new IOException("Unsupported transaction record version " + version);
+        }
+
+        LocalDateTime timeStamp = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        String transactionID = in.readUTF();
+        String username = in.readUTF();
+        String name = in.readUTF();
+
+        int itemCount = in.readInt();
+        List<TransactionRecord.LineItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            int productID = in.readInt();
+            int quantity = in.readInt();
+            Money unitPrice = readAmount(in, version);
+            Money discount = version == VERSION ? Money.read(in) : Money.ZERO;
+            items.add(new TransactionRecord.LineItem(productID, quantity, unitPrice, discount));
+        }
+
+        Money subtotal = readAmount(in, version);
+        Money seniorDiscount = readAmount(in, version);
+        Money pointsDiscount = readAmount(in, version);
+        Money vat = readAmount(in, version);
+        Money total = readAmount(in, version);
+        Money amountReceived = readAmount(in, version);
+        Money change = readAmount(in, version);
+
+        int pointsUsed = 0;
+        List<TransactionRecord.Discount> discounts = new ArrayList<>();
+        if (version == VERSION) {
+            pointsUsed = in.readInt();
+            int discountCount = in.readInt();
+            PricingRule.Condition[] conditions = PricingRule.Condition.values();
+            for (int i = 0; i < discountCount; i++) {
+                String discountName = in.readUTF();
+                int condition = in.readUnsignedByte();
+                if (condition >= conditions.length) {
+                    throw new IOException("Unknown discount condition " + condition);
+                }
+                discounts.add(new TransactionRecord.Discount(discountName, conditions[condition], Money.read(in)));
+            }
+        }
+
+        return new TransactionRecord(transactionID, timeStamp, username, name, items,
+                                     subtotal, seniorDiscount, pointsDiscount, vat, total, amountReceived, change,
+                                     pointsUsed, discounts);
+    }
+
+    private static Money readAmount(DataInputStream in, int version) throws IOException {
+        return version == DOUBLE_AMOUNTS_VERSION ? Money.of(in.readDouble()) : Money.read(in);
+    }
+}
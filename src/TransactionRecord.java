@@ -0,0 +1,209 @@
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * TransactionRecord is a completed sale as read back from the transaction log.
+ * It holds plain values only (no Product or Customer objects), so reports can be
+ * rebuilt from the log without loading the catalog or the receipt files.
+ * Amounts are exact; totals over many records can be summed as centavos
+ * with {@link Money#getCentavos()}.
+ *
+ * @author Joreve P. De Jesus
+ */
+public class TransactionRecord {
+    private final String transactionID;
+    private final LocalDateTime timeStamp;
+    private final String customerUsername;
+    private final String customerName;
+    private final List<LineItem> items;
+    private final Money subtotal;
+    private final Money seniorDiscount;
+    private final Money pointsDiscount;
+    private final Money vat;
+    private final Money total;
+    private final Money amountReceived;
+    private final Money change;
+    private final int pointsUsed;
+    private final List<Discount> discounts;
+
+    /**
+     * Constructs a TransactionRecord.
+     *
+     * @param transactionID the ID of the transaction
+     * @param timeStamp when the sale was made
+     * @param customerUsername the customer's username
+     * @param customerName the customer's display name
+     * @param items the line items in the order they were bought
+     * @param subtotal the sum of all line totals
+     * @param seniorDiscount the senior citizen discount applied
+     * @param pointsDiscount the membership points discount applied
+     * @param vat the VAT charged
+     * @param total the amount charged
+     * @param amountReceived the cash received
+     * @param change the change given
+     * @param pointsUsed the number of membership points used
+     * @param discounts each discount and promotion that applied
+     */
+    public TransactionRecord(String transactionID, LocalDateTime timeStamp,
+                             String customerUsername, String customerName, List<LineItem> items,
+                             Money subtotal, Money seniorDiscount, Money pointsDiscount,
+                             Money vat, Money total, Money amountReceived, Money change,
+                             int pointsUsed, List<Discount> discounts) {
+        this.transactionID = transactionID;
+        this.timeStamp = timeStamp;
+        this.customerUsername = customerUsername;
+        this.customerName = customerName;
+        this.items = Collections.unmodifiableList(items);
+        this.subtotal = subtotal;
+        this.seniorDiscount = seniorDiscount;
+        this.pointsDiscount = pointsDiscount;
+        this.vat = vat;
+        this.total = total;
+        this.amountReceived = amountReceived;
+        this.change = change;
+        this.pointsUsed = pointsUsed;
+        this.discounts = Collections.unmodifiableList(discounts);
+    }
+
+    public String getTransactionID() {
+        return transactionID;
+    }
+
+    public LocalDateTime getTimeStamp() {
+        return timeStamp;
+    }
+
+    public String getCustomerUsername() {
+        return customerUsername;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public List<LineItem> getItems() {
+        return items;
+    }
+
+    public Money getSubtotal() {
+        return subtotal;
+    }
+
+    public Money getSeniorDiscount() {
+        return seniorDiscount;
+    }
+
+    public Money getPointsDiscount() {
+        return pointsDiscount;
+    }
+
+    public Money getVAT() {
+        return vat;
+    }
+
+    public Money getTotal() {
+        return total;
+    }
+
+    public Money getAmountReceived() {
+        return amountReceived;
+    }
+
+    public Money getChange() {
+        return change;
+    }
+
+    /**
+     * Returns the number of membership points used. Records from before points
+     * were counted give 0; use {@link #getPointsDiscount()} for those.
+     *
+     * @return the points used
+     */
+    public int getPointsUsed() {
+        return pointsUsed;
+    }
+
+    /**
+     * Returns each discount and promotion that applied, in rule order.
+     * Records from before discounts were itemized give an empty list.
+     *
+     * @return the discounts
+     */
+    public List<Discount> getDiscounts() {
+        return discounts;
+    }
+
+    /**
+     * One product line of a recorded sale, with the price it was sold at.
+     */
+    public static class LineItem {
+        private final int productID;
+        private final int quantity;
+        private final Money unitPrice;
+        private final Money discount;
+
+        public LineItem(int productID, int quantity, Money unitPrice) {
+            this(productID, quantity, unitPrice, Money.ZERO);
+        }
+
+        public LineItem(int productID, int quantity, Money unitPrice, Money discount) {
+            this.productID = productID;
+            this.quantity = quantity;
+            this.unitPrice = unitPrice;
+            this.discount = discount;
+        }
+
+        public int getProductID() {
+            return productID;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public Money getUnitPrice() {
+            return unitPrice;
+        }
+
+        public Money getLineTotal() {
+            return unitPrice.times(quantity);
+        }
+
+        /**
+         * Returns what the line's promotions took off, not counting order discounts.
+         *
+         * @return the line discount
+         */
+        public Money getDiscount() {
+            return discount;
+        }
+    }
+
+    /**
+     * One discount or promotion of a recorded sale, with the amount it took off.
+     */
+    public static class Discount {
+        private final String name;
+        private final PricingRule.Condition condition;
+        private final Money amount;
+
+        public Discount(String name, PricingRule.Condition condition, Money amount) {
+            this.name = name;
+            this.condition = condition;
+            this.amount = amount;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public PricingRule.Condition getCondition() {
+            return condition;
+        }
+
+        public Money getAmount() {
+            return amount;
+        }
+    }
+}
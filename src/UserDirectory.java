@@ -0,0 +1,198 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * UserDirectory keeps every registered customer and employee account in memory,
+ * keyed by username, so logins and username checks never have to scan the data files.
+ * It is loaded once by DataManager and updated whenever an account is saved.
+ *
+ * @author Joreve P. De Jesus
+ */
+public class UserDirectory {
+    private Map<String, CustomerRecord> customers;
+    private Map<String, EmployeeRecord> employees;
+
+    /**
+     * Constructs an empty UserDirectory.
+     */
+    public UserDirectory() {
+        this.customers = new LinkedHashMap<>();
+        this.employees = new LinkedHashMap<>();
+    }
+
+    /**
+     * Adds or replaces the stored record for a customer.
+     *
+     * @param username the customer's username
+     * @param password the customer's password
+     * @param name the customer's display name
+     * @param cardNumber the membership card number (empty or null if none)
+     * @param points the membership points balance
+     */
+    public void putCustomer(String username, String password, String name,
+                            String cardNumber, int points) {
+        customers.put(username, new CustomerRecord(username, password, name, cardNumber, points));
+    }
+
+    /**
+     * Adds or replaces the stored record for a customer using a Customer object.
+     *
+     * @param customer the customer to store
+     */
+    public void putCustomer(Customer customer) {
+        String cardNumber = "";
+        int points = 0;
+
+        if (customer.hasMembershipCard()) {
+            cardNumber = customer.getMembershipCard().getCardNumber();
+            points = customer.getMembershipCard().getPoints();
+        }
+
+        putCustomer(customer.getUsername(), customer.getPassword(), customer.getName(), cardNumber, points);
+    }
+
+    /**
+     * Adds or replaces the stored record for an employee.
+     *
+     * @param employee the employee to store
+     */
+    public void putEmployee(Employee employee) {
+        employees.put(employee.getUsername(), new EmployeeRecord(employee.getUsername(),
+                employee.getPassword(), employee.getName(), employee.getEmployeeID()));
+    }
+
+    /**
+     * Finds a customer by username and password.
+     * A new Customer object (with an empty cart) is created for every successful lookup.
+     *
+     * @param username the username to look up
+     * @param password the password to verify
+     * @return the matching Customer, or null if the credentials are invalid
+     */
+    public Customer findCustomer(String username, String password) {
+        CustomerRecord record = customers.get(username);
+        if (record == null || !record.password.equals(password)) {
+            return null;
+        }
+        return record.toCustomer();
+    }
+
+    /**
+     * Finds an employee by username and password.
+     *
+     * @param username the username to look up
+     * @param password the password to verify
+     * @return the matching Employee, or null if the credentials are invalid
+     */
+    public Employee findEmployee(String username, String password) {
+        EmployeeRecord record = employees.get(username);
+        if (record == null || !record.password.equals(password)) {
+            return null;
+        }
+        return new Employee(record.name, record.username, record.password, record.employeeID);
+    }
+
+    /**
+     * Checks if a username is taken by either a customer or an employee.
+     *
+     * @param username the username to check
+     * @return true if the username is already registered
+     */
+    public boolean contains(String username) {
+        return customers.containsKey(username) || employees.containsKey(username);
+    }
+
+    /**
+     * Checks if a username belongs to a customer.
+     *
+     * @param username the username to check
+     * @return true if a customer with that username exists
+     */
+    public boolean containsCustomer(String username) {
+        return customers.containsKey(username);
+    }
+
+    /**
+     * Builds Customer objects for every stored customer record.
+     *
+     * @return a list of customers in registration order
+     */
+    public List<Customer> getAllCustomers() {
+        List<Customer> all = new ArrayList<>();
+        for (CustomerRecord record : customers.values()) {
+            all.add(record.toCustomer());
+        }
+        return all;
+    }
+
+    /**
+     * Builds Employee objects for every stored employee record.
+     *
+     * @return a list of employees in registration order
+     */
+    public List<Employee> getAllEmployees() {
+        List<Employee> all = new ArrayList<>();
+        for (EmployeeRecord record : employees.values()) {
+            all.add(new Employee(record.name, record.username, record.password, record.employeeID));
+        }
+        return all;
+    }
+
+    /**
+     * Removes all stored accounts.
+     */
+    public void clear() {
+        customers.clear();
+        employees.clear();
+    }
+
+    /**
+     * Stored fields for one customer account.
+     */
+    private static class CustomerRecord {
+        private final String username;
+        private final String password;
+        private final String name;
+        private final String cardNumber;
+        private final int points;
+
+        CustomerRecord(String username, String password, String name, String cardNumber, int points) {
+            this.username = username;
+            this.password = password;
+            this.name = name;
+            this.cardNumber = cardNumber != null ? cardNumber : "";
+            this.points = points;
+        }
+
+        Customer toCustomer() {
+            Customer customer = new Customer(name, username, password);
+
+            if (!cardNumber.isEmpty()) {
+                MembershipCard card = new MembershipCard(cardNumber);
+                card.setPoints(points);
+                customer.setMembershipCard(card);
+            }
+
+            return customer;
+        }
+    }
+
+    /**
+     * Stored fields for one employee account.
+     */
+    private static class EmployeeRecord {
+        private final String username;
+        private final String password;
+        private final String name;
+        private final String employeeID;
+
+        EmployeeRecord(String username, String password, String name, String employeeID) {
+            this.username = username;
+            this.password = password;
+            this.name = name;
+            this.employeeID = employeeID;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * Receives the outcome of a write queued on the PersistenceWriter.
+ *
+ * @author Joreve P. De Jesus
+ */
+public interface WriteCallback {
+    /**
+     * Called on the writer thread once the write has been attempted.
+     *
+     * @param durable true if the data was written and synced to disk, false if the write failed
+     */
+    void onComplete(boolean durable);
+}